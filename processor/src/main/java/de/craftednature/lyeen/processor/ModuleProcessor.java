@@ -0,0 +1,301 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.processor;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that runs over all implementations of <code>Module</code>.<br>
+ * <br>
+ * For every module it generates a <code>ModuleInjector</code> that sets the <code>@Depends</code> and <code>@Uses</code> fields directly,
+ * so the fields don't have to be accessed with reflection at runtime. If a field is not accessible from the package of the module <i>(e.g. it is private)</i>,
+ * no injector is generated and the module falls back to reflection.<br>
+ * <br>
+ * Additionally all non-abstract modules are written to the module-index <code>META-INF/lyeen/modules.index</code>.
+ */
+public class ModuleProcessor extends AbstractProcessor {
+	
+	private static final String MODULE = "de.craftednature.lyeen.modules.Module";
+	private static final String INJECTOR = "de.craftednature.lyeen.modules.ModuleInjector";
+	private static final String DEPENDS = "de.craftednature.lyeen.modules.Depends";
+	private static final String USES = "de.craftednature.lyeen.modules.Uses";
+	
+	private static final String INJECTOR_SUFFIX = "_LyeenInjector";
+	private static final String INDEX = "META-INF/lyeen/modules.index";
+	
+	private final Set<String> indexedModules = new TreeSet<>();
+	
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton("*");
+	}
+	
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+	
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		TypeElement moduleElement = processingEnv.getElementUtils().getTypeElement(MODULE);
+		if (moduleElement == null) return false;
+		TypeMirror moduleType = processingEnv.getTypeUtils().erasure(moduleElement.asType());
+		
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())){
+			processType(type, moduleType);
+		}
+		
+		if (roundEnv.processingOver()) writeIndex();
+		
+		return false;
+	}
+	
+	private void processType(TypeElement type, TypeMirror moduleType){
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())){
+			processType(nested, moduleType);
+		}
+		
+		if (type.getKind() != ElementKind.CLASS) return;
+		if (type.getModifiers().contains(Modifier.ABSTRACT)) return;
+		if (!processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type.asType()), moduleType)) return;
+		
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		indexedModules.add(binaryName);
+		
+		if (!isAccessible(type)) return;
+		
+		List<VariableElement> dependencies = new ArrayList<>();
+		List<VariableElement> used = new ArrayList<>();
+		if (!collectFields(type, type, moduleType, dependencies, used)) return;
+		
+		try {
+			writeInjector(type, binaryName, dependencies, used);
+		} catch (IOException ex){
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not generate module-injector: " + ex, type);
+		}
+	}
+	
+	/**
+	 * Collects all annotated fields of the type and its superclasses.
+	 * 
+	 * @return <code>false</code> if a field can't be set from the generated injector
+	 */
+	private boolean collectFields(TypeElement module, TypeElement type, TypeMirror moduleType, List<VariableElement> dependencies, List<VariableElement> used){
+		TypeMirror parent = type.getSuperclass();
+		if (parent.getKind() == TypeKind.DECLARED){
+			TypeElement parentElement = (TypeElement) ((DeclaredType) parent).asElement();
+			if (!collectFields(module, parentElement, moduleType, dependencies, used)) return false;
+		}
+		
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())){
+			boolean isDependency = hasAnnotation(field, DEPENDS);
+			boolean isUsed = hasAnnotation(field, USES);
+			if (!isDependency && !isUsed) continue;
+			if (!processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(field.asType()), moduleType)) continue;
+			
+			if (!isFieldAccessible(module, type, field)){
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Field " + field.getSimpleName() + " is not accessible, " + module.getQualifiedName() + " will be injected using reflection.", field);
+				return false;
+			}
+			
+			if (isDependency) dependencies.add(field);
+			if (isUsed) used.add(field);
+		}
+		
+		return true;
+	}
+	
+	private boolean isFieldAccessible(TypeElement module, TypeElement declaringType, VariableElement field){
+		Set<Modifier> modifiers = field.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.STATIC)) return false;
+		
+		//the injector accesses the field through its declaring type, so a field of a subclass with the same name can't hide it
+		String pkg = getPackage(module);
+		if (pkg.equals(getPackage(declaringType))) return isAccessible(declaringType);
+		if (!modifiers.contains(Modifier.PUBLIC)) return false;
+		
+		for (Element element = declaringType; element instanceof TypeElement; element = element.getEnclosingElement()){
+			if (!element.getModifiers().contains(Modifier.PUBLIC)) return false;
+		}
+		return true;
+	}
+	
+	private boolean isAccessible(TypeElement type){
+		Element element = type;
+		while (element instanceof TypeElement){
+			TypeElement t = (TypeElement) element;
+			if (t.getModifiers().contains(Modifier.PRIVATE)) return false;
+			if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS) return false;
+			if (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC) && t != type) return false;
+			element = t.getEnclosingElement();
+		}
+		return true;
+	}
+	
+	private boolean hasNoArgsConstructor(TypeElement type){
+		if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) return false;
+		
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())){
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) return true;
+		}
+		return false;
+	}
+	
+	private boolean hasAnnotation(Element element, String annotation){
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()){
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation)) return true;
+		}
+		return false;
+	}
+	
+	private String getPackage(TypeElement type){
+		PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+		return pkg.getQualifiedName().toString();
+	}
+	
+	private void writeInjector(TypeElement type, String binaryName, List<VariableElement> dependencies, List<VariableElement> used) throws IOException {
+		String pkg = getPackage(type);
+		String simpleName = (pkg.isEmpty() ? binaryName : binaryName.substring(pkg.length() + 1)).replace('$', '_') + INJECTOR_SUFFIX;
+		String moduleName = type.getQualifiedName().toString();
+		
+		StringBuilder src = new StringBuilder();
+		if (!pkg.isEmpty()) src.append("package ").append(pkg).append(";\n\n");
+		
+		src.append("/**\n * Generated by the lyeen module-processor, do not edit!\n */\n");
+		src.append("public final class ").append(simpleName).append(" implements ").append(INJECTOR).append(" {\n\n");
+		
+		appendArrays(src, "DEPENDENCY", dependencies);
+		appendArrays(src, "USED", used);
+		
+		src.append("\t@Override\n\tpublic Class<? extends ").append(MODULE).append("> getModuleType() {\n");
+		src.append("\t\treturn ").append(moduleName).append(".class;\n\t}\n\n");
+		
+		src.append("\t@Override\n\tpublic ").append(MODULE).append(" create() {\n");
+		if (hasNoArgsConstructor(type)) src.append("\t\treturn new ").append(moduleName).append("();\n\t}\n\n");
+		else src.append("\t\treturn null;\n\t}\n\n");
+		
+		appendAccessors(src, "Dependency", "DEPENDENCY", dependencies);
+		appendAccessors(src, "Used", "USED", used);
+		
+		src.append("}\n");
+		
+		JavaFileObject file = processingEnv.getFiler().createSourceFile((pkg.isEmpty() ? "" : pkg + ".") + simpleName, type);
+		try (Writer writer = file.openWriter()){
+			writer.write(src.toString());
+		}
+	}
+	
+	private void appendArrays(StringBuilder src, String prefix, List<VariableElement> fields){
+		src.append("\tprivate static final String[] ").append(prefix).append("_NAMES = {");
+		for (int i = 0; i < fields.size(); i++){
+			VariableElement field = fields.get(i);
+			String declaring = processingEnv.getElementUtils().getBinaryName((TypeElement) field.getEnclosingElement()).toString();
+			if (i > 0) src.append(", ");
+			src.append('"').append(declaring).append('#').append(field.getSimpleName()).append('"');
+		}
+		src.append("};\n");
+		
+		src.append("\tprivate static final Class<?>[] ").append(prefix).append("_TYPES = {");
+		for (int i = 0; i < fields.size(); i++){
+			if (i > 0) src.append(", ");
+			src.append(erasure(fields.get(i))).append(".class");
+		}
+		src.append("};\n\n");
+	}
+	
+	private void appendAccessors(StringBuilder src, String name, String prefix, List<VariableElement> fields){
+		src.append("\t@Override\n\tpublic String[] get").append(name).append("Names() {\n\t\treturn ").append(prefix).append("_NAMES;\n\t}\n\n");
+		src.append("\t@Override\n\tpublic Class<?>[] get").append(name).append("Types() {\n\t\treturn ").append(prefix).append("_TYPES;\n\t}\n\n");
+		
+		src.append("\t@Override\n\tpublic ").append(MODULE).append(" get").append(name).append("(").append(MODULE).append(" module, int index) {\n");
+		src.append("\t\tswitch (index) {\n");
+		for (int i = 0; i < fields.size(); i++){
+			src.append("\t\tcase ").append(i).append(": return ((").append(declaringType(fields.get(i))).append(") module).").append(fields.get(i).getSimpleName()).append(";\n");
+		}
+		src.append("\t\tdefault: throw new IndexOutOfBoundsException(String.valueOf(index));\n\t\t}\n\t}\n\n");
+		
+		src.append("\t@Override\n\tpublic void set").append(name).append("(").append(MODULE).append(" module, int index, ").append(MODULE).append(" value) {\n");
+		src.append("\t\tswitch (index) {\n");
+		for (int i = 0; i < fields.size(); i++){
+			VariableElement field = fields.get(i);
+			src.append("\t\tcase ").append(i).append(": ((").append(declaringType(field)).append(") module).").append(field.getSimpleName())
+				.append(" = (").append(erasure(field)).append(") value; return;\n");
+		}
+		src.append("\t\tdefault: throw new IndexOutOfBoundsException(String.valueOf(index));\n\t\t}\n\t}\n\n");
+	}
+	
+	private String declaringType(VariableElement field){
+		return processingEnv.getTypeUtils().erasure(field.getEnclosingElement().asType()).toString();
+	}
+	
+	private String erasure(VariableElement field){
+		return processingEnv.getTypeUtils().erasure(field.asType()).toString();
+	}
+	
+	private void writeIndex(){
+		if (indexedModules.isEmpty()) return;
+		
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+			try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)){
+				for (String module : indexedModules) writer.write(module + "\n");
+			}
+		} catch (IOException ex){
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write module-index: " + ex);
+		}
+	}
+	
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.benchmark;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.craftednature.lyeen.benchmark.SyntheticModules.Shape;
+import de.craftednature.lyeen.modules.Module;
+import de.craftednature.lyeen.modules.ModuleContainer;
+
+/**
+ * Benchmarks the injection-methods of the {@link ModuleContainer} on a {@link Module} with two dependencies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+public class InjectionBenchmark {
+
+	private Class<? extends Module> targetType;
+	private Module firstDependency;
+	private Module secondDependency;
+	private ModuleContainer injected;
+	
+	@Setup(Level.Trial)
+	public void setup(){
+		//node 3 of a diamond depends on node 1 and 2
+		SyntheticModules graph = SyntheticModules.generate(Shape.DIAMOND, 4);
+		List<Module> modules = graph.createModules();
+		
+		targetType = graph.getTypes().get(3);
+		firstDependency = modules.get(1);
+		secondDependency = modules.get(2);
+		
+		injected = new ModuleContainer(modules.get(3));
+		injected.offerDependency(firstDependency);
+		injected.offerDependency(secondDependency);
+	}
+	
+	@Benchmark
+	public ModuleContainer injectNew() throws ReflectiveOperationException {
+		ModuleContainer container = new ModuleContainer(targetType.newInstance());
+		container.offerDependency(firstDependency);
+		container.offerDependency(secondDependency);
+		return container;
+	}
+	
+	@Benchmark
+	public ModuleContainer offerDependencyAlreadySet(){
+		injected.offerDependency(firstDependency);
+		injected.offerDependency(secondDependency);
+		return injected;
+	}
+	
+	@Benchmark
+	public ModuleContainer offerToUse(){
+		injected.offerToUse(firstDependency);
+		return injected;
+	}
+	
+	@Benchmark
+	public boolean hasAllDependenciesSet(){
+		return injected.hasAllDependenciesSet();
+	}
+	
+	@Benchmark
+	public Collection<Class<? extends Module>> getDependencies(){
+		return injected.getDependencies();
+	}
+	
+	@Benchmark
+	public Collection<Class<? extends Module>> getUsedModules(){
+		return injected.getUsedModules();
+	}
+	
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.craftednature.lyeen.benchmark.SyntheticModules.Shape;
+import de.craftednature.lyeen.modules.Module;
+import de.craftednature.lyeen.modules.ModuleManager;
+
+/**
+ * Benchmarks the lifecycle-operations of the {@link ModuleManager} on synthetic module-graphs of different shapes and sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LifecycleBenchmark {
+	
+	@State(Scope.Benchmark)
+	public static class Graph {
+		
+		@Param({"CHAIN", "FAN_OUT", "DIAMOND"})
+		public Shape shape;
+		
+		@Param({"10", "100", "1000", "10000"})
+		public int size;
+		
+		public SyntheticModules modules;
+		
+		@Setup(Level.Trial)
+		public void generate(){
+			modules = SyntheticModules.generate(shape, size);
+		}
+		
+		ModuleManager createManager(){
+			ModuleManager manager = new ModuleManager();
+			for (Module module : modules.createModules()) manager.addModule(module);
+			return manager;
+		}
+		
+	}
+	
+	/**
+	 * A manager with all modules added, but not started
+	 */
+	@State(Scope.Thread)
+	public static class Added {
+		
+		public ModuleManager manager;
+		
+		@Setup(Level.Invocation)
+		public void setup(Graph graph){
+			manager = graph.createManager();
+		}
+		
+		@TearDown(Level.Invocation)
+		public void tearDown(){
+			manager.stopAll();
+		}
+		
+	}
+	
+	/**
+	 * A manager with all modules started, that is stopped by the benchmark
+	 */
+	@State(Scope.Thread)
+	public static class Started {
+		
+		public ModuleManager manager;
+		
+		@Setup(Level.Invocation)
+		public void setup(Graph graph){
+			manager = graph.createManager();
+			manager.startAll();
+		}
+		
+	}
+	
+	/**
+	 * A manager with all modules started, that is reused for all invocations
+	 */
+	@State(Scope.Thread)
+	public static class Running {
+		
+		public ModuleManager manager;
+		public Class<? extends Module> lookupType;
+		
+		@Setup(Level.Trial)
+		public void setup(Graph graph){
+			manager = graph.createManager();
+			manager.startAll();
+			
+			List<Class<? extends Module>> types = graph.modules.getTypes();
+			lookupType = types.get(types.size() / 2);
+		}
+		
+		@TearDown(Level.Trial)
+		public void tearDown(){
+			manager.stopAll();
+		}
+		
+	}
+	
+	/**
+	 * A manager with all but the last module started, and the last module added
+	 */
+	@State(Scope.Thread)
+	public static class LastPending {
+		
+		public ModuleManager manager;
+		public Class<? extends Module> lastType;
+		
+		@Setup(Level.Invocation)
+		public void setup(Graph graph){
+			List<Module> modules = graph.modules.createModules();
+			Module last = modules.remove(modules.size() - 1);
+			
+			manager = new ModuleManager();
+			for (Module module : modules) manager.addModule(module);
+			manager.startAll();
+			
+			manager.addModule(last);
+			lastType = last.getClass();
+		}
+		
+		@TearDown(Level.Invocation)
+		public void tearDown(){
+			manager.stopAll();
+		}
+		
+	}
+	
+	@Benchmark
+	public ModuleManager startAll(Added state){
+		state.manager.startAll();
+		return state.manager;
+	}
+	
+	@Benchmark
+	public ModuleManager stopAll(Started state){
+		state.manager.stopAll();
+		return state.manager;
+	}
+	
+	@Benchmark
+	public ModuleManager saveAll(Running state){
+		state.manager.saveAll();
+		return state.manager;
+	}
+	
+	@Benchmark
+	public Optional<? extends Module> getModule(Running state){
+		return state.manager.getModule(state.lookupType);
+	}
+	
+	@Benchmark
+	public boolean startSingle(LastPending state){
+		return state.manager.start(state.lastType);
+	}
+	
+}
@@ -0,0 +1,304 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.craftednature.lyeen.modules.Depends;
+import de.craftednature.lyeen.modules.Module;
+
+/**
+ * Generates graphs of synthetic {@link Module}-classes for the benchmarks.<br>
+ * <br>
+ * The {@link de.craftednature.lyeen.modules.ModuleManager} needs a distinct class for every {@link Module}, so the classes are generated at runtime:
+ * Every node of the graph is a public class implementing {@link Module} with a public {@link Depends}-field for each of its dependencies.
+ */
+public final class SyntheticModules {
+	
+	private static final String PACKAGE = "de/craftednature/lyeen/benchmark/generated/";
+	
+	/**
+	 * The shape of a generated module-graph
+	 */
+	public enum Shape {
+		
+		/**
+		 * Every module depends on the previous one
+		 */
+		CHAIN,
+		
+		/**
+		 * All modules depend on the first module
+		 */
+		FAN_OUT,
+		
+		/**
+		 * Repeating diamonds: a module, two modules depending on it, and a module depending on both of them
+		 */
+		DIAMOND;
+		
+		int[] dependenciesOf(int node){
+			if (node == 0) return new int[0];
+			
+			switch (this){
+			case CHAIN: return new int[]{ node - 1 };
+			case FAN_OUT: return new int[]{ 0 };
+			default:
+				switch (node % 3){
+				case 0: return new int[]{ node - 2, node - 1 };
+				case 1: return new int[]{ node - 1 };
+				default: return new int[]{ node - 2 };
+				}
+			}
+		}
+		
+	}
+	
+	private final List<Class<? extends Module>> types;
+	
+	private SyntheticModules(List<Class<? extends Module>> types) {
+		this.types = types;
+	}
+	
+	/**
+	 * Generates a new set of classes with the shape and number of modules.<br>
+	 * The classes are defined in their own {@link ClassLoader}, so they are distinct from all previously generated classes.
+	 */
+	public static SyntheticModules generate(Shape shape, int size){
+		Map<String, byte[]> classes = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++){
+			int[] dependencies = shape.dependenciesOf(i);
+			String[] dependencyNames = new String[dependencies.length];
+			for (int d = 0; d < dependencies.length; d++) dependencyNames[d] = PACKAGE + "Node" + dependencies[d];
+			
+			classes.put(PACKAGE + "Node" + i, writeClass(PACKAGE + "Node" + i, dependencyNames));
+		}
+		
+		GeneratedClassLoader loader = new GeneratedClassLoader(SyntheticModules.class.getClassLoader(), classes);
+		
+		List<Class<? extends Module>> types = new ArrayList<>(size);
+		try {
+			for (String name : classes.keySet()){
+				types.add(Class.forName(name.replace('/', '.'), true, loader).asSubclass(Module.class));
+			}
+		} catch (ClassNotFoundException ex){
+			throw new IllegalStateException(ex);
+		}
+		
+		return new SyntheticModules(types);
+	}
+	
+	/**
+	 * All generated {@link Module}-types, dependencies always come before their dependents.
+	 */
+	public List<Class<? extends Module>> getTypes(){
+		return types;
+	}
+	
+	/**
+	 * Creates a new instance of every generated {@link Module}-type.
+	 */
+	public List<Module> createModules(){
+		List<Module> modules = new ArrayList<>(types.size());
+		try {
+			for (Class<? extends Module> type : types) modules.add(type.newInstance());
+		} catch (InstantiationException | IllegalAccessException ex){
+			throw new IllegalStateException(ex);
+		}
+		return modules;
+	}
+	
+	/**
+	 * Writes the class-file of a public class implementing {@link Module} with a public {@link Depends}-field for every dependency.
+	 */
+	private static byte[] writeClass(String name, String[] dependencies){
+		ConstantPool pool = new ConstantPool();
+		int thisClass = pool.classInfo(name);
+		int superClass = pool.classInfo("java/lang/Object");
+		int moduleInterface = pool.classInfo(Module.class.getName().replace('.', '/'));
+		int dependsAnnotation = pool.utf8("L" + Depends.class.getName().replace('.', '/') + ";");
+		int annotationsAttribute = pool.utf8("RuntimeVisibleAnnotations");
+		int codeAttribute = pool.utf8("Code");
+		int constructorName = pool.utf8("<init>");
+		int constructorDescriptor = pool.utf8("()V");
+		int superConstructor = pool.methodRef(superClass, "<init>", "()V");
+		
+		int[] fieldNames = new int[dependencies.length];
+		int[] fieldDescriptors = new int[dependencies.length];
+		for (int i = 0; i < dependencies.length; i++){
+			fieldNames[i] = pool.utf8("dependency" + i);
+			fieldDescriptors[i] = pool.utf8("L" + dependencies[i] + ";");
+		}
+		
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(52); //java 8
+			pool.write(out);
+			
+			out.writeShort(0x0021); //public super
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(1);
+			out.writeShort(moduleInterface);
+			
+			out.writeShort(dependencies.length);
+			for (int i = 0; i < dependencies.length; i++){
+				out.writeShort(0x0001); //public
+				out.writeShort(fieldNames[i]);
+				out.writeShort(fieldDescriptors[i]);
+				out.writeShort(1);
+				out.writeShort(annotationsAttribute);
+				out.writeInt(6);
+				out.writeShort(1);
+				out.writeShort(dependsAnnotation);
+				out.writeShort(0);
+			}
+			
+			out.writeShort(1);
+			out.writeShort(0x0001); //public
+			out.writeShort(constructorName);
+			out.writeShort(constructorDescriptor);
+			out.writeShort(1);
+			out.writeShort(codeAttribute);
+			out.writeInt(17);
+			out.writeShort(1); //max stack
+			out.writeShort(1); //max locals
+			out.writeInt(5);
+			out.writeByte(0x2A); //aload_0
+			out.writeByte(0xB7); //invokespecial
+			out.writeShort(superConstructor);
+			out.writeByte(0xB1); //return
+			out.writeShort(0);
+			out.writeShort(0);
+			
+			out.writeShort(0);
+			
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException ex){
+			throw new IllegalStateException(ex);
+		}
+	}
+	
+	private static class ConstantPool {
+		
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private final Map<String, Integer> entries = new HashMap<>();
+		private int count = 1;
+		
+		int utf8(String value){
+			Integer index = entries.get("U" + value);
+			if (index != null) return index;
+			
+			try {
+				out.writeByte(1);
+				out.writeUTF(value);
+			} catch (IOException ex){
+				throw new IllegalStateException(ex);
+			}
+			return add("U" + value);
+		}
+		
+		int classInfo(String name){
+			Integer index = entries.get("C" + name);
+			if (index != null) return index;
+			
+			int nameIndex = utf8(name);
+			try {
+				out.writeByte(7);
+				out.writeShort(nameIndex);
+			} catch (IOException ex){
+				throw new IllegalStateException(ex);
+			}
+			return add("C" + name);
+		}
+		
+		int methodRef(int owner, String name, String descriptor){
+			int nameIndex = utf8(name);
+			int descriptorIndex = utf8(descriptor);
+			try {
+				out.writeByte(12);
+				out.writeShort(nameIndex);
+				out.writeShort(descriptorIndex);
+				int nameAndType = add("N" + name + descriptor);
+				
+				out.writeByte(10);
+				out.writeShort(owner);
+				out.writeShort(nameAndType);
+			} catch (IOException ex){
+				throw new IllegalStateException(ex);
+			}
+			return add("M" + owner + name + descriptor);
+		}
+		
+		private int add(String key){
+			int index = count++;
+			entries.put(key, index);
+			return index;
+		}
+		
+		void write(DataOutputStream target) throws IOException {
+			out.flush();
+			target.writeShort(count);
+			bytes.writeTo(target);
+		}
+		
+	}
+	
+	private static class GeneratedClassLoader extends ClassLoader {
+		
+		private final Map<String, byte[]> classes;
+		
+		GeneratedClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+			super(parent);
+			
+			this.classes = new HashMap<>();
+			for (Map.Entry<String, byte[]> e : classes.entrySet()) this.classes.put(e.getKey().replace('/', '.'), e.getValue());
+		}
+		
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			byte[] bytes = classes.get(name);
+			if (bytes == null) throw new ClassNotFoundException(name);
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+		
+	}
+	
+}
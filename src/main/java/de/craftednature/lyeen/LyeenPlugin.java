@@ -26,13 +26,26 @@
 
 package de.craftednature.lyeen;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.config.ConfigDir;
 import org.spongepowered.api.event.Listener;
 import org.spongepowered.api.event.Order;
 import org.spongepowered.api.event.game.state.GameStartingServerEvent;
+import org.spongepowered.api.event.game.state.GameStoppingServerEvent;
 import org.spongepowered.api.plugin.Plugin;
+import org.spongepowered.api.scheduler.Task;
+
+import de.craftednature.lyeen.modules.DependencyGraph;
+import de.craftednature.lyeen.modules.ModuleManager;
+import de.craftednature.lyeen.playerdata.PlayerDataCache;
 
 @Plugin (
 	id = LyeenPlugin.PLUGIN_ID,
@@ -48,22 +61,92 @@ public class LyeenPlugin {
 	
 	public static LyeenPlugin instance;
 	
+	private static final Logger FALLBACK_LOGGER = LoggerFactory.getLogger(PLUGIN_NAME);
+	
+	private static final String STARTUP_TRACE_FILE = "startup-trace.json";
+	private static final String STARTUP_GRAPH_FILE = "startup-graph.json";
+	private static final String STARTUP_GRAPH_DOT_FILE = "startup-graph.dot";
+	private static final String PLAYER_DATA_DIRECTORY = "playerdata";
+	private static final String ADDON_DIRECTORY = "modules";
+	private static final long RESOURCE_SUMMARY_INTERVAL = 10;
+	
 	@Inject private Logger log;
+	@Inject @ConfigDir(sharedRoot = false) private Path configDir;
+	
+	private ModuleManager moduleManager;
+	private Task tickTask;
 	
 	public void init(){
 		instance = this;
+		moduleManager = new ModuleManager();
+		
+		moduleManager.addModule(new PlayerDataCache(configDir.resolve(PLAYER_DATA_DIRECTORY)));
+		moduleManager.addDiscoveredModules(LyeenPlugin.class.getClassLoader(), configDir.resolve(ADDON_DIRECTORY));
 	}
 
 	@Listener(order = Order.DEFAULT)
 	public void onServerStart(GameStartingServerEvent evt){
 		init();
+		
+		moduleManager.startAll();
+		moduleManager.setResourceSummaryInterval(RESOURCE_SUMMARY_INTERVAL, TimeUnit.MINUTES);
+		
+		try {
+			moduleManager.startWatching();
+		} catch (IOException ex){
+			log.warn("Failed to watch the configuration-files of the modules!", ex);
+		}
+		
+		tickTask = Sponge.getScheduler().createTaskBuilder()
+				.name("Lyeen-Tick")
+				.intervalTicks(1)
+				.execute(moduleManager::tick)
+				.submit(this);
+		
+		try {
+			moduleManager.getTrace().write(configDir.resolve(STARTUP_TRACE_FILE));
+		} catch (IOException ex){
+			log.warn("Failed to write the startup-trace!", ex);
+		}
+		
+		DependencyGraph graph = moduleManager.getStartupGraph().orElse(null);
+		if (graph != null){
+			log.debug(graph.toString());
+			
+			try {
+				graph.writeJson(configDir.resolve(STARTUP_GRAPH_FILE));
+				graph.writeDot(configDir.resolve(STARTUP_GRAPH_DOT_FILE));
+			} catch (IOException ex){
+				log.warn("Failed to write the startup-graph!", ex);
+			}
+		}
+	}
+	
+	@Listener(order = Order.DEFAULT)
+	public void onServerStop(GameStoppingServerEvent evt){
+		if (tickTask != null) tickTask.cancel();
+		
+		moduleManager.stopAll();
 	}
 	
 	public static LyeenPlugin getInstance(){
 		return instance;
 	}
 	
+	public ModuleManager getModuleManager(){
+		return moduleManager;
+	}
+	
+	public Path getConfigDirectory(){
+		return configDir;
+	}
+	
+	/**
+	 * Returns the logger of the plugin.<br>
+	 * If the plugin is not loaded by Sponge <i>(e.g. in benchmarks)</i>, a logger from the {@link LoggerFactory} is used instead.
+	 */
 	public static Logger getLogger(){
+		if (instance == null || instance.log == null) return FALLBACK_LOGGER;
 		return instance.log;
 	}
 	
@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This annotation sets the interval in which a {@link Module} is saved automatically by the {@link ModuleManager#tick() autosave-scheduler}.<br>
+ * Modules without this annotation are saved in the {@link ModuleManager#setAutoSaveInterval(long, TimeUnit) default interval} of the manager.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface AutoSave {
+
+	/**
+	 * The time between two automatic saves of the {@link Module}. <code>0</code> means the {@link Module} is never saved automatically.
+	 */
+	long interval();
+	
+	/**
+	 * The unit of the {@link #interval()}
+	 */
+	TimeUnit unit() default TimeUnit.SECONDS;
+	
+}
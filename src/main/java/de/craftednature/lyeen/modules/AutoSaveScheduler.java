@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Saves the modules of a {@link ModuleManager} automatically, spread over many ticks.<br>
+ * <br>
+ * Every module is first saved at a random time within its interval, and then again after its interval with a small random jitter,
+ * so modules with the same interval are not all saved in the same tick.
+ * Each tick saves at most a limited number of modules and stops as soon as it has used up its time-budget, remaining due modules are saved in the next ticks.
+ * Modules that are not {@link ModuleContainer#isDirty() dirty} are skipped without using the budget.<br>
+ * <br>
+ * This class is not thread-safe, {@link #tick()} needs to be called on the main thread.
+ */
+final class AutoSaveScheduler {
+	
+	private static final long SYNC_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+	private static final double JITTER = 0.1;
+	
+	private final ModuleManager manager;
+	private final PriorityQueue<ScheduledSave> queue;
+	private final Map<ModuleContainer, ScheduledSave> scheduled;
+	private final Map<Class<? extends Module>, Long> intervals;
+	
+	private volatile long defaultInterval;
+	private volatile int maxSavesPerTick;
+	private volatile long tickBudget;
+	private long lastSync;
+	
+	AutoSaveScheduler(ModuleManager manager, long defaultInterval, int maxSavesPerTick, long tickBudget) {
+		this.manager = manager;
+		this.queue = new PriorityQueue<>(Comparator.comparingLong((ScheduledSave s) -> s.nextSave));
+		this.scheduled = new HashMap<>();
+		this.intervals = new ConcurrentHashMap<>();
+		
+		this.defaultInterval = defaultInterval;
+		this.maxSavesPerTick = maxSavesPerTick;
+		this.tickBudget = tickBudget;
+		this.lastSync = System.nanoTime() - SYNC_INTERVAL;
+	}
+	
+	public void setDefaultInterval(long interval){
+		this.defaultInterval = interval;
+	}
+	
+	public void setInterval(Class<? extends Module> moduleType, long interval){
+		intervals.put(moduleType, interval);
+	}
+	
+	public void resetInterval(Class<? extends Module> moduleType){
+		intervals.remove(moduleType);
+	}
+	
+	/**
+	 * Returns the autosave-interval of this module-type in nanoseconds, <code>0</code> means the module is not saved automatically.
+	 */
+	public long getInterval(Class<? extends Module> moduleType){
+		Long interval = intervals.get(moduleType);
+		if (interval != null) return interval;
+		
+		AutoSave autoSave = ModuleDescriptor.of(moduleType).getAutoSave();
+		if (autoSave != null) return autoSave.unit().toNanos(autoSave.interval());
+		
+		return defaultInterval;
+	}
+	
+	public void setBudget(int maxSavesPerTick, long tickBudget){
+		this.maxSavesPerTick = maxSavesPerTick;
+		this.tickBudget = tickBudget;
+	}
+	
+	/**
+	 * Saves the modules that are due, within the budget of one tick.
+	 * 
+	 * @return the number of modules that have been saved
+	 */
+	public int tick(){
+		long now = System.nanoTime();
+		if (now - lastSync >= SYNC_INTERVAL){
+			sync(now);
+			lastSync = now;
+		}
+		
+		long deadline = now + tickBudget;
+		int saves = 0;
+		
+		while (!queue.isEmpty()){
+			ScheduledSave save = queue.peek();
+			if (save.nextSave - now > 0) break;
+			if (saves >= maxSavesPerTick || System.nanoTime() - deadline >= 0) break;
+			
+			queue.poll();
+			if (save.cancelled) continue;
+			
+			ModuleContainer mc = save.container;
+			long interval = getInterval(mc.getType());
+			if (interval <= 0 || !isLoaded(mc)){
+				scheduled.remove(mc);
+				continue;
+			}
+			
+			//don't block the main thread if the module is in a transition on another thread, it is saved in the next interval
+			if (!mc.getState().isTransitional() && mc.isDirty()){
+				try {
+					mc.saveAsync(manager.getSaveExecutor());
+				} catch (Throwable t){
+					LyeenPlugin.getLogger().error("Failed to save module: " + mc.getModule().getName(), t);
+				}
+				saves++;
+			}
+			
+			save.nextSave = now + jitter(interval);
+			queue.add(save);
+		}
+		
+		return saves;
+	}
+	
+	/**
+	 * Schedules new modules and cancels modules that have been removed or stopped.
+	 */
+	private void sync(long now){
+		Iterator<Entry<ModuleContainer, ScheduledSave>> iterator = scheduled.entrySet().iterator();
+		while (iterator.hasNext()){
+			Entry<ModuleContainer, ScheduledSave> e = iterator.next();
+			if (isLoaded(e.getKey())) continue;
+			
+			e.getValue().cancelled = true;
+			iterator.remove();
+		}
+		
+		for (ModuleContainer mc : manager.modules.values()){
+			if (scheduled.containsKey(mc) || !isLoaded(mc)) continue;
+			
+			long interval = getInterval(mc.getType());
+			if (interval <= 0) continue;
+			
+			//the first save is at a random time within the interval, to spread all modules evenly
+			ScheduledSave save = new ScheduledSave(mc, now + (long) (ThreadLocalRandom.current().nextDouble() * interval));
+			scheduled.put(mc, save);
+			queue.add(save);
+		}
+	}
+	
+	private boolean isLoaded(ModuleContainer mc){
+		ModuleState state = mc.getStableState();
+		return (state == ModuleState.INITIALIZED || state == ModuleState.STARTED) && manager.modules.get(mc.getType()) == mc;
+	}
+	
+	private static long jitter(long interval){
+		double factor = 1 + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * JITTER;
+		return (long) (interval * factor);
+	}
+	
+	private static class ScheduledSave {
+		
+		private final ModuleContainer container;
+		private long nextSave;
+		private boolean cancelled;
+		
+		private ScheduledSave(ModuleContainer container, long nextSave) {
+			this.container = container;
+			this.nextSave = nextSave;
+			this.cancelled = false;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,552 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An analysis of the {@link Depends}-graph of a set of {@link ModuleContainer}s.<br>
+ * <br>
+ * It contains all dependency-cycles <i>(with the full path)</i>, the depth and fan-in of every {@link Module}, 
+ * and combines the graph with the measured durations of {@link Module#init()} and {@link Module#load()} 
+ * to find the critical path of the boot: the chain of dependencies that limits how fast the modules can be initialized, even with unlimited parallelism.<br>
+ * <br>
+ * The analysis is a snapshot, the timings are read once when it is created.
+ * It can be written as JSON using {@link #writeJson(Path)} or as a Graphviz DOT-file using {@link #writeDot(Path)}.
+ */
+public final class DependencyGraph {
+
+	private final ModuleContainer[] modules;
+	private final Map<ModuleContainer, Integer> indices;
+	private final int[][] providers;
+	private final int[][] dependents;
+	private final List<List<Class<? extends Module>>> missing;
+	private final long[] initTime;
+	private final long[] loadTime;
+	
+	private final int[] depth;
+	private final long[] finishTime;
+	private final boolean[] inCycle;
+	private final List<int[]> cycles;
+	private final int[] criticalPath;
+	
+	private DependencyGraph(ModuleContainer[] modules) {
+		this.modules = modules;
+		this.indices = new IdentityHashMap<>(modules.length * 2);
+		for (int i = 0; i < modules.length; i++) indices.put(modules[i], i);
+		
+		int n = modules.length;
+		this.providers = new int[n][];
+		this.dependents = new int[n][];
+		this.missing = new ArrayList<>(n);
+		this.initTime = new long[n];
+		this.loadTime = new long[n];
+		this.depth = new int[n];
+		this.finishTime = new long[n];
+		this.inCycle = new boolean[n];
+		this.cycles = new ArrayList<>();
+		
+		buildEdges();
+		findCycles();
+		this.criticalPath = computeDepths();
+	}
+	
+	/**
+	 * Analyzes the dependencies of these {@link ModuleContainer}s.<br>
+	 * The {@link Depends}-fields are resolved the same way as in the {@link StartupPlan}, but independent of whether they are already injected.
+	 */
+	public static DependencyGraph analyze(Collection<ModuleContainer> containers){
+		return new DependencyGraph(containers.toArray(new ModuleContainer[containers.size()]));
+	}
+	
+	private void buildEdges(){
+		Map<Class<?>, List<ModuleContainer>> providerIndex = ModuleRegistry.indexProviders(Arrays.asList(modules));
+		
+		int[] dependentCount = new int[modules.length];
+		for (int i = 0; i < modules.length; i++){
+			ModuleContainer mc = modules[i];
+			Set<Integer> selected = new LinkedHashSet<>();
+			List<Class<? extends Module>> missingTypes = new ArrayList<>(0);
+			
+			for (InjectionPoint point : mc.getDescriptor().getDependencies()){
+				ModuleContainer provider = ModuleRegistry.selectProvider(point.getType(), providerIndex.get(point.getType()), mc);
+				if (provider == null) missingTypes.add(point.getType());
+				else selected.add(indices.get(provider));
+			}
+			
+			providers[i] = new int[selected.size()];
+			int j = 0;
+			for (int provider : selected){
+				providers[i][j++] = provider;
+				dependentCount[provider]++;
+			}
+			missing.add(Collections.unmodifiableList(missingTypes));
+			
+			ModuleTimings timings = mc.getTimings();
+			initTime[i] = timings.getWallTime(LifecyclePhase.INIT).getLast();
+			loadTime[i] = timings.getWallTime(LifecyclePhase.LOAD).getLast();
+		}
+		
+		int[] filled = new int[modules.length];
+		for (int i = 0; i < modules.length; i++) dependents[i] = new int[dependentCount[i]];
+		for (int i = 0; i < modules.length; i++){
+			for (int provider : providers[i]) dependents[provider][filled[provider]++] = i;
+		}
+	}
+	
+	/**
+	 * Tarjan's algorithm <i>(iterative, so deep graphs can't overflow the stack)</i>, every strongly connected component with more than one module contains at least one cycle.
+	 */
+	private void findCycles(){
+		int n = modules.length;
+		int[] index = new int[n], lowLink = new int[n], edge = new int[n];
+		boolean[] onStack = new boolean[n];
+		Arrays.fill(index, -1);
+		
+		int[] stack = new int[n], callStack = new int[n];
+		int stackSize = 0, nextIndex = 0;
+		
+		for (int root = 0; root < n; root++){
+			if (index[root] >= 0) continue;
+			
+			int callSize = 0;
+			callStack[callSize++] = root;
+			index[root] = lowLink[root] = nextIndex++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			
+			while (callSize > 0){
+				int node = callStack[callSize - 1];
+				
+				if (edge[node] < providers[node].length){
+					int next = providers[node][edge[node]++];
+					if (index[next] < 0){
+						index[next] = lowLink[next] = nextIndex++;
+						stack[stackSize++] = next;
+						onStack[next] = true;
+						callStack[callSize++] = next;
+					} else if (onStack[next]){
+						lowLink[node] = Math.min(lowLink[node], index[next]);
+					}
+					continue;
+				}
+				
+				callSize--;
+				if (callSize > 0){
+					int parent = callStack[callSize - 1];
+					lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+				}
+				
+				if (lowLink[node] != index[node]) continue;
+				
+				//node is the root of a component
+				int size = 0;
+				int member;
+				do {
+					member = stack[--stackSize];
+					onStack[member] = false;
+					size++;
+				} while (member != node);
+				
+				if (size > 1){
+					for (int i = stackSize; i < stackSize + size; i++) inCycle[stack[i]] = true;
+					cycles.add(shortestCycle(node, Arrays.copyOfRange(stack, stackSize, stackSize + size)));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Finds the shortest cycle through the start-node inside of its component, using a breadth-first search.
+	 */
+	private int[] shortestCycle(int start, int[] component){
+		Set<Integer> members = new LinkedHashSet<>();
+		for (int member : component) members.add(member);
+		
+		Map<Integer, Integer> parents = new HashMap<>();
+		ArrayList<Integer> queue = new ArrayList<>();
+		queue.add(start);
+		
+		int head = 0;
+		while (head < queue.size()){
+			int node = queue.get(head++);
+			for (int next : providers[node]){
+				if (!members.contains(next)) continue;
+				
+				if (next == start){
+					List<Integer> path = new ArrayList<>();
+					for (Integer step = node; step != null; step = parents.get(step)) path.add(step);
+					Collections.reverse(path);
+					
+					int[] cycle = new int[path.size()];
+					for (int i = 0; i < cycle.length; i++) cycle[i] = path.get(i);
+					return cycle;
+				}
+				
+				if (!parents.containsKey(next)){
+					parents.put(next, node);
+					queue.add(next);
+				}
+			}
+		}
+		
+		//can't happen, the component is strongly connected
+		return new int[]{start};
+	}
+	
+	/**
+	 * Computes the depth and the earliest finish-time of every module that does not depend on a cycle, in topological order.
+	 * 
+	 * @return the critical path, starting with the module that has no dependencies
+	 */
+	private int[] computeDepths(){
+		int n = modules.length;
+		int[] pending = new int[n];
+		int[] critical = new int[n];
+		for (int i = 0; i < n; i++){
+			pending[i] = providers[i].length;
+			depth[i] = -1;
+			finishTime[i] = -1;
+			critical[i] = -1;
+		}
+		
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		for (int i = 0; i < n; i++){
+			if (pending[i] == 0) queue[tail++] = i;
+		}
+		
+		int last = -1;
+		while (head < tail){
+			int node = queue[head++];
+			
+			int nodeDepth = 0;
+			long start = 0;
+			for (int provider : providers[node]){
+				nodeDepth = Math.max(nodeDepth, depth[provider] + 1);
+				if (critical[node] < 0 || finishTime[provider] > start){
+					start = finishTime[provider];
+					critical[node] = provider;
+				}
+			}
+			
+			depth[node] = nodeDepth;
+			finishTime[node] = start + initTime[node] + loadTime[node];
+			if (last < 0 || finishTime[node] > finishTime[last]) last = node;
+			
+			for (int dependent : dependents[node]){
+				if (--pending[dependent] == 0) queue[tail++] = dependent;
+			}
+		}
+		
+		if (last < 0) return new int[0];
+		
+		List<Integer> path = new ArrayList<>();
+		for (int node = last; node >= 0; node = critical[node]) path.add(node);
+		Collections.reverse(path);
+		
+		int[] result = new int[path.size()];
+		for (int i = 0; i < result.length; i++) result[i] = path.get(i);
+		return result;
+	}
+	
+	/**
+	 * All analyzed {@link ModuleContainer}s.
+	 */
+	public List<ModuleContainer> getModules(){
+		return Collections.unmodifiableList(Arrays.asList(modules));
+	}
+	
+	/**
+	 * Returns the {@link ModuleContainer}s that have been selected to provide the {@link Depends}-fields of this {@link Module}.
+	 */
+	public List<ModuleContainer> getDependencies(ModuleContainer mc){
+		return containers(providers[indexOf(mc)]);
+	}
+	
+	/**
+	 * Returns the {@link ModuleContainer}s that directly depend on this {@link Module}.
+	 */
+	public List<ModuleContainer> getDependents(ModuleContainer mc){
+		return containers(dependents[indexOf(mc)]);
+	}
+	
+	/**
+	 * Returns the types of the {@link Depends}-fields of this {@link Module} that no analyzed module can provide.
+	 */
+	public List<Class<? extends Module>> getMissing(ModuleContainer mc){
+		return missing.get(indexOf(mc));
+	}
+	
+	/**
+	 * Returns the number of {@link Module}s that directly depend on this {@link Module}.
+	 */
+	public int getFanIn(ModuleContainer mc){
+		return dependents[indexOf(mc)].length;
+	}
+	
+	/**
+	 * Returns the length of the longest chain of dependencies below this {@link Module}.<br>
+	 * A {@link Module} without dependencies has the depth <code>0</code>, 
+	 * a {@link Module} that is part of or depends on a cycle has no depth and returns <code>-1</code>.
+	 */
+	public int getDepth(ModuleContainer mc){
+		return depth[indexOf(mc)];
+	}
+	
+	/**
+	 * Returns the last measured duration of {@link Module#init()} and {@link Module#load()} of this {@link Module} in nanoseconds.
+	 */
+	public long getDuration(ModuleContainer mc){
+		int i = indexOf(mc);
+		return initTime[i] + loadTime[i];
+	}
+	
+	/**
+	 * Returns the earliest time in nanoseconds <i>(after the begin of the boot)</i> that this {@link Module} could be initialized and loaded, 
+	 * if every module would be initialized as soon as its dependencies are ready.<br>
+	 * Returns <code>-1</code> if the {@link Module} is part of or depends on a cycle.
+	 */
+	public long getEarliestFinish(ModuleContainer mc){
+		return finishTime[indexOf(mc)];
+	}
+	
+	/**
+	 * Tests if this {@link Module} is part of a dependency-cycle.
+	 */
+	public boolean isInCycle(ModuleContainer mc){
+		return inCycle[indexOf(mc)];
+	}
+	
+	/**
+	 * Returns one cycle of every group of {@link Module}s that depend on each other.<br>
+	 * Each cycle is a path where every {@link Module} depends on the next one, and the last one depends on the first one again.
+	 */
+	public List<List<ModuleContainer>> getCycles(){
+		List<List<ModuleContainer>> result = new ArrayList<>(cycles.size());
+		for (int[] cycle : cycles) result.add(containers(cycle));
+		return result;
+	}
+	
+	/**
+	 * Returns the longest chain of dependencies, weighted by the duration of {@link Module#init()} and {@link Module#load()}.<br>
+	 * The first {@link Module} of the path has no dependencies, every other {@link Module} depends on the one before.
+	 */
+	public List<ModuleContainer> getCriticalPath(){
+		return containers(criticalPath);
+	}
+	
+	/**
+	 * Returns the duration of the {@link #getCriticalPath() critical path} in nanoseconds.<br>
+	 * This is the theoretical best time to initialize and load all modules <i>(that are not part of a cycle)</i> with unlimited parallelism.
+	 */
+	public long getCriticalPathTime(){
+		if (criticalPath.length == 0) return 0;
+		return finishTime[criticalPath[criticalPath.length - 1]];
+	}
+	
+	/**
+	 * Returns the sum of the durations of {@link Module#init()} and {@link Module#load()} of all modules in nanoseconds.<br>
+	 * This is the time it takes to initialize and load all modules one after another.
+	 */
+	public long getSequentialTime(){
+		long total = 0;
+		for (int i = 0; i < modules.length; i++) total += initTime[i] + loadTime[i];
+		return total;
+	}
+	
+	/**
+	 * Formats this path of {@link Module}s as <code>"A -> B -> C"</code>, if <code>closed</code> is true the first {@link Module} is appended again at the end.
+	 */
+	public static String formatPath(List<ModuleContainer> path, boolean closed){
+		StringBuilder sb = new StringBuilder();
+		for (ModuleContainer mc : path){
+			if (sb.length() > 0) sb.append(" -> ");
+			sb.append(mc.getModule().getName());
+		}
+		if (closed && !path.isEmpty()) sb.append(" -> ").append(path.get(0).getModule().getName());
+		return sb.toString();
+	}
+	
+	/**
+	 * Writes this analysis as JSON to the file.
+	 */
+	public void writeJson(Path file) throws IOException {
+		if (file.getParent() != null) Files.createDirectories(file.getParent());
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+			writer.write("{\"modules\":[\n");
+			
+			for (int i = 0; i < modules.length; i++){
+				if (i > 0) writer.write(",\n");
+				
+				ModuleContainer mc = modules[i];
+				writer.write("{\"name\":\"" + LifecycleTrace.escape(mc.getModule().getName()) + "\""
+						+ ",\"type\":\"" + LifecycleTrace.escape(mc.getType().getName()) + "\""
+						+ ",\"state\":\"" + mc.getStableState() + "\""
+						+ ",\"depth\":" + depth[i]
+						+ ",\"fanIn\":" + dependents[i].length
+						+ ",\"fanOut\":" + providers[i].length
+						+ ",\"inCycle\":" + inCycle[i]
+						+ ",\"initMicros\":" + TimeUnit.NANOSECONDS.toMicros(initTime[i])
+						+ ",\"loadMicros\":" + TimeUnit.NANOSECONDS.toMicros(loadTime[i])
+						+ ",\"earliestFinishMicros\":" + (finishTime[i] >= 0 ? TimeUnit.NANOSECONDS.toMicros(finishTime[i]) : -1)
+						+ ",\"dependencies\":" + jsonTypes(providers[i])
+						+ ",\"missing\":" + jsonTypes(missing.get(i)) + "}");
+			}
+			
+			writer.write("\n],\"cycles\":[");
+			for (int i = 0; i < cycles.size(); i++){
+				if (i > 0) writer.write(",");
+				writer.write(jsonTypes(cycles.get(i)));
+			}
+			
+			writer.write("],\"criticalPath\":" + jsonTypes(criticalPath)
+					+ ",\"criticalPathMicros\":" + TimeUnit.NANOSECONDS.toMicros(getCriticalPathTime())
+					+ ",\"sequentialMicros\":" + TimeUnit.NANOSECONDS.toMicros(getSequentialTime())
+					+ "}\n");
+		}
+	}
+	
+	/**
+	 * Writes this analysis as a Graphviz DOT-file.<br>
+	 * Every edge points from a {@link Module} to its dependency, the critical path is drawn red, cycles are drawn orange and missing dependencies are dashed.
+	 */
+	public void writeDot(Path file) throws IOException {
+		Set<Long> criticalEdges = new LinkedHashSet<>();
+		boolean[] critical = new boolean[modules.length];
+		for (int i = 0; i < criticalPath.length; i++){
+			critical[criticalPath[i]] = true;
+			if (i > 0) criticalEdges.add(edgeKey(criticalPath[i], criticalPath[i - 1]));
+		}
+		
+		Set<Long> cycleEdges = new LinkedHashSet<>();
+		for (int[] cycle : cycles){
+			for (int i = 0; i < cycle.length; i++) cycleEdges.add(edgeKey(cycle[i], cycle[(i + 1) % cycle.length]));
+		}
+		
+		if (file.getParent() != null) Files.createDirectories(file.getParent());
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+			writer.write("digraph modules {\n");
+			writer.write("\trankdir=BT;\n");
+			writer.write("\tnode [shape=box, fontname=\"sans-serif\"];\n");
+			
+			for (int i = 0; i < modules.length; i++){
+				String label = dotEscape(modules[i].getModule().getName()) + "\\n" + formatMillis(initTime[i] + loadTime[i]) + " ms";
+				String style = critical[i] ? ", color=red, penwidth=2" : inCycle[i] ? ", color=orange" : "";
+				writer.write("\tm" + i + " [label=\"" + label + "\"" + style + "];\n");
+			}
+			
+			Map<Class<?>, String> missingNodes = new HashMap<>();
+			for (int i = 0; i < modules.length; i++){
+				for (Class<? extends Module> type : missing.get(i)){
+					String id = missingNodes.get(type);
+					if (id == null){
+						id = "x" + missingNodes.size();
+						missingNodes.put(type, id);
+						writer.write("\t" + id + " [label=\"" + dotEscape(type.getSimpleName()) + "\", style=dashed, color=gray];\n");
+					}
+					writer.write("\tm" + i + " -> " + id + " [style=dashed, color=gray];\n");
+				}
+			}
+			
+			for (int i = 0; i < modules.length; i++){
+				for (int provider : providers[i]){
+					long key = edgeKey(i, provider);
+					String style = criticalEdges.contains(key) ? " [color=red, penwidth=2]" : cycleEdges.contains(key) ? " [color=orange, penwidth=2]" : "";
+					writer.write("\tm" + i + " -> m" + provider + style + ";\n");
+				}
+			}
+			
+			writer.write("}\n");
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "DependencyGraph [modules=" + modules.length 
+				+ ", cycles=" + cycles.size()
+				+ ", criticalPath=" + formatPath(getCriticalPath(), false)
+				+ ", criticalPathTime=" + formatMillis(getCriticalPathTime()) + "ms"
+				+ ", sequentialTime=" + formatMillis(getSequentialTime()) + "ms]";
+	}
+	
+	private int indexOf(ModuleContainer mc){
+		Integer index = indices.get(mc);
+		if (index == null) throw new IllegalArgumentException("The module " + mc.getType().getName() + " is not part of this graph!");
+		return index;
+	}
+	
+	private List<ModuleContainer> containers(int[] nodes){
+		List<ModuleContainer> result = new ArrayList<>(nodes.length);
+		for (int node : nodes) result.add(modules[node]);
+		return Collections.unmodifiableList(result);
+	}
+	
+	private String jsonTypes(int[] nodes){
+		List<Class<? extends Module>> types = new ArrayList<>(nodes.length);
+		for (int node : nodes) types.add(modules[node].getType());
+		return jsonTypes(types);
+	}
+	
+	private static String jsonTypes(List<Class<? extends Module>> types){
+		StringBuilder sb = new StringBuilder("[");
+		for (Class<?> type : types){
+			if (sb.length() > 1) sb.append(",");
+			sb.append("\"").append(LifecycleTrace.escape(type.getName())).append("\"");
+		}
+		return sb.append("]").toString();
+	}
+	
+	private static long edgeKey(int from, int to){
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+	
+	private static String formatMillis(long nanos){
+		return String.format(Locale.ROOT, "%.2f", nanos / 1000000d);
+	}
+	
+	private static String dotEscape(String value){
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+	
+}
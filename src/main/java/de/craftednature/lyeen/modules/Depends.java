@@ -27,6 +27,8 @@
 package de.craftednature.lyeen.modules;
 
 import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
@@ -36,5 +38,6 @@ import java.lang.annotation.Target;
  * <br>
  * If the dependency can't be initialized, loaded or does not exist, this module will not be initialized.
  */
+@Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.FIELD)
 public @interface Depends {}
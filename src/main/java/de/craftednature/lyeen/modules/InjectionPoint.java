@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * A field of a {@link Module} that is annotated with {@link Depends} or {@link Uses}.<br>
+ * The accessors are resolved once when the point is created, so reading and writing the field later does not need any reflection.
+ */
+abstract class InjectionPoint {
+	
+	private final String name;
+	private final Class<? extends Module> type;
+	
+	private InjectionPoint(String name, Class<? extends Module> type) {
+		this.name = name;
+		this.type = type;
+	}
+	
+	/**
+	 * Creates a point that accesses the field using {@link MethodHandle}s.
+	 * 
+	 * @throws IllegalAccessException if the field can't be made accessible
+	 */
+	static InjectionPoint of(Field field) throws IllegalAccessException {
+		return new FieldInjectionPoint(field);
+	}
+	
+	/**
+	 * Creates a point that accesses the field with this index using the generated {@link ModuleInjector}.
+	 * 
+	 * @param dependency <code>true</code> for a {@link Depends}-field, <code>false</code> for a {@link Uses}-field
+	 */
+	static InjectionPoint of(ModuleInjector injector, int index, boolean dependency){
+		if (dependency) return new DependencyInjectionPoint(injector, index);
+		return new UsedInjectionPoint(injector, index);
+	}
+	
+	/**
+	 * The name of the field in the format <code>declaring.Class#field</code>
+	 */
+	public String getName(){
+		return name;
+	}
+	
+	/**
+	 * The {@link Module}-type of the field
+	 */
+	public Class<? extends Module> getType(){
+		return type;
+	}
+	
+	/**
+	 * Returns the current value of this field in the target.
+	 */
+	public abstract Module get(Module target);
+	
+	/**
+	 * Sets the value of this field in the target.
+	 */
+	public abstract void set(Module target, Module value);
+	
+	/**
+	 * Tests if this field is set (is not <code>null</code>) in the target.
+	 */
+	public boolean isSet(Module target){
+		return get(target) != null;
+	}
+	
+	/**
+	 * Injects the offered {@link Module} into the target if it matches the type of this field and the field is not already set.
+	 * 
+	 * @return <code>true</code> if the offer has been injected
+	 */
+	public boolean offer(Module target, Module offer){
+		if (!type.isInstance(offer)) return false;
+		if (isSet(target)) return false;
+		
+		set(target, offer);
+		return true;
+	}
+	
+	private static class FieldInjectionPoint extends InjectionPoint {
+		
+		private static final MethodType GETTER_TYPE = MethodType.methodType(Module.class, Module.class);
+		private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Module.class, Module.class);
+		
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+		
+		@SuppressWarnings("unchecked")
+		FieldInjectionPoint(Field field) throws IllegalAccessException {
+			super(field.getDeclaringClass().getName() + "#" + field.getName(), (Class<? extends Module>) field.getType());
+			
+			field.setAccessible(true);
+			
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+			this.setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+		}
+		
+		@Override
+		public Module get(Module target){
+			try {
+				return (Module) getter.invokeExact(target);
+			} catch (Throwable t){
+				throw new IllegalStateException("Could not read field " + getName(), t);
+			}
+		}
+		
+		@Override
+		public void set(Module target, Module value){
+			try {
+				setter.invokeExact(target, value);
+			} catch (Throwable t){
+				throw new IllegalStateException("Could not write field " + getName(), t);
+			}
+		}
+		
+	}
+	
+	private static class DependencyInjectionPoint extends InjectionPoint {
+		
+		private final ModuleInjector injector;
+		private final int index;
+		
+		@SuppressWarnings("unchecked")
+		DependencyInjectionPoint(ModuleInjector injector, int index) {
+			super(injector.getDependencyNames()[index], (Class<? extends Module>) injector.getDependencyTypes()[index]);
+			
+			this.injector = injector;
+			this.index = index;
+		}
+		
+		@Override
+		public Module get(Module target){
+			return injector.getDependency(target, index);
+		}
+		
+		@Override
+		public void set(Module target, Module value){
+			injector.setDependency(target, index, value);
+		}
+		
+	}
+	
+	private static class UsedInjectionPoint extends InjectionPoint {
+		
+		private final ModuleInjector injector;
+		private final int index;
+		
+		@SuppressWarnings("unchecked")
+		UsedInjectionPoint(ModuleInjector injector, int index) {
+			super(injector.getUsedNames()[index], (Class<? extends Module>) injector.getUsedTypes()[index]);
+			
+			this.injector = injector;
+			this.index = index;
+		}
+		
+		@Override
+		public Module get(Module target){
+			return injector.getUsed(target, index);
+		}
+		
+		@Override
+		public void set(Module target, Module value){
+			injector.setUsed(target, index, value);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This annotation marks a {@link Module} that should not be initialized and started on startup, but only when it is used the first time.<br>
+ * <br>
+ * {@link Depends} and {@link Uses} fields of other modules that have an interface-type get a proxy injected, which initializes and starts the {@link Module} on the first call.
+ * If a {@link Depends}-field has the type of the class of the lazy {@link Module}, no proxy can be used and the {@link Module} is initialized right away.<br>
+ * <br>
+ * If an {@link #idleTimeout()} is set, the {@link Module} is saved and stopped again after it has not been used for this time,
+ * and a new instance is created <i>(using the no-args constructor)</i> on the next use.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Lazy {
+
+	/**
+	 * The time the {@link Module} can be unused before it is stopped again. <code>0</code> <i>(default)</i> means the {@link Module} is never stopped.
+	 */
+	long idleTimeout() default 0;
+	
+	/**
+	 * The unit of the {@link #idleTimeout()}
+	 */
+	TimeUnit unit() default TimeUnit.SECONDS;
+	
+}
@@ -0,0 +1,266 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Handle of a {@link Lazy} {@link Module}.<br>
+ * Activates the {@link Module} exactly once on the first access, and provides the proxy that is injected into other modules.
+ */
+final class LazyModule implements InvocationHandler {
+
+	private static final int STOPPING = -1;
+	
+	private final ModuleManager manager;
+	private final Class<? extends Module> type;
+	private final long idleTimeout;
+	private final Module proxy;
+	private final Set<Method> stateless;
+	private final Module named;
+	
+	private volatile ModuleContainer container;
+	private volatile long lastAccess;
+	private volatile boolean pinned;
+	private final AtomicInteger calls;
+	
+	LazyModule(ModuleManager manager, ModuleContainer container, Lazy lazy) {
+		this.manager = manager;
+		this.type = container.getType();
+		this.idleTimeout = lazy.unit().toNanos(lazy.idleTimeout());
+		this.container = container;
+		this.lastAccess = System.nanoTime();
+		this.pinned = false;
+		this.calls = new AtomicInteger();
+		
+		List<Class<?>> interfaces = new ArrayList<>();
+		for (Class<?> moduleType : StartupPlan.moduleTypesOf(type)){
+			if (moduleType.isInterface()) interfaces.add(moduleType);
+		}
+		this.proxy = (Module) Proxy.newProxyInstance(type.getClassLoader(), interfaces.toArray(new Class<?>[interfaces.size()]), this);
+		
+		String name = type.getSimpleName();
+		this.stateless = findStatelessMethods(type);
+		this.named = new Module() {
+			@Override
+			public String getName() {
+				return name;
+			}
+		};
+	}
+	
+	/**
+	 * Returns {@link Module#getName()} and the log-methods of {@link Module}, if the module does not override any of them.<br>
+	 * They only depend on the name of the module, so the proxy can answer them without activating the module.
+	 */
+	private static Set<Method> findStatelessMethods(Class<? extends Module> type){
+		Set<Method> methods = new HashSet<>();
+		try {
+			if (type.getMethod("getName").getDeclaringClass() != Module.class) return methods;
+			
+			for (Method method : Module.class.getMethods()){
+				if (!method.getName().equals("getName") && !method.getName().startsWith("log")) continue;
+				if (type.getMethod(method.getName(), method.getParameterTypes()).getDeclaringClass() == Module.class) methods.add(method);
+			}
+		} catch (NoSuchMethodException ex){
+			throw new IllegalStateException(ex);
+		}
+		return methods;
+	}
+	
+	public Class<? extends Module> getType(){
+		return type;
+	}
+	
+	/**
+	 * The current container of the {@link Module}. This changes if the module is recreated after it has been stopped because it was idle.
+	 */
+	public ModuleContainer getContainer(){
+		return container;
+	}
+	
+	/**
+	 * The proxy that activates the {@link Module} when it is used.
+	 */
+	public Module getProxy(){
+		return proxy;
+	}
+	
+	/**
+	 * Replaces the container of the {@link Module}, because the module has been restarted with a new instance.
+	 */
+	synchronized void setContainer(ModuleContainer container){
+		this.container = container;
+		this.lastAccess = System.nanoTime();
+	}
+	
+	public boolean hasIdleTimeout(){
+		return idleTimeout > 0;
+	}
+	
+	/**
+	 * Marks this {@link Module} as referenced directly by another {@link Module}, so it will never be stopped when it is idle.
+	 */
+	public void pin(){
+		pinned = true;
+	}
+	
+	/**
+	 * Returns the started {@link Module} and activates it if necessary.<br>
+	 * The returned instance is not protected from beeing stopped when it is idle, use {@link #getPinned()} if it is handed out.
+	 * 
+	 * @throws IllegalStateException if the {@link Module} could not be activated
+	 */
+	public Module get(){
+		Module module = acquire();
+		release();
+		return module;
+	}
+	
+	/**
+	 * {@link #pin() Pins} the {@link Module} and returns the started instance, see {@link #get()}.
+	 * 
+	 * @throws IllegalStateException if the {@link Module} could not be activated
+	 */
+	public Module getPinned(){
+		pin();
+		return get();
+	}
+	
+	/**
+	 * Returns the started {@link Module} and counts the call as running until {@link #release()}, so the module is not stopped while it is used.
+	 * 
+	 * @throws IllegalStateException if the {@link Module} could not be activated
+	 */
+	private Module acquire(){
+		while (true){
+			lastAccess = System.nanoTime();
+			
+			int running = calls.get();
+			if (running == STOPPING){
+				//wait until the module is stopped, and activate it again
+				activate(true);
+				continue;
+			}
+			if (!calls.compareAndSet(running, running + 1)) continue;
+			
+			ModuleContainer mc = container;
+			if (mc.getStableState() == ModuleState.STARTED) return mc.getModule();
+			
+			release();
+			activate(true);
+		}
+	}
+	
+	private void release(){
+		calls.decrementAndGet();
+	}
+	
+	/**
+	 * Initializes and optionally starts the {@link Module}, if it is not already.
+	 * 
+	 * @throws IllegalStateException if the {@link Module} could not be activated
+	 */
+	public synchronized Module activate(boolean start){
+		ModuleContainer mc = container;
+		
+		if (mc.awaitState() == ModuleState.STOPPED){
+			mc = manager.recreateLazy(this);
+			container = mc;
+		}
+		
+		if (mc.awaitState() == ModuleState.CONSTRUCTED) manager.initSingle(mc, start);
+		if (start && mc.awaitState() == ModuleState.INITIALIZED) mc.startModule();
+		
+		return mc.getModule();
+	}
+	
+	/**
+	 * Saves and stops the {@link Module} if it has not been used for longer than its idle-timeout.
+	 * 
+	 * @return <code>true</code> if the module has been stopped
+	 */
+	public synchronized boolean stopIfIdle(long now){
+		if (idleTimeout <= 0 || pinned) return false;
+		
+		ModuleContainer mc = container;
+		if (mc.getState() != ModuleState.STARTED) return false;
+		if (now - lastAccess < idleTimeout) return false;
+		
+		//only stop the module if no call is running, and make new calls wait until it is stopped
+		if (!calls.compareAndSet(0, STOPPING)) return false;
+		try {
+			mc.stopModule();
+		} catch (Throwable t){
+			LyeenPlugin.getLogger().error("Failed to stop module: " + mc.getModule().getName(), t);
+			mc.markStopped();
+		} finally {
+			calls.set(0);
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass() == Object.class){
+			switch (method.getName()){
+			case "equals": return proxy == args[0];
+			case "hashCode": return System.identityHashCode(proxy);
+			case "toString": return "LazyModule[" + type.getName() + "]";
+			}
+		}
+		
+		if (stateless.contains(method)){
+			try {
+				return method.invoke(named, args);
+			} catch (InvocationTargetException ex){
+				throw ex.getCause();
+			}
+		}
+		
+		Module module = acquire();
+		try {
+			return method.invoke(module, args);
+		} catch (InvocationTargetException ex){
+			throw ex.getCause();
+		} finally {
+			release();
+		}
+	}
+	
+}
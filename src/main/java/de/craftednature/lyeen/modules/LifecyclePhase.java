@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+/**
+ * The phases of the lifecycle of a {@link Module} that are timed by its {@link ModuleContainer}.
+ */
+public enum LifecyclePhase {
+	
+	/**
+	 * {@link Module#init()}
+	 */
+	INIT,
+	
+	/**
+	 * {@link Module#load()}
+	 */
+	LOAD,
+	
+	/**
+	 * {@link Module#start()}
+	 */
+	START,
+	
+	/**
+	 * The part of saving that runs on the saving thread: {@link Module#prepareSave()}, or {@link Module#save()} if the module can't save asynchronously.
+	 */
+	SAVE,
+	
+	/**
+	 * {@link SaveTask#write()} of an asynchronous save, running on a background-thread
+	 */
+	WRITE,
+	
+	/**
+	 * {@link Module#stop()}
+	 */
+	STOP;
+	
+	/**
+	 * The lowercase name of this phase, used e.g. in traces.
+	 */
+	public String getName(){
+		return name().toLowerCase();
+	}
+	
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the {@link LifecyclePhase}s of all {@link Module}s as events, that can be written to a file in the Chrome trace-event format.<br>
+ * The file can be opened with <code>chrome://tracing</code> to see which modules ran when and on which thread.
+ */
+public final class LifecycleTrace {
+	
+	private final long origin;
+	private final ConcurrentLinkedQueue<Event> events;
+	private volatile boolean recording;
+	
+	public LifecycleTrace() {
+		this.origin = System.nanoTime();
+		this.events = new ConcurrentLinkedQueue<>();
+		this.recording = false;
+	}
+	
+	public boolean isRecording(){
+		return recording;
+	}
+	
+	/**
+	 * Starts or stops recording events. Events that are already recorded are kept.
+	 */
+	public void setRecording(boolean recording){
+		this.recording = recording;
+	}
+	
+	/**
+	 * Removes all recorded events.
+	 */
+	public void clear(){
+		events.clear();
+	}
+	
+	/**
+	 * Records an event on the current thread, if this trace is recording.
+	 * 
+	 * @param name the name of the event
+	 * @param category the category of the event, e.g. the module-name
+	 * @param start the {@link System#nanoTime()} when the event started
+	 * @param cpuNanos the cpu-time of the event or <code>-1</code> if it is unknown
+	 */
+	public void record(String name, String category, long start, long cpuNanos){
+		if (!recording) return;
+		
+		Thread thread = Thread.currentThread();
+		events.add(new Event(name, category, start - origin, System.nanoTime() - start, cpuNanos, thread.getId(), thread.getName()));
+	}
+	
+	/**
+	 * Writes all recorded events to the file in the Chrome trace-event format.
+	 */
+	public void write(Path file) throws IOException {
+		List<Event> events = new ArrayList<>(this.events);
+		
+		Map<Long, String> threads = new HashMap<>();
+		for (Event event : events) threads.put(event.threadId, event.threadName);
+		
+		if (file.getParent() != null) Files.createDirectories(file.getParent());
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)){
+			writer.write("{\"traceEvents\":[\n");
+			
+			boolean first = true;
+			for (Map.Entry<Long, String> thread : threads.entrySet()){
+				if (!first) writer.write(",\n");
+				first = false;
+				
+				writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey() + ",\"args\":{\"name\":\"" + escape(thread.getValue()) + "\"}}");
+			}
+			
+			for (Event event : events){
+				if (!first) writer.write(",\n");
+				first = false;
+				
+				writer.write("{\"name\":\"" + escape(event.name) + "\",\"cat\":\"" + escape(event.category) + "\",\"ph\":\"X\",\"pid\":1,\"tid\":" + event.threadId
+						+ ",\"ts\":" + TimeUnit.NANOSECONDS.toMicros(event.start)
+						+ ",\"dur\":" + TimeUnit.NANOSECONDS.toMicros(event.duration)
+						+ ",\"args\":{\"cpuMicros\":" + (event.cpu >= 0 ? TimeUnit.NANOSECONDS.toMicros(event.cpu) : -1) + "}}");
+			}
+			
+			writer.write("\n]}\n");
+		}
+	}
+	
+	static String escape(String value){
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (char c : value.toCharArray()){
+			switch (c){
+			case '"': escaped.append("\\\""); break;
+			case '\\': escaped.append("\\\\"); break;
+			case '\n': escaped.append("\\n"); break;
+			case '\r': escaped.append("\\r"); break;
+			case '\t': escaped.append("\\t"); break;
+			default:
+				if (c < 0x20) escaped.append(String.format("\\u%04x", (int) c));
+				else escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+	
+	private static class Event {
+		final String name;
+		final String category;
+		final long start;
+		final long duration;
+		final long cpu;
+		final long threadId;
+		final String threadName;
+		
+		Event(String name, String category, long start, long duration, long cpu, long threadId, String threadName) {
+			this.name = name;
+			this.category = category;
+			this.start = start;
+			this.duration = duration;
+			this.cpu = cpu;
+			this.threadId = threadId;
+			this.threadName = threadName;
+		}
+	}
+	
+}
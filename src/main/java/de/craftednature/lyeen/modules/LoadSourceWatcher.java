@@ -0,0 +1,285 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Watches the {@link Module#getLoadSources() load-sources} of all loaded modules of a {@link ModuleManager}, 
+ * and reloads the modules whose load-sources have changed.<br>
+ * <br>
+ * Changes are collected until there has been no change for the debounce-time, then the affected modules are reloaded on the thread of the watcher
+ * using {@link ModuleContainer#reloadIfChanged()}, so files that have been touched without changing their content are not loaded again.
+ */
+final class LoadSourceWatcher implements Runnable {
+	
+	private static final long SYNC_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+	
+	private final Map<Class<? extends Module>, ModuleContainer> modules;
+	private final long debounce;
+	private final WatchService watchService;
+	private final Thread thread;
+	private volatile boolean running;
+	
+	//only accessed by the watcher-thread
+	private final Map<WatchKey, Path> keys;
+	private final Set<Path> registered;
+	private final Map<ModuleContainer, List<Path>> watched;
+	private final Map<Path, Set<ModuleContainer>> bySource;
+	private final Set<ModuleContainer> pending;
+	private long lastChange;
+	private long lastSync;
+	
+	LoadSourceWatcher(Map<Class<? extends Module>, ModuleContainer> modules, long debounce) throws IOException {
+		this.modules = modules;
+		this.debounce = debounce;
+		this.watchService = FileSystems.getDefault().newWatchService();
+		this.thread = new ThreadFactoryBuilder().setNameFormat("Lyeen-LoadWatcher").setDaemon(true).build().newThread(this);
+		this.running = false;
+		
+		this.keys = new HashMap<>();
+		this.registered = new HashSet<>();
+		this.watched = new HashMap<>();
+		this.bySource = new HashMap<>();
+		this.pending = new LinkedHashSet<>();
+	}
+	
+	public void start(){
+		running = true;
+		thread.start();
+	}
+	
+	public void stop(){
+		running = false;
+		thread.interrupt();
+		
+		try {
+			watchService.close();
+		} catch (IOException ex){
+			LyeenPlugin.getLogger().warn("Failed to close the file-watcher!", ex);
+		}
+	}
+	
+	@Override
+	public void run(){
+		try {
+			lastSync = System.nanoTime() - SYNC_INTERVAL;
+			
+			while (running){
+				long now = System.nanoTime();
+				if (now - lastSync >= SYNC_INTERVAL){
+					sync();
+					lastSync = now;
+				}
+				
+				long timeout = SYNC_INTERVAL - (now - lastSync);
+				if (!pending.isEmpty()) timeout = Math.min(timeout, debounce - (now - lastChange));
+				
+				WatchKey key = watchService.poll(Math.max(timeout, 0), TimeUnit.NANOSECONDS);
+				while (key != null){
+					handle(key);
+					key = watchService.poll();
+				}
+				
+				if (!pending.isEmpty() && System.nanoTime() - lastChange >= debounce) reloadPending();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ex){
+			//the watcher has been stopped
+		}
+	}
+	
+	/**
+	 * Updates the watched modules and their load-sources.
+	 */
+	private void sync(){
+		Set<ModuleContainer> loaded = new HashSet<>();
+		for (ModuleContainer mc : modules.values()){
+			ModuleState state = mc.getStableState();
+			if (state != ModuleState.INITIALIZED && state != ModuleState.STARTED) continue;
+			
+			List<Path> sources = mc.getLoadSources();
+			if (sources.isEmpty()) continue;
+			
+			loaded.add(mc);
+			if (!sources.equals(watched.get(mc))){
+				unwatch(mc);
+				watched.put(mc, sources);
+				for (Path source : sources) bySource.computeIfAbsent(source, s -> new HashSet<>()).add(mc);
+			}
+			
+			//register again on every sync, so sources that did not exist before are watched as soon as they are created
+			for (Path source : sources){
+				if (registered.contains(source)) continue;
+				
+				if (Files.isDirectory(source)){
+					registerTree(source);
+				} else {
+					Path parent = source.getParent();
+					if (parent != null && Files.isDirectory(parent)) register(parent);
+				}
+			}
+		}
+		
+		Iterator<ModuleContainer> iterator = watched.keySet().iterator();
+		while (iterator.hasNext()){
+			ModuleContainer mc = iterator.next();
+			if (loaded.contains(mc)) continue;
+			
+			removeSources(mc, watched.get(mc));
+			iterator.remove();
+			pending.remove(mc);
+		}
+	}
+	
+	private void unwatch(ModuleContainer mc){
+		List<Path> sources = watched.remove(mc);
+		if (sources != null) removeSources(mc, sources);
+	}
+	
+	private void removeSources(ModuleContainer mc, List<Path> sources){
+		for (Path source : sources){
+			Set<ModuleContainer> containers = bySource.get(source);
+			if (containers == null) continue;
+			
+			containers.remove(mc);
+			if (containers.isEmpty()) bySource.remove(source);
+		}
+	}
+	
+	private void handle(WatchKey key){
+		Path dir = keys.get(key);
+		boolean anyAffected = false;
+		
+		for (WatchEvent<?> event : key.pollEvents()){
+			if (dir == null) continue;
+			
+			if (event.kind() == OVERFLOW){
+				pending.addAll(watched.keySet());
+				anyAffected = true;
+				continue;
+			}
+			
+			Path path = dir.resolve((Path) event.context());
+			boolean affected = markAffected(path);
+			anyAffected |= affected;
+			
+			//new directories inside a watched directory need to be watched as well
+			if (affected && event.kind() == ENTRY_CREATE && Files.isDirectory(path)) registerTree(path);
+		}
+		
+		if (!key.reset()){
+			keys.remove(key);
+			registered.remove(dir);
+		}
+		
+		//changes to unrelated files in a watched directory should not delay the reload
+		if (anyAffected) lastChange = System.nanoTime();
+	}
+	
+	/**
+	 * Adds all modules that have this path or one of its parents as a load-source to the pending modules.
+	 */
+	private boolean markAffected(Path path){
+		boolean affected = false;
+		for (Path p = path; p != null; p = p.getParent()){
+			Set<ModuleContainer> containers = bySource.get(p);
+			if (containers == null) continue;
+			
+			pending.addAll(containers);
+			affected = true;
+		}
+		return affected;
+	}
+	
+	private void reloadPending(){
+		List<ModuleContainer> toReload = new ArrayList<>(pending);
+		pending.clear();
+		
+		for (ModuleContainer mc : toReload){
+			if (modules.get(mc.getType()) != mc) continue;
+			
+			try {
+				if (mc.reloadIfChanged()) LyeenPlugin.getLogger().info("Reloaded module: " + mc.getModule().getName());
+			} catch (IllegalStateException ex){
+				//the module has been stopped in the meantime
+			} catch (Throwable t){
+				LyeenPlugin.getLogger().error("Failed to reload module: " + mc.getModule().getName(), t);
+			}
+		}
+	}
+	
+	private void registerTree(Path root){
+		List<Path> dirs;
+		try (Stream<Path> stream = Files.walk(root)){
+			dirs = stream.filter(Files::isDirectory).collect(Collectors.toList());
+		} catch (IOException | RuntimeException ex){
+			LyeenPlugin.getLogger().warn("Failed to watch directory: " + root, ex);
+			return;
+		}
+		
+		for (Path dir : dirs) register(dir);
+	}
+	
+	private void register(Path dir){
+		if (!registered.add(dir)) return;
+		
+		try {
+			keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+		} catch (IOException ex){
+			//stays in registered, so the warning is not repeated on every sync
+			LyeenPlugin.getLogger().warn("Failed to watch directory: " + dir, ex);
+		}
+	}
+	
+}
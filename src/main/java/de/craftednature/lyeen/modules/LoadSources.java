@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Utility to work with the {@link Module#getLoadSources() load-sources} of a {@link Module}.
+ */
+final class LoadSources {
+	
+	private static final String DIGEST_ALGORITHM = "SHA-1";
+	private static final int BUFFER_SIZE = 8192;
+	
+	private LoadSources() {}
+	
+	/**
+	 * Returns the absolute and normalized load-sources of this {@link Module}.
+	 */
+	static List<Path> of(Module module){
+		Collection<Path> sources;
+		try {
+			sources = module.getLoadSources();
+		} catch (Throwable t){
+			LyeenPlugin.getLogger().error("Failed to get the load-sources of module: " + module.getName(), t);
+			return Collections.emptyList();
+		}
+		if (sources == null || sources.isEmpty()) return Collections.emptyList();
+		
+		List<Path> paths = new ArrayList<>(sources.size());
+		for (Path source : sources){
+			paths.add(source.toAbsolutePath().normalize());
+		}
+		return paths;
+	}
+	
+	/**
+	 * Calculates a hash over the content of all files in these load-sources.<br>
+	 * Directories are hashed recursively, including the relative paths of the files in them. Missing or unreadable files are hashed as such,
+	 * so the hash changes if they appear or become readable.
+	 * 
+	 * @return the hash or <code>null</code> if there are no load-sources
+	 */
+	static byte[] hash(List<Path> sources){
+		if (sources.isEmpty()) return null;
+		
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException ex){
+			throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported!", ex);
+		}
+		
+		byte[] buffer = new byte[BUFFER_SIZE];
+		for (Path source : sources){
+			update(digest, source.toString());
+			
+			if (Files.isDirectory(source)){
+				List<Path> files;
+				try (Stream<Path> stream = Files.walk(source)){
+					files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+				} catch (IOException | RuntimeException ex){
+					update(digest, "!" + ex);
+					continue;
+				}
+				
+				for (Path file : files){
+					update(digest, source.relativize(file).toString());
+					hashFile(digest, file, buffer);
+				}
+			} else {
+				hashFile(digest, source, buffer);
+			}
+		}
+		
+		return digest.digest();
+	}
+	
+	private static void hashFile(MessageDigest digest, Path file, byte[] buffer){
+		if (!Files.exists(file)){
+			update(digest, "-");
+			return;
+		}
+		
+		update(digest, "+");
+		try (InputStream in = Files.newInputStream(file)){
+			int read;
+			while ((read = in.read(buffer)) >= 0){
+				digest.update(buffer, 0, read);
+			}
+		} catch (IOException ex){
+			update(digest, "!" + ex);
+		}
+	}
+	
+	private static void update(MessageDigest digest, String value){
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+	
+}
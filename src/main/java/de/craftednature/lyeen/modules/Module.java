@@ -27,8 +27,10 @@
 package de.craftednature.lyeen.modules;
 
 import java.io.IOException;
-
-import de.craftednature.lyeen.LyeenPlugin;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Supplier;
 
 public interface Module {
 
@@ -48,6 +50,22 @@ public interface Module {
 	 */
 	public default void load() throws IOException {}
 	
+	/**
+	 * The files and directories that {@link #load()} reads the configuration/data of this module from.<br>
+	 * This method is called after {@link #init()}.<br>
+	 * <br>
+	 * If this module has load-sources, {@link ModuleManager#loadChanged()} and the {@link ModuleManager#startWatching() file-watcher} only reload this module
+	 * if the content of its load-sources has changed. Directories are watched recursively.<br>
+	 * If this returns an empty collection <i>(default)</i>, the module is only reloaded by {@link ModuleManager#loadAll()}.<br>
+	 * <br>
+	 * <b>The file-watcher calls {@link #load()} on its own thread!</b>
+	 * 
+	 * @return the paths of all files and directories this module loads
+	 */
+	public default Collection<Path> getLoadSources(){
+		return Collections.emptyList();
+	}
+	
 	/**
 	 * This method is called to save all configuration/data.<br>
 	 * <br>
@@ -57,6 +75,35 @@ public interface Module {
 	 */
 	public default void save() throws IOException {}
 	
+	/**
+	 * This method is called on the saving thread <i>(usually the main thread)</i> to save this module asynchronously.<br>
+	 * The implementation should capture a snapshot of all data that needs to be saved, and return a {@link SaveTask} that writes this snapshot.
+	 * The {@link SaveTask} will then be executed on a background-thread.<br>
+	 * <br>
+	 * If this returns <code>null</code> <i>(default)</i>, the module does not support asynchronous saving and {@link #save()} is called instead.<br>
+	 * <br>
+	 * <b>If this method fails with an exception the module is still considererd to be in a working state! The implementation should always respect that.</b>
+	 * 
+	 * @return the {@link SaveTask} writing the captured data, or <code>null</code>
+	 * @throws IOException if the data could not get captured correctly
+	 */
+	public default SaveTask prepareSave() throws IOException {
+		return null;
+	}
+	
+	/**
+	 * A counter that this module increases every time data changes that needs to be saved.<br>
+	 * The module is only saved if the version has changed since it has been saved or loaded the last time. 
+	 * This method is called on the saving thread right before the module is saved, so the saved data contains at least all changes up to the returned version.<br>
+	 * <br>
+	 * If this returns <code>-1</code> <i>(default)</i>, the module does not track its state and is saved every time.
+	 * 
+	 * @return the current version of the data of this module, or <code>-1</code>
+	 */
+	public default long getStateVersion(){
+		return -1;
+	}
+	
 	/**
 	 * This method is called to start the module, after {@link #init()} and {@link #load()} have been called.
 	 */
@@ -70,7 +117,10 @@ public interface Module {
 	/**
 	 * A user-friendly name to identify this module.<br>
 	 * This name can e.g. be used to display info or for logging.<br>
-	 * This defaults to the simple-class-name of the modules class.
+	 * This defaults to the simple-class-name of the modules class.<br>
+	 * <br>
+	 * <i>The log-prefix of modules that don't override this method is cached. If it is overridden, the prefix is built again 
+	 * on every log-statement, so it should be cheap.</i>
 	 * 
 	 * @return This modules name.
 	 */
@@ -78,31 +128,166 @@ public interface Module {
 		return this.getClass().getSimpleName();
 	}
 	
+	/**
+	 * This method should be used to log a debug-message in the name of this module
+	 */
+	default void logDebug(String msg){
+		ModuleLog.log(this, ModuleLog.Level.DEBUG, msg);
+	}
+	
+	/**
+	 * Logs a debug-message in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the argument.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logDebug(String format, Object arg){
+		ModuleLog.log(this, ModuleLog.Level.DEBUG, format, arg);
+	}
+	
+	/**
+	 * Logs a debug-message in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the arguments.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logDebug(String format, Object arg1, Object arg2){
+		ModuleLog.log(this, ModuleLog.Level.DEBUG, format, arg1, arg2);
+	}
+	
+	/**
+	 * Logs a debug-message in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the arguments.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logDebug(String format, Object... args){
+		ModuleLog.log(this, ModuleLog.Level.DEBUG, format, args);
+	}
+	
+	/**
+	 * Logs a debug-message in the name of this module.<br>
+	 * The message is only created if the level is enabled.
+	 */
+	default void logDebug(Supplier<String> msg){
+		ModuleLog.log(this, ModuleLog.Level.DEBUG, msg);
+	}
+	
 	/**
 	 * This method should be used to log a message in the name of this module
 	 */
 	default void logInfo(String msg){
-		LyeenPlugin.getLogger().info("[" + getName() + "] " + msg);
+		ModuleLog.log(this, ModuleLog.Level.INFO, msg);
+	}
+	
+	/**
+	 * Logs a message in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the argument.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logInfo(String format, Object arg){
+		ModuleLog.log(this, ModuleLog.Level.INFO, format, arg);
+	}
+	
+	/**
+	 * Logs a message in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the arguments.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logInfo(String format, Object arg1, Object arg2){
+		ModuleLog.log(this, ModuleLog.Level.INFO, format, arg1, arg2);
+	}
+	
+	/**
+	 * Logs a message in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the arguments.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logInfo(String format, Object... args){
+		ModuleLog.log(this, ModuleLog.Level.INFO, format, args);
+	}
+	
+	/**
+	 * Logs a message in the name of this module.<br>
+	 * The message is only created if the level is enabled.
+	 */
+	default void logInfo(Supplier<String> msg){
+		ModuleLog.log(this, ModuleLog.Level.INFO, msg);
 	}
 	
 	/**
 	 * This method should be used to log a warning in the name of this module
 	 */
 	default void logWarning(String msg){
-		LyeenPlugin.getLogger().warn("[" + getName() + "] " + msg);
+		ModuleLog.log(this, ModuleLog.Level.WARN, msg);
+	}
+	
+	/**
+	 * Logs a warning in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the argument.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logWarning(String format, Object arg){
+		ModuleLog.log(this, ModuleLog.Level.WARN, format, arg);
+	}
+	
+	/**
+	 * Logs a warning in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the arguments.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logWarning(String format, Object arg1, Object arg2){
+		ModuleLog.log(this, ModuleLog.Level.WARN, format, arg1, arg2);
+	}
+	
+	/**
+	 * Logs a warning in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the arguments.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logWarning(String format, Object... args){
+		ModuleLog.log(this, ModuleLog.Level.WARN, format, args);
+	}
+	
+	/**
+	 * Logs a warning in the name of this module.<br>
+	 * The message is only created if the level is enabled.
+	 */
+	default void logWarning(Supplier<String> msg){
+		ModuleLog.log(this, ModuleLog.Level.WARN, msg);
 	}
 	
 	/**
 	 * This method should be used to log an error in the name of this module
 	 */
 	default void logError(String msg){
-		LyeenPlugin.getLogger().error("[" + getName() + "] " + msg);
+		ModuleLog.log(this, ModuleLog.Level.ERROR, msg);
 	}
 	
 	/**
 	 * This method should be used to log an error in the name of this module
 	 */
 	default void logError(String msg, Throwable error){
-		LyeenPlugin.getLogger().error("[" + getName() + "] " + msg, error);
+		ModuleLog.log(this, ModuleLog.Level.ERROR, msg, error);
+	}
+	
+	/**
+	 * Logs an error in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the argument.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logError(String format, Object arg){
+		ModuleLog.log(this, ModuleLog.Level.ERROR, format, arg);
+	}
+	
+	/**
+	 * Logs an error in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the arguments.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logError(String format, Object arg1, Object arg2){
+		ModuleLog.log(this, ModuleLog.Level.ERROR, format, arg1, arg2);
+	}
+	
+	/**
+	 * Logs an error in the name of this module, using the SLF4J-format with <code>{}</code> as placeholder for the arguments.<br>
+	 * The message is only formatted if the level is enabled.
+	 */
+	default void logError(String format, Object... args){
+		ModuleLog.log(this, ModuleLog.Level.ERROR, format, args);
+	}
+	
+	/**
+	 * Logs an error in the name of this module.<br>
+	 * The message is only created if the level is enabled.
+	 */
+	default void logError(Supplier<String> msg){
+		ModuleLog.log(this, ModuleLog.Level.ERROR, msg);
 	}
 }
@@ -27,10 +27,24 @@
 package de.craftednature.lyeen.modules;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import com.google.common.base.Preconditions;
 
@@ -42,12 +56,65 @@ import de.craftednature.lyeen.LyeenPlugin;
  */
 public class ModuleContainer {
 	
+	private static final long EXECUTOR_DRAIN_TIMEOUT = 10;
+	
 	private Module module;
-	private ModuleState state;
+	private ModuleDescriptor descriptor;
+	
+	private final AtomicReference<ModuleState> state;
+	private volatile ModuleState stableState;
+	private volatile Thread transitionThread;
+	private final Object transitionMonitor = new Object();
+	private final List<BiConsumer<ModuleState, ModuleState>> stateListeners;
+	
+	private final Object saveLock = new Object();
+	private SaveTask queuedSave;
+	private long queuedVersion;
+	private CompletableFuture<Long> queuedSaveFuture;
+	private CompletableFuture<Void> lastSave;
+	private volatile long savedVersion;
+	
+	private final Object loadLock = new Object();
+	private volatile List<Path> loadSources;
+	private volatile byte[] loadedHash;
+	
+	private final ModuleTimings timings;
+	private final ModuleResources resources;
+	private volatile LifecycleTrace trace;
+	
+	private final Object executorLock = new Object();
+	private Executor asyncExecutor;
+	private Executor mainThreadExecutor;
+	private ModuleExecutor executor;
+	private boolean executorClosed;
+	
+	private volatile ModuleEventBus eventBus;
 	
 	public ModuleContainer(Module module) {
 		this.module = module;
-		this.state = ModuleState.CONSTRUCTED;
+		this.descriptor = ModuleDescriptor.of(module.getClass());
+		this.state = new AtomicReference<>(ModuleState.CONSTRUCTED);
+		this.stableState = ModuleState.CONSTRUCTED;
+		this.transitionThread = null;
+		this.stateListeners = new CopyOnWriteArrayList<>();
+		
+		this.queuedSave = null;
+		this.queuedVersion = -1;
+		this.queuedSaveFuture = null;
+		this.lastSave = CompletableFuture.completedFuture(null);
+		this.savedVersion = -1;
+		
+		this.loadSources = Collections.emptyList();
+		this.loadedHash = null;
+		
+		this.timings = new ModuleTimings();
+		this.resources = new ModuleResources();
+		this.trace = null;
+		
+		this.asyncExecutor = null;
+		this.mainThreadExecutor = null;
+		this.executor = null;
+		this.executorClosed = false;
 	}
 	
 	public Module getModule(){
@@ -58,28 +125,232 @@ public class ModuleContainer {
 		return module.getClass();
 	}
 	
+	/**
+	 * The current state of this module, this might be a {@link ModuleState#isTransitional() transitional} state.
+	 */
 	public ModuleState getState(){
-		return state;
+		return state.get();
+	}
+	
+	/**
+	 * The last stable state of this module: the current state, or the state the module has been in before the current transition started.<br>
+	 * E.g. while a {@link ModuleState#STARTED} module is {@link ModuleState#SAVING}, this is still {@link ModuleState#STARTED}.
+	 */
+	public ModuleState getStableState(){
+		return stableState;
+	}
+	
+	/**
+	 * Waits until the current transition of this module is finished, and returns the stable state it is in then.
+	 * 
+	 * @throws IllegalStateException If this is called from a lifecycle-method of this module, during its own transition
+	 */
+	public ModuleState awaitState() throws IllegalStateException {
+		ModuleState current = state.get();
+		if (!current.isTransitional()) return current;
+		
+		Preconditions.checkState(transitionThread != Thread.currentThread(), "Can't wait for module " + module.getName() + " to finish " + current + " on the thread that is running it!");
+		
+		boolean interrupted = false;
+		synchronized (transitionMonitor) {
+			while ((current = state.get()).isTransitional()){
+				try {
+					transitionMonitor.wait();
+				} catch (InterruptedException ex){
+					interrupted = true;
+				}
+			}
+		}
+		
+		if (interrupted) Thread.currentThread().interrupt();
+		return current;
+	}
+	
+	/**
+	 * Returns a future that completes as soon as this module is in this state, or immediately if it already is.
+	 */
+	public CompletableFuture<ModuleState> onState(ModuleState target){
+		CompletableFuture<ModuleState> future = new CompletableFuture<>();
+		
+		BiConsumer<ModuleState, ModuleState> listener = new BiConsumer<ModuleState, ModuleState>() {
+			@Override
+			public void accept(ModuleState from, ModuleState to) {
+				if (to != target) return;
+				
+				removeStateListener(this);
+				future.complete(to);
+			}
+		};
+		
+		addStateListener(listener);
+		if (state.get() == target){
+			removeStateListener(listener);
+			future.complete(target);
+		}
+		
+		return future;
+	}
+	
+	/**
+	 * Adds a listener that is called with the old and new state every time the state of this module changes, including the transitional states.<br>
+	 * The listener is called on the thread that changed the state, right after it has been changed.
+	 */
+	public void addStateListener(BiConsumer<ModuleState, ModuleState> listener){
+		stateListeners.add(listener);
+	}
+	
+	public void removeStateListener(BiConsumer<ModuleState, ModuleState> listener){
+		stateListeners.remove(listener);
+	}
+	
+	/**
+	 * Atomically changes the state from one of the expected stable states into the transitional state.<br>
+	 * If the module is in another transition, this waits until that transition is finished and tries again.
+	 * 
+	 * @return the stable state the module has been in
+	 * @throws IllegalStateException If the module is not in one of the expected states
+	 */
+	private ModuleState beginTransition(ModuleState transitional, String message, ModuleState... expected) throws IllegalStateException {
+		while (true){
+			ModuleState current = awaitState();
+			Preconditions.checkState(Arrays.asList(expected).contains(current), message + " but is " + current);
+			
+			if (state.compareAndSet(current, transitional)){
+				transitionThread = Thread.currentThread();
+				stateChanged(current, transitional);
+				return current;
+			}
+		}
+	}
+	
+	/**
+	 * Finishes the transition and changes the state into the target state.<br>
+	 * If the state has been changed by {@link #markStopped()} during the transition, it stays {@link ModuleState#STOPPED}.
+	 */
+	private void endTransition(ModuleState transitional, ModuleState target){
+		transitionThread = null;
+		
+		if (state.compareAndSet(transitional, target)){
+			stableState = target;
+			stateChanged(transitional, target);
+		}
+	}
+	
+	private void stateChanged(ModuleState from, ModuleState to){
+		if (!to.isTransitional()){
+			synchronized (transitionMonitor) {
+				transitionMonitor.notifyAll();
+			}
+		}
+		
+		for (BiConsumer<ModuleState, ModuleState> listener : stateListeners){
+			try {
+				listener.accept(from, to);
+			} catch (Throwable t){
+				LyeenPlugin.getLogger().error("Exception in a state-listener of module: " + module.getName(), t);
+			}
+		}
+	}
+	
+	/**
+	 * The timings of all {@link LifecyclePhase}s of this module.
+	 */
+	public ModuleTimings getTimings(){
+		return timings;
+	}
+	
+	/**
+	 * The cpu-time and the allocated bytes of all work that has been done on behalf of this module.
+	 */
+	public ModuleResources getResources(){
+		return resources;
+	}
+	
+	/**
+	 * Sets the trace that records the {@link LifecyclePhase}s of this module, or <code>null</code> to not record them.
+	 */
+	void setTrace(LifecycleTrace trace){
+		this.trace = trace;
+	}
+	
+	/**
+	 * Sets the executors that the {@link ModuleExecutor} of this module uses.
+	 * 
+	 * @param asyncExecutor the executor that runs the asynchronous tasks
+	 * @param mainThreadExecutor the executor that runs tasks on the main thread
+	 */
+	void setExecutors(Executor asyncExecutor, Executor mainThreadExecutor){
+		synchronized (executorLock) {
+			this.asyncExecutor = asyncExecutor;
+			this.mainThreadExecutor = mainThreadExecutor;
+		}
+	}
+	
+	/**
+	 * Sets the {@link ModuleEventBus} that the listeners of this module are registered to while it is started.
+	 */
+	void setEventBus(ModuleEventBus eventBus){
+		this.eventBus = eventBus;
+	}
+	
+	/**
+	 * Returns the {@link ModuleExecutor} of this module, and creates it if it does not exist yet.
+	 * 
+	 * @throws IllegalStateException If the module is stopped or the container has not been added to a {@link ModuleManager}
+	 */
+	public ModuleExecutor getExecutor() throws IllegalStateException {
+		synchronized (executorLock) {
+			Preconditions.checkState(!executorClosed && state.get() != ModuleState.STOPPED, "Module is stopped, its executor can't be used anymore!");
+			Preconditions.checkState(asyncExecutor != null, "The module has not been added to a ModuleManager!");
+			
+			if (executor == null) executor = new ModuleExecutor(module.getName(), asyncExecutor, mainThreadExecutor, resources);
+			return executor;
+		}
+	}
+	
+	/**
+	 * Shuts down the {@link ModuleExecutor} of this module and waits until all its tasks are finished.
+	 */
+	private void drainExecutor(){
+		ModuleExecutor executor;
+		synchronized (executorLock) {
+			executor = this.executor;
+			this.executor = null;
+			executorClosed = true;
+		}
+		
+		if (executor != null && !executor.shutdownAndDrain(EXECUTOR_DRAIN_TIMEOUT, TimeUnit.SECONDS)){
+			LyeenPlugin.getLogger().warn("The async tasks of module " + module.getName() + " did not finish within " + EXECUTOR_DRAIN_TIMEOUT + " seconds!");
+		}
 	}
 	
 	/**
-	 * Initializes this module and loads it.
+	 * Initializes this module and loads it.<br>
+	 * If the initialisation fails, the module is {@link ModuleState#STOPPED}, because a module can't be initialized again.
 	 * 
 	 * @throws IllegalStateException If the modules state is not {@link ModuleState#CONSTRUCTED}
 	 * @throws Throwable If anything goes wrong during initialisation. This is the exception thrown by {@link Module#init()}.
 	 */
 	public void initModule() throws IllegalStateException, Throwable {
-		Preconditions.checkState(state == ModuleState.CONSTRUCTED, "Module is already initialized! Expected state CONSTRUCTED but is " + state);
-		
-		module.init();
+		beginTransition(ModuleState.INITIALIZING, "Module is already initialized! Expected state CONSTRUCTED", ModuleState.CONSTRUCTED);
 		
+		ModuleState result = ModuleState.STOPPED;
 		try {
-			module.load();
-		} catch (IOException ex){
-			LyeenPlugin.getLogger().error("Exception trying to load module: " + module.getName(), ex);
+			long start = System.nanoTime();
+			ResourceMeter meter = ResourceMeter.begin();
+			try {
+				module.init();
+			} finally {
+				record(LifecyclePhase.INIT, start, meter);
+			}
+			
+			load();
+			
+			result = ModuleState.INITIALIZED;
+		} finally {
+			if (result == ModuleState.STOPPED) tearDown();
+			endTransition(ModuleState.INITIALIZING, result);
 		}
-		
-		state = ModuleState.INITIALIZED;
 	}
 
 	/**
@@ -88,54 +359,364 @@ public class ModuleContainer {
 	 * @throws IllegalStateException If the modules state is not {@link ModuleState#INITIALIZED}
 	 */
 	public void startModule() throws IllegalStateException {
-		Preconditions.checkState(state == ModuleState.INITIALIZED, "Module is either not initialized, or already started! Expected state INITIALIZED but is " + state);
-		
-		module.start();
+		beginTransition(ModuleState.STARTING, "Module is either not initialized, or already started! Expected state INITIALIZED", ModuleState.INITIALIZED);
 		
-		state = ModuleState.STARTED;
+		ModuleState result = ModuleState.INITIALIZED;
+		try {
+			long start = System.nanoTime();
+			ResourceMeter meter = ResourceMeter.begin();
+			try {
+				module.start();
+			} finally {
+				record(LifecyclePhase.START, start, meter);
+			}
+			
+			ModuleEventBus eventBus = this.eventBus;
+			if (eventBus != null) eventBus.registerAnnotated(module);
+			
+			result = ModuleState.STARTED;
+		} finally {
+			endTransition(ModuleState.STARTING, result);
+		}
 	}
 	
 	/**
-	 * Stops this module.
+	 * Stops this module.<br>
+	 * All tasks of the {@link ModuleExecutor} of this module are finished and all pending asynchronous saves are written, 
+	 * before the module is saved a last time and stopped.<br>
+	 * If stopping fails, the module is {@link ModuleState#STOPPED} anyways, because its listeners and its executor might already be shut down.
 	 * 
 	 * @throws IllegalStateException If the modules state is not {@link ModuleState#STARTED}
 	 */
 	public void stopModule() throws IllegalStateException {
-		Preconditions.checkState(state == ModuleState.STARTED, "Module is either not started, or already stopped! Expected state INITIALIZED but is " + state);
+		beginTransition(ModuleState.STOPPING, "Module is either not started, or already stopped! Expected state STARTED", ModuleState.STARTED);
 		
+		boolean stopped = false;
 		try {
-			module.save();
+			saveAndStop();
+			
+			stopped = true;
+		} finally {
+			if (!stopped) tearDown();
+			endTransition(ModuleState.STOPPING, ModuleState.STOPPED);
+		}
+	}
+	
+	/**
+	 * Saves and stops this module like {@link #stopModule()}, but keeps it {@link ModuleState#INITIALIZED} so it can be started again.<br>
+	 * This is used to restart a module without creating a new instance, e.g. because one of its dependencies has been replaced.<br>
+	 * If suspending fails, the module is {@link ModuleState#STOPPED} like it is by {@link #stopModule()}.
+	 * 
+	 * @throws IllegalStateException If the modules state is not {@link ModuleState#STARTED}
+	 */
+	public void suspendModule() throws IllegalStateException {
+		beginTransition(ModuleState.STOPPING, "Module is not started! Expected state STARTED", ModuleState.STARTED);
+		
+		ModuleState result = ModuleState.STOPPED;
+		try {
+			saveAndStop();
+			
+			synchronized (executorLock) {
+				executorClosed = false;
+			}
+			
+			result = ModuleState.INITIALIZED;
+		} finally {
+			if (result == ModuleState.STOPPED) tearDown();
+			endTransition(ModuleState.STOPPING, result);
+		}
+	}
+	
+	private void saveAndStop(){
+		unregisterListeners();
+		drainExecutor();
+		flushSaves();
+		
+		long version = module.getStateVersion();
+		long start = System.nanoTime();
+		if (isDirty(version)){
+			ResourceMeter meter = ResourceMeter.begin();
+			try {
+				module.save();
+				savedVersion = version;
+			} catch (IOException ex){
+				LyeenPlugin.getLogger().error("Exception trying to save module: " + module.getName(), ex);
+			} finally {
+				record(LifecyclePhase.SAVE, start, meter);
+			}
+		}
+		
+		start = System.nanoTime();
+		ResourceMeter meter = ResourceMeter.begin();
+		try {
+			module.stop();
+		} finally {
+			record(LifecyclePhase.STOP, start, meter);
+		}
+	}
+	
+	/**
+	 * (Re)loads this module by calling {@link Module#load()}.<br>
+	 * If loading fails, the exception is logged and the module stays in its working state.
+	 * 
+	 * @throws IllegalStateException If the modules state is not {@link ModuleState#INITIALIZED} or {@link ModuleState#STARTED}
+	 */
+	public void reloadModule() throws IllegalStateException {
+		ModuleState state = awaitState();
+		Preconditions.checkState(state == ModuleState.INITIALIZED || state == ModuleState.STARTED, "Module can't be loaded! Expected state INITIALIZED or STARTED but is " + state);
+		
+		load();
+	}
+	
+	/**
+	 * Reloads this module like {@link #reloadModule()}, but only if the content of its {@link Module#getLoadSources() load-sources} 
+	 * has changed since it has been loaded the last time.<br>
+	 * Modules without load-sources are never reloaded by this method.
+	 * 
+	 * @return <code>true</code> if the module has been reloaded
+	 * @throws IllegalStateException If the modules state is not {@link ModuleState#INITIALIZED} or {@link ModuleState#STARTED}
+	 */
+	public boolean reloadIfChanged() throws IllegalStateException {
+		ModuleState state = awaitState();
+		Preconditions.checkState(state == ModuleState.INITIALIZED || state == ModuleState.STARTED, "Module can't be loaded! Expected state INITIALIZED or STARTED but is " + state);
+		
+		synchronized (loadLock) {
+			List<Path> sources = loadSources;
+			if (sources.isEmpty()) return false;
+			if (Arrays.equals(LoadSources.hash(sources), loadedHash)) return false;
+			
+			load();
+			return true;
+		}
+	}
+	
+	/**
+	 * The absolute {@link Module#getLoadSources() load-sources} of this module, as they have been when the module has been loaded the last time.
+	 */
+	List<Path> getLoadSources(){
+		return loadSources;
+	}
+	
+	private void load(){
+		synchronized (loadLock) {
+			List<Path> sources = LoadSources.of(module);
+			byte[] hash = LoadSources.hash(sources);
+			
+			long start = System.nanoTime();
+			ResourceMeter meter = ResourceMeter.begin();
+			try {
+				module.load();
+				
+				//the data has just been loaded, so there are no changes to save
+				savedVersion = module.getStateVersion();
+			} catch (IOException ex){
+				LyeenPlugin.getLogger().error("Exception trying to load module: " + module.getName(), ex);
+			} finally {
+				record(LifecyclePhase.LOAD, start, meter);
+			}
+			
+			//also remember the hash if loading failed, so unchanged broken files are not loaded again and again
+			loadSources = sources;
+			loadedHash = hash;
+		}
+	}
+	
+	private void record(LifecyclePhase phase, long start, ResourceMeter meter){
+		long cpu = meter.end(resources, ResourceCategory.LIFECYCLE);
+		timings.record(phase, System.nanoTime() - start, cpu);
+		
+		LifecycleTrace trace = this.trace;
+		if (trace != null) trace.record(phase.getName(), module.getName(), start, cpu);
+	}
+	
+	/**
+	 * Marks this module as {@link ModuleState#STOPPED} without stopping it.<br>
+	 * This is used if the module could not be stopped correctly, e.g. because it did not stop in time.
+	 */
+	void markStopped(){
+		tearDown();
+		
+		stableState = ModuleState.STOPPED;
+		ModuleState old = state.getAndSet(ModuleState.STOPPED);
+		if (old != ModuleState.STOPPED) stateChanged(old, ModuleState.STOPPED);
+	}
+	
+	/**
+	 * Unregisters the listeners of this module and shuts down its executor without waiting for its tasks.
+	 */
+	private void tearDown(){
+		unregisterListeners();
+		
+		synchronized (executorLock) {
+			if (executor != null) executor.shutdown();
+			executor = null;
+			executorClosed = true;
+		}
+	}
+	
+	private void unregisterListeners(){
+		ModuleEventBus eventBus = this.eventBus;
+		if (eventBus != null) eventBus.unregister(module);
+	}
+	
+	/**
+	 * Tests if this module has changes that have not been saved yet.<br>
+	 * This is always <code>true</code> if the module does not track its {@link Module#getStateVersion() state-version}.
+	 */
+	public boolean isDirty(){
+		return isDirty(module.getStateVersion());
+	}
+	
+	private boolean isDirty(long version){
+		return version < 0 || version != savedVersion;
+	}
+	
+	/**
+	 * Saves this module asynchronously.<br>
+	 * The data is captured on the calling thread using {@link Module#prepareSave()}, and written on the executor.
+	 * If the module does not support asynchronous saving, {@link Module#save()} is called on the calling thread instead.<br>
+	 * If the module is not {@link #isDirty() dirty}, nothing is saved.<br>
+	 * <br>
+	 * Saves of this module are written one after another. If there is already a save waiting to be written, it is replaced with the new data
+	 * and the future of the waiting save is returned.<br>
+	 * <br>
+	 * The future completes with the number of bytes the {@link SaveTask} reported as written. 
+	 * Modules that don't support asynchronous saving always report <code>0</code> bytes.
+	 * 
+	 * @param executor the executor that writes the data
+	 * @return a future that completes with the number of written bytes when the data is written
+	 * @throws IllegalStateException If the modules state is not {@link ModuleState#INITIALIZED} or {@link ModuleState#STARTED}
+	 */
+	public CompletableFuture<Long> saveAsync(Executor executor) throws IllegalStateException {
+		ModuleState previous = beginTransition(ModuleState.SAVING, "Module can't be saved! Expected state INITIALIZED or STARTED", ModuleState.INITIALIZED, ModuleState.STARTED);
+		try {
+			return prepareAndQueueSave(executor);
+		} finally {
+			endTransition(ModuleState.SAVING, previous);
+		}
+	}
+	
+	private CompletableFuture<Long> prepareAndQueueSave(Executor executor){
+		long version = module.getStateVersion();
+		if (!isDirty(version)) return CompletableFuture.completedFuture(0L);
+		
+		SaveTask task;
+		long start = System.nanoTime();
+		ResourceMeter meter = ResourceMeter.begin();
+		try {
+			task = module.prepareSave();
+			
+			if (task == null){
+				module.save();
+				savedVersion = version;
+				return CompletableFuture.completedFuture(0L);
+			}
 		} catch (IOException ex){
 			LyeenPlugin.getLogger().error("Exception trying to save module: " + module.getName(), ex);
+			
+			CompletableFuture<Long> failed = new CompletableFuture<>();
+			failed.completeExceptionally(ex);
+			return failed;
+		} finally {
+			record(LifecyclePhase.SAVE, start, meter);
 		}
 		
-		module.stop();
+		synchronized (saveLock) {
+			if (queuedSave != null){
+				queuedSave = task;
+				queuedVersion = version;
+				return queuedSaveFuture;
+			}
+			
+			queuedSave = task;
+			queuedVersion = version;
+			queuedSaveFuture = new CompletableFuture<>();
+			lastSave = lastSave.thenRunAsync(this::writeQueuedSave, r -> {
+				try {
+					executor.execute(r);
+				} catch (RejectedExecutionException ex){
+					r.run();
+				}
+			});
+			
+			return queuedSaveFuture;
+		}
+	}
+	
+	/**
+	 * Blocks until all asynchronous saves of this module are written.
+	 */
+	public void flushSaves(){
+		CompletableFuture<Void> last;
+		synchronized (saveLock) {
+			last = lastSave;
+		}
 		
-		state = ModuleState.STOPPED;
+		try {
+			last.join();
+		} catch (CompletionException | CancellationException ex){
+			//the error has already been logged when the save failed
+		}
+	}
+	
+	private void writeQueuedSave(){
+		SaveTask task;
+		long version;
+		CompletableFuture<Long> future;
+		synchronized (saveLock) {
+			task = queuedSave;
+			version = queuedVersion;
+			future = queuedSaveFuture;
+			queuedSave = null;
+			queuedSaveFuture = null;
+		}
+		
+		long start = System.nanoTime();
+		ResourceMeter meter = ResourceMeter.begin();
+		long written;
+		try {
+			written = task.write();
+		} catch (Throwable t){
+			record(LifecyclePhase.WRITE, start, meter);
+			LyeenPlugin.getLogger().error("Exception trying to save module: " + module.getName(), t);
+			future.completeExceptionally(t);
+			return;
+		}
+		
+		record(LifecyclePhase.WRITE, start, meter);
+		savedVersion = version;
+		future.complete(Math.max(written, 0));
 	}
 	
 	/**
-	 * Reads all fields of the {@link Module} and returns the types of those fields that are annotated with {@link Depends}.
+	 * Returns the types of all fields of the {@link Module} that are annotated with {@link Depends}.
 	 *  
-	 * @return a collection of all module-types this module depends on
+	 * @return an unmodifiable collection of all module-types this module depends on
 	 */
-	@SuppressWarnings("unchecked")
 	public Collection<Class<? extends Module>> getDependencies(){
-		return getModuleFields(module.getClass(), Depends.class).stream()
-				.map(f -> (Class<? extends Module>) f.getType())
-				.collect(Collectors.toSet());
+		return descriptor.getDependencyTypes();
 	}
 
 	/**
-	 * Reads all fields of the {@link Module} and returns the types of those fields that are annotated with {@link Uses}.
+	 * Returns the types of all fields of the {@link Module} that are annotated with {@link Uses}.
 	 *  
-	 * @return a collection of all module-types this module uses
+	 * @return an unmodifiable collection of all module-types this module uses
 	 */
-	@SuppressWarnings("unchecked")
 	public Collection<Class<? extends Module>> getUsedModules(){
-		return getModuleFields(module.getClass(), Uses.class).stream()
-				.map(f -> (Class<? extends Module>) f.getType())
-				.collect(Collectors.toSet());
+		return descriptor.getUsedTypes();
+	}
+	
+	/**
+	 * Returns the types of all fields of the {@link Module} that are annotated with {@link Depends} and are not set yet.
+	 *  
+	 * @return a collection of all module-types this module is still missing
+	 */
+	public Collection<Class<? extends Module>> getMissingDependencies(){
+		Set<Class<? extends Module>> missing = new LinkedHashSet<>();
+		for (InjectionPoint point : descriptor.getDependencies()){
+			if (!point.isSet(module)) missing.add(point.getType());
+		}
+		return missing;
 	}
 	
 	/**
@@ -143,16 +724,7 @@ public class ModuleContainer {
 	 * @return <code>true</code> if all dependencies are set and false otherwise
 	 */
 	public boolean hasAllDependenciesSet(){
-		return getModuleFields(module.getClass(), Depends.class).stream()
-			.allMatch(f -> {
-				try {
-					f.setAccessible(true);
-					return f.get(module) != null;
-				} catch (SecurityException | IllegalArgumentException | IllegalAccessException ex){
-					LyeenPlugin.getLogger().error("Could not access dependency field! (Field " + f.getName() + " of " + f.getType().getName() + ") ", ex);
-					return false;
-				}
-			});
+		return allSet(descriptor.getDependencies());
 	}
 	
 	/**
@@ -160,16 +732,7 @@ public class ModuleContainer {
 	 * @return <code>true</code> if all fields are set and false otherwise
 	 */
 	public boolean hasAllUsedModulesSet(){
-		return getModuleFields(module.getClass(), Uses.class).stream()
-			.allMatch(f -> {
-				try {
-					f.setAccessible(true);
-					return f.get(module) != null;
-				} catch (SecurityException | IllegalArgumentException | IllegalAccessException ex){
-					LyeenPlugin.getLogger().error("Could not access field! (Field " + f.getName() + " of " + f.getType().getName() + ") ", ex);
-					return false;
-				}
-			});
+		return allSet(descriptor.getUsedModules());
 	}
 	
 	/**
@@ -178,18 +741,7 @@ public class ModuleContainer {
 	 * @param offer the {@link Module} instance to offer
 	 */
 	public void offerDependency(Module offer){
-		for(Field f : getModuleFields(module.getClass(), Depends.class)){
-			try {
-				f.setAccessible(true);
-				if (f.getType().isInstance(offer)){
-					if (f.get(module) == null){
-						f.set(module, offer);
-					}
-				}
-			} catch (SecurityException | IllegalArgumentException | IllegalAccessException ex){
-				LyeenPlugin.getLogger().error("Could not inject module! (Field " + f.getName() + " of " + f.getType().getName() + ") ", ex);
-			}
-		}
+		offer(descriptor.getDependencies(), offer);
 	}
 	
 	/**
@@ -198,42 +750,101 @@ public class ModuleContainer {
 	 * @param offer the {@link Module} instance to offer
 	 */
 	public void offerToUse(Module offer){
-		for(Field f : getModuleFields(module.getClass(), Uses.class)){
+		offer(descriptor.getUsedModules(), offer);
+	}
+	
+	/**
+	 * Injects every dependency-field of this {@link Module} that is not set yet, with the {@link Module} the resolver returns for the type of the field.
+	 * 
+	 * @param resolver returns the {@link Module} instance to inject for a type, or <code>null</code> if there is none
+	 */
+	void injectDependencies(Function<Class<? extends Module>, Module> resolver){
+		inject(descriptor.getDependencies(), resolver);
+	}
+	
+	/**
+	 * Injects every with {@link Uses} annotated field of this {@link Module} that is not set yet, with the {@link Module} the resolver returns for the type of the field.
+	 * 
+	 * @param resolver returns the {@link Module} instance to inject for a type, or <code>null</code> if there is none
+	 */
+	void injectUsedModules(Function<Class<? extends Module>, Module> resolver){
+		inject(descriptor.getUsedModules(), resolver);
+	}
+	
+	/**
+	 * Removes the parameter {@link Module} instance from every field of this {@link Module} that is annotated with {@link Depends} or {@link Uses}.
+	 * 
+	 * @param module the {@link Module} instance to remove
+	 */
+	public void removeDependencyOrUse(Module module){
+		remove(descriptor.getDependencies(), module);
+		remove(descriptor.getUsedModules(), module);
+	}
+	
+	/**
+	 * Returns the {@link Module} instances that are currently injected into the with {@link Depends} annotated fields of this {@link Module}.
+	 */
+	List<Module> getInjectedDependencies(){
+		InjectionPoint[] points = descriptor.getDependencies();
+		List<Module> injected = new ArrayList<>(points.length);
+		for (InjectionPoint point : points){
 			try {
-				f.setAccessible(true);
-				if (f.getType().isInstance(offer)){
-					if (f.get(module) == null){
-						f.set(module, offer);
-					}
-				}
-			} catch (SecurityException | IllegalArgumentException | IllegalAccessException ex){
-				LyeenPlugin.getLogger().error("Could not inject module! (Field " + f.getName() + " of " + f.getType().getName() + ") ", ex);
+				Module dependency = point.get(module);
+				if (dependency != null) injected.add(dependency);
+			} catch (IllegalStateException ex){
+				LyeenPlugin.getLogger().error("Could not access field! (Field " + point.getName() + ") ", ex);
 			}
 		}
+		return injected;
 	}
 	
-	public void removeDependencyOrUse(Module module){
-		
+	ModuleDescriptor getDescriptor(){
+		return descriptor;
 	}
 	
-	private Collection<Field> getModuleFields(Class<?> type, Class<?> annotation){
-		ArrayList<Field> depList = new ArrayList<>();
-		
-		Class<?> parent = type.getSuperclass();
-		if (parent != null) depList.addAll(getModuleFields(parent, annotation));
-		
-		for (Field f : type.getDeclaredFields()){
+	private boolean allSet(InjectionPoint[] points){
+		for (InjectionPoint point : points){
 			try {
-				f.setAccessible(true);
-				if (f.getAnnotation(Depends.class) != null){
-					if (Module.class.isAssignableFrom(f.getType())) depList.add(f);
-				}
-			} catch (SecurityException ex){
-				LyeenPlugin.getLogger().warn("Could not access field " + f.getName() + " of " + type.getName() + ": " + ex);
+				if (!point.isSet(module)) return false;
+			} catch (IllegalStateException ex){
+				LyeenPlugin.getLogger().error("Could not access field! (Field " + point.getName() + ") ", ex);
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void inject(InjectionPoint[] points, Function<Class<? extends Module>, Module> resolver){
+		for (InjectionPoint point : points){
+			try {
+				if (point.isSet(module)) continue;
+				
+				Module offer = resolver.apply(point.getType());
+				if (offer != null) point.offer(module, offer);
+			} catch (IllegalStateException ex){
+				LyeenPlugin.getLogger().error("Could not inject module! (Field " + point.getName() + ") ", ex);
+			}
+		}
+	}
+	
+	private void remove(InjectionPoint[] points, Module remove){
+		for (InjectionPoint point : points){
+			try {
+				if (point.get(module) == remove) point.set(module, null);
+			} catch (IllegalStateException ex){
+				LyeenPlugin.getLogger().error("Could not remove module! (Field " + point.getName() + ") ", ex);
+			}
+		}
+	}
+	
+	private void offer(InjectionPoint[] points, Module offer){
+		for (InjectionPoint point : points){
+			try {
+				point.offer(module, offer);
+			} catch (IllegalStateException ex){
+				LyeenPlugin.getLogger().error("Could not inject module! (Field " + point.getName() + ") ", ex);
 			}
 		}
-		
-		return depList;
 	}
 	
 }
\ No newline at end of file
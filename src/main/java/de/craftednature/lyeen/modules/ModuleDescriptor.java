@@ -0,0 +1,198 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Immutable description of all {@link InjectionPoint}s of a {@link Module}-type.<br>
+ * The descriptor of a type is only created once (on first use) and then cached, so the reflection on the fields only happens once per type.<br>
+ * If a generated {@link ModuleInjector} exists for the type, it is used instead and no reflection on the fields is needed at all.
+ */
+final class ModuleDescriptor {
+	
+	private static final ClassValue<ModuleDescriptor> DESCRIPTORS = new ClassValue<ModuleDescriptor>() {
+		@Override
+		protected ModuleDescriptor computeValue(Class<?> type) {
+			return new ModuleDescriptor(type);
+		}
+	};
+	
+	private final InjectionPoint[] dependencies;
+	private final InjectionPoint[] usedModules;
+	
+	private final Set<Class<? extends Module>> dependencyTypes;
+	private final Set<Class<? extends Module>> usedTypes;
+	
+	private final ModuleInjector injector;
+	private final Lazy lazy;
+	private final AutoSave autoSave;
+	
+	private ModuleDescriptor(Class<?> type) {
+		this.injector = findInjector(type);
+		this.lazy = type.getAnnotation(Lazy.class);
+		this.autoSave = type.getAnnotation(AutoSave.class);
+		
+		if (injector != null){
+			this.dependencies = new InjectionPoint[injector.getDependencyTypes().length];
+			for (int i = 0; i < dependencies.length; i++) dependencies[i] = InjectionPoint.of(injector, i, true);
+			
+			this.usedModules = new InjectionPoint[injector.getUsedTypes().length];
+			for (int i = 0; i < usedModules.length; i++) usedModules[i] = InjectionPoint.of(injector, i, false);
+		} else {
+			this.dependencies = findInjectionPoints(type, Depends.class);
+			this.usedModules = findInjectionPoints(type, Uses.class);
+		}
+		
+		this.dependencyTypes = collectTypes(dependencies);
+		this.usedTypes = collectTypes(usedModules);
+	}
+	
+	/**
+	 * Returns the (cached) descriptor for this {@link Module}-type.
+	 */
+	public static ModuleDescriptor of(Class<? extends Module> type){
+		return DESCRIPTORS.get(type);
+	}
+	
+	/**
+	 * Returns the generated {@link ModuleInjector} of this type, or <code>null</code> if there is none.
+	 */
+	public ModuleInjector getInjector(){
+		return injector;
+	}
+	
+	/**
+	 * Returns the {@link Lazy}-annotation of this type, or <code>null</code> if the type is not lazy.
+	 */
+	public Lazy getLazy(){
+		return lazy;
+	}
+	
+	/**
+	 * Returns the {@link AutoSave}-annotation of this type, or <code>null</code> if the type is not annotated.
+	 */
+	public AutoSave getAutoSave(){
+		return autoSave;
+	}
+	
+	/**
+	 * All fields that are annotated with {@link Depends}.<br>
+	 * <i>(The returned array is shared and must not be modified)</i>
+	 */
+	public InjectionPoint[] getDependencies(){
+		return dependencies;
+	}
+	
+	/**
+	 * All fields that are annotated with {@link Uses}.<br>
+	 * <i>(The returned array is shared and must not be modified)</i>
+	 */
+	public InjectionPoint[] getUsedModules(){
+		return usedModules;
+	}
+	
+	/**
+	 * An unmodifiable set of the types of all {@link Depends}-fields
+	 */
+	public Set<Class<? extends Module>> getDependencyTypes(){
+		return dependencyTypes;
+	}
+	
+	/**
+	 * An unmodifiable set of the types of all {@link Uses}-fields
+	 */
+	public Set<Class<? extends Module>> getUsedTypes(){
+		return usedTypes;
+	}
+	
+	/**
+	 * Returns the name the generated {@link ModuleInjector} for this type has.
+	 */
+	static String getInjectorName(Class<?> type){
+		String name = type.getName();
+		int packageEnd = name.lastIndexOf('.') + 1;
+		return name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_') + ModuleInjector.CLASS_SUFFIX;
+	}
+	
+	private static ModuleInjector findInjector(Class<?> type){
+		Class<?> injectorClass;
+		try {
+			injectorClass = Class.forName(getInjectorName(type), true, type.getClassLoader());
+		} catch (ClassNotFoundException | LinkageError ex){
+			return null;
+		}
+		
+		if (!ModuleInjector.class.isAssignableFrom(injectorClass)) return null;
+		
+		try {
+			ModuleInjector injector = (ModuleInjector) injectorClass.getDeclaredConstructor().newInstance();
+			if (injector.getModuleType() != type) return null;
+			return injector;
+		} catch (ReflectiveOperationException | SecurityException ex){
+			LyeenPlugin.getLogger().warn("Could not create injector " + injectorClass.getName() + ": " + ex);
+			return null;
+		}
+	}
+	
+	private static InjectionPoint[] findInjectionPoints(Class<?> type, Class<? extends Annotation> annotation){
+		List<InjectionPoint> points = new ArrayList<>();
+		collectInjectionPoints(type, annotation, points);
+		return points.toArray(new InjectionPoint[points.size()]);
+	}
+	
+	private static void collectInjectionPoints(Class<?> type, Class<? extends Annotation> annotation, List<InjectionPoint> points){
+		Class<?> parent = type.getSuperclass();
+		if (parent != null) collectInjectionPoints(parent, annotation, points);
+		
+		for (Field f : type.getDeclaredFields()){
+			if (f.getAnnotation(annotation) == null) continue;
+			if (!Module.class.isAssignableFrom(f.getType())) continue;
+			
+			try {
+				points.add(InjectionPoint.of(f));
+			} catch (SecurityException | IllegalAccessException ex){
+				LyeenPlugin.getLogger().warn("Could not access field " + f.getName() + " of " + type.getName() + ": " + ex);
+			}
+		}
+	}
+	
+	private static Set<Class<? extends Module>> collectTypes(InjectionPoint[] points){
+		Set<Class<? extends Module>> types = new LinkedHashSet<>();
+		for (InjectionPoint point : points) types.add(point.getType());
+		return Collections.unmodifiableSet(types);
+	}
+	
+}
@@ -0,0 +1,263 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Finds the {@link Module}s in the add-on jars of a directory.<br>
+ * <br>
+ * The modules of a jar are read from its {@link ModuleIndex module-index}. Jars without an index are scanned for {@link Module}-classes instead, which is a lot slower.<br>
+ * The result for every jar is cached in a file in the directory, together with the size and the last-modified time of the jar,
+ * so jars that have not changed since the last startup don't need to be opened at all.
+ */
+final class ModuleDiscovery {
+	
+	private static final String CACHE_FILE = "modules.cache";
+	private static final String JAR_EXTENSION = ".jar";
+	private static final String CLASS_EXTENSION = ".class";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	
+	private final Path directory;
+	private final Path cacheFile;
+	
+	private int cachedJars, indexedJars, scannedJars;
+	
+	ModuleDiscovery(Path directory) {
+		this.directory = directory;
+		this.cacheFile = directory.resolve(CACHE_FILE);
+	}
+	
+	/**
+	 * All jars in the directory, sorted by their name.
+	 */
+	List<Path> findJars() throws IOException {
+		if (!Files.isDirectory(directory)) return Collections.emptyList();
+		
+		try (Stream<Path> stream = Files.list(directory)){
+			return stream
+					.filter(p -> p.getFileName().toString().endsWith(JAR_EXTENSION) && Files.isRegularFile(p))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+	
+	/**
+	 * Finds the class-names of all {@link Module}s in these jars, and updates the cache.
+	 * 
+	 * @param jars the jars to search
+	 * @param classLoader the {@link ClassLoader} that can load the classes of the jars, used to scan jars without a module-index
+	 */
+	Set<String> discover(List<Path> jars, ClassLoader classLoader){
+		Map<String, CacheEntry> cache = readCache();
+		Map<String, CacheEntry> updated = new LinkedHashMap<>();
+		Set<String> names = new LinkedHashSet<>();
+		
+		for (Path jar : jars){
+			String key = jar.getFileName().toString();
+			
+			try {
+				long size = Files.size(jar);
+				long modified = Files.getLastModifiedTime(jar).toMillis();
+				
+				CacheEntry entry = cache.get(key);
+				if (entry == null || entry.size != size || entry.modified != modified){
+					entry = new CacheEntry(size, modified, readJar(jar, classLoader));
+				} else {
+					cachedJars++;
+				}
+				
+				updated.put(key, entry);
+				names.addAll(entry.modules);
+			} catch (IOException ex){
+				LyeenPlugin.getLogger().error("Failed to read the modules of: " + jar, ex);
+			}
+		}
+		
+		if (!updated.equals(cache)){
+			try {
+				writeCache(updated);
+			} catch (IOException ex){
+				LyeenPlugin.getLogger().warn("Failed to write the module-cache: " + ex);
+			}
+		}
+		
+		return names;
+	}
+	
+	private List<String> readJar(Path jar, ClassLoader classLoader) throws IOException {
+		try (JarFile jarFile = new JarFile(jar.toFile())){
+			JarEntry index = jarFile.getJarEntry(ModuleIndex.RESOURCE);
+			if (index != null){
+				indexedJars++;
+				
+				Set<String> names = new LinkedHashSet<>();
+				try (InputStream in = jarFile.getInputStream(index)){
+					ModuleIndex.read(in, names);
+				}
+				return new ArrayList<>(names);
+			}
+			
+			scannedJars++;
+			LyeenPlugin.getLogger().info("The add-on " + jar.getFileName() + " has no module-index, scanning all its classes...");
+			
+			List<String> names = new ArrayList<>();
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while (entries.hasMoreElements()){
+				String entry = entries.nextElement().getName();
+				if (!entry.endsWith(CLASS_EXTENSION) || entry.startsWith("META-INF/") || entry.endsWith("module-info" + CLASS_EXTENSION)) continue;
+				
+				String className = entry.substring(0, entry.length() - CLASS_EXTENSION.length()).replace('/', '.');
+				if (isModule(className, classLoader)) names.add(className);
+			}
+			return names;
+		}
+	}
+	
+	private static boolean isModule(String className, ClassLoader classLoader){
+		try {
+			Class<?> type = Class.forName(className, false, classLoader);
+			return Module.class.isAssignableFrom(type) && !type.isInterface() && !Modifier.isAbstract(type.getModifiers());
+		} catch (ClassNotFoundException | LinkageError ex){
+			return false;
+		}
+	}
+	
+	/**
+	 * How many jars have been skipped, because they have not changed since they have been cached.
+	 */
+	int getCachedJars(){
+		return cachedJars;
+	}
+	
+	int getIndexedJars(){
+		return indexedJars;
+	}
+	
+	int getScannedJars(){
+		return scannedJars;
+	}
+	
+	/**
+	 * Reads the cache-file. Every line contains the name, size, last-modified time and modules of one jar, separated by tabs.
+	 */
+	private Map<String, CacheEntry> readCache(){
+		Map<String, CacheEntry> cache = new HashMap<>();
+		
+		try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)){
+			String line;
+			while ((line = reader.readLine()) != null){
+				String[] parts = line.split("\t", -1);
+				if (parts.length != 4) continue;
+				
+				try {
+					List<String> modules = parts[3].isEmpty() ? Collections.emptyList() : Arrays.asList(parts[3].split(","));
+					cache.put(parts[0], new CacheEntry(Long.parseLong(parts[1]), Long.parseLong(parts[2]), modules));
+				} catch (NumberFormatException ignore){}
+			}
+		} catch (NoSuchFileException ex){
+			//nothing cached yet
+		} catch (IOException ex){
+			LyeenPlugin.getLogger().warn("Failed to read the module-cache: " + ex);
+		}
+		
+		return cache;
+	}
+	
+	private void writeCache(Map<String, CacheEntry> cache) throws IOException {
+		Path temp = cacheFile.resolveSibling(cacheFile.getFileName() + TEMP_FILE_EXTENSION);
+		
+		try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)){
+			for (Map.Entry<String, CacheEntry> e : cache.entrySet()){
+				CacheEntry entry = e.getValue();
+				writer.write(e.getKey() + "\t" + entry.size + "\t" + entry.modified + "\t" + StringUtils.join(entry.modules, ","));
+				writer.newLine();
+			}
+		}
+		
+		try {
+			Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException ex){
+			Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	private static class CacheEntry {
+		
+		private final long size;
+		private final long modified;
+		private final List<String> modules;
+		
+		private CacheEntry(long size, long modified, List<String> modules) {
+			this.size = size;
+			this.modified = modified;
+			this.modules = modules;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheEntry)) return false;
+			CacheEntry other = (CacheEntry) obj;
+			return size == other.size && modified == other.modified && modules.equals(other.modules);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Long.hashCode(size) * 31 + Long.hashCode(modified);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,343 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * An event bus that modules can use to notify each other, without depending on each other.<br>
+ * <br>
+ * Listeners are either methods annotated with {@link Subscribe}, which are registered automatically when their {@link Module} is started,
+ * or registered with {@link #register(Module, Class, Consumer)}. All listeners of a {@link Module} are unregistered when it is stopped.<br>
+ * <br>
+ * The listeners for each event-class are resolved once and cached as an array, and annotated methods are invoked through a bound {@link MethodHandle},
+ * so posting an event to synchronous listeners does not allocate anything.
+ */
+public final class ModuleEventBus {
+	
+	private static final MethodType LISTENER_TYPE = MethodType.methodType(void.class, Object.class);
+	private static final Listener[] NO_LISTENERS = new Listener[0];
+	
+	private static final Comparator<Listener> ORDER = Comparator.comparingInt((Listener l) -> -l.priority).thenComparingLong(l -> l.id);
+	
+	private static final ClassValue<SubscriberMethod[]> SUBSCRIBERS = new ClassValue<SubscriberMethod[]>() {
+		@Override
+		protected SubscriberMethod[] computeValue(Class<?> type) {
+			return findSubscriberMethods(type);
+		}
+	};
+	
+	private final ModuleManager manager;
+	private final Map<Class<?>, Listener[]> listeners;
+	private volatile Map<Class<?>, Listener[]> dispatchCache;
+	private final AtomicLong nextId;
+	
+	ModuleEventBus(ModuleManager manager) {
+		this.manager = manager;
+		this.listeners = new ConcurrentHashMap<>();
+		this.dispatchCache = new ConcurrentHashMap<>();
+		this.nextId = new AtomicLong();
+	}
+	
+	/**
+	 * Posts the event to all listeners of its type.<br>
+	 * Synchronous listeners are called on this thread in the order of their priority, asynchronous listeners are handed to the executors of their modules.
+	 * Exceptions of the listeners are logged.
+	 * 
+	 * @return the number of listeners that received the event
+	 */
+	public int post(Object event){
+		Preconditions.checkNotNull(event);
+		
+		Map<Class<?>, Listener[]> cache = dispatchCache;
+		Listener[] targets = cache.get(event.getClass());
+		if (targets == null){
+			targets = resolve(event.getClass());
+			cache.putIfAbsent(event.getClass(), targets);
+		}
+		
+		for (Listener listener : targets){
+			if (listener.async) deliverAsync(listener, event);
+			else deliverMeasured(listener, event);
+		}
+		
+		return targets.length;
+	}
+	
+	/**
+	 * Registers a listener for events of this type <i>(including all subtypes)</i>.
+	 * 
+	 * @param owner the {@link Module} the listener belongs to, the listener is unregistered when this module is stopped
+	 * @param eventType the type of the events
+	 * @param listener the listener
+	 */
+	public <E> void register(Module owner, Class<E> eventType, Consumer<? super E> listener){
+		register(owner, eventType, 0, false, listener);
+	}
+	
+	/**
+	 * Registers a listener for events of this type <i>(including all subtypes)</i>.
+	 * 
+	 * @param owner the {@link Module} the listener belongs to, the listener is unregistered when this module is stopped
+	 * @param eventType the type of the events
+	 * @param priority listeners with a higher priority receive an event first
+	 * @param async if the events are delivered on the {@link ModuleExecutor} of the owner
+	 * @param listener the listener
+	 */
+	public <E> void register(Module owner, Class<E> eventType, int priority, boolean async, Consumer<? super E> listener){
+		Preconditions.checkNotNull(owner);
+		Preconditions.checkNotNull(eventType);
+		Preconditions.checkNotNull(listener);
+		
+		add(new ConsumerListener(owner, eventType, priority, async, nextId.getAndIncrement(), listener));
+	}
+	
+	/**
+	 * Registers all methods of this {@link Module} that are annotated with {@link Subscribe}.<br>
+	 * This is done automatically when a module is started.
+	 */
+	public void registerAnnotated(Module owner){
+		SubscriberMethod[] methods = SUBSCRIBERS.get(owner.getClass());
+		if (methods.length == 0) return;
+		
+		for (SubscriberMethod method : methods){
+			MethodHandle handle = method.handle.bindTo(owner).asType(LISTENER_TYPE);
+			add(new HandleListener(owner, method.eventType, method.priority, method.async, nextId.getAndIncrement(), handle, method.name));
+		}
+	}
+	
+	/**
+	 * Unregisters all listeners of this {@link Module}.<br>
+	 * This is done automatically when a module is stopped.
+	 */
+	public synchronized void unregister(Module owner){
+		boolean changed = false;
+		for (Entry<Class<?>, Listener[]> e : listeners.entrySet()){
+			Listener[] current = e.getValue();
+			Listener[] remaining = Arrays.stream(current).filter(l -> l.owner != owner).toArray(Listener[]::new);
+			if (remaining.length == current.length) continue;
+			
+			if (remaining.length == 0) listeners.remove(e.getKey());
+			else e.setValue(remaining);
+			changed = true;
+		}
+		
+		if (changed) dispatchCache = new ConcurrentHashMap<>();
+	}
+	
+	private synchronized void add(Listener listener){
+		listener.resources = resourcesOf(listener.owner);
+		
+		Listener[] current = listeners.getOrDefault(listener.eventType, NO_LISTENERS);
+		Listener[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = listener;
+		listeners.put(listener.eventType, updated);
+		
+		dispatchCache = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Collects the listeners of all types this event-class is assignable to, ordered by their priority.
+	 */
+	private Listener[] resolve(Class<?> eventClass){
+		List<Listener> targets = new ArrayList<>();
+		for (Entry<Class<?>, Listener[]> e : listeners.entrySet()){
+			if (e.getKey().isAssignableFrom(eventClass)) targets.addAll(Arrays.asList(e.getValue()));
+		}
+		if (targets.isEmpty()) return NO_LISTENERS;
+		
+		targets.sort(ORDER);
+		return targets.toArray(new Listener[targets.size()]);
+	}
+	
+	private void deliver(Listener listener, Object event){
+		try {
+			listener.invoke(event);
+		} catch (Throwable t){
+			LyeenPlugin.getLogger().error("Exception in event-listener " + listener + " for event: " + event.getClass().getName(), t);
+		}
+	}
+	
+	private void deliverMeasured(Listener listener, Object event){
+		ResourceMeter meter = ResourceMeter.begin();
+		try {
+			deliver(listener, event);
+		} finally {
+			meter.end(listener.resources, ResourceCategory.EVENT);
+		}
+	}
+	
+	private void deliverAsync(Listener listener, Object event){
+		try {
+			manager.getExecutor(listener.owner).execute(() -> deliver(listener, event), ResourceCategory.EVENT);
+		} catch (RuntimeException ex){
+			//the module is stopped or stopping, so it does not receive events anymore
+		}
+	}
+	
+	private ModuleResources resourcesOf(Module owner){
+		ModuleContainer mc = manager.modules.get(owner.getClass());
+		if (mc == null || mc.getModule() != owner) return null;
+		return mc.getResources();
+	}
+	
+	private static SubscriberMethod[] findSubscriberMethods(Class<?> type){
+		List<SubscriberMethod> methods = new ArrayList<>();
+		Set<String> registered = new HashSet<>();
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()){
+			for (Method method : c.getDeclaredMethods()){
+				Subscribe subscribe = method.getAnnotation(Subscribe.class);
+				if (subscribe == null || method.isBridge() || method.isSynthetic()) continue;
+				
+				String name = c.getName() + "#" + method.getName();
+				if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1){
+					LyeenPlugin.getLogger().warn("Ignoring event-listener " + name + ", it needs to be a non-static method with exactly one parameter!");
+					continue;
+				}
+				
+				//a method that is overridden by an already registered listener would invoke the override a second time
+				String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+				if (!Modifier.isPrivate(method.getModifiers()) && !registered.add(signature)) continue;
+				
+				try {
+					method.setAccessible(true);
+					methods.add(new SubscriberMethod(name, method.getParameterTypes()[0], lookup.unreflect(method), subscribe));
+				} catch (IllegalAccessException | RuntimeException ex){
+					LyeenPlugin.getLogger().error("Can't access event-listener: " + name, ex);
+				}
+			}
+		}
+		
+		return methods.toArray(new SubscriberMethod[methods.size()]);
+	}
+	
+	private static final class SubscriberMethod {
+		
+		private final String name;
+		private final Class<?> eventType;
+		private final MethodHandle handle;
+		private final int priority;
+		private final boolean async;
+		
+		private SubscriberMethod(String name, Class<?> eventType, MethodHandle handle, Subscribe subscribe) {
+			this.name = name;
+			this.eventType = eventType.isPrimitive() ? MethodType.methodType(eventType).wrap().returnType() : eventType;
+			this.handle = handle;
+			this.priority = subscribe.priority();
+			this.async = subscribe.async();
+		}
+		
+	}
+	
+	private static abstract class Listener {
+		
+		final Module owner;
+		final Class<?> eventType;
+		final int priority;
+		final boolean async;
+		final long id;
+		ModuleResources resources;
+		
+		Listener(Module owner, Class<?> eventType, int priority, boolean async, long id) {
+			this.owner = owner;
+			this.eventType = eventType;
+			this.priority = priority;
+			this.async = async;
+			this.id = id;
+		}
+		
+		abstract void invoke(Object event) throws Throwable;
+		
+	}
+	
+	private static final class HandleListener extends Listener {
+		
+		private final MethodHandle handle;
+		private final String name;
+		
+		HandleListener(Module owner, Class<?> eventType, int priority, boolean async, long id, MethodHandle handle, String name) {
+			super(owner, eventType, priority, async, id);
+			this.handle = handle;
+			this.name = name;
+		}
+		
+		@Override
+		void invoke(Object event) throws Throwable {
+			handle.invokeExact(event);
+		}
+		
+		@Override
+		public String toString(){
+			return name;
+		}
+		
+	}
+	
+	private static final class ConsumerListener extends Listener {
+		
+		private final Consumer<Object> consumer;
+		
+		@SuppressWarnings("unchecked")
+		ConsumerListener(Module owner, Class<?> eventType, int priority, boolean async, long id, Consumer<?> consumer) {
+			super(owner, eventType, priority, async, id);
+			this.consumer = (Consumer<Object>) consumer;
+		}
+		
+		@Override
+		void invoke(Object event) {
+			consumer.accept(event);
+		}
+		
+		@Override
+		public String toString(){
+			return "of module " + owner.getName();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * The {@link Executor} of a {@link Module} for blocking work like file-I/O or lookups, that should not be done on the main thread.<br>
+ * Get it with {@link ModuleManager#getExecutor(Module)}.<br>
+ * <br>
+ * The tasks run on a thread-pool that is shared by all modules <i>(or on virtual threads, if the runtime supports them)</i>.
+ * Results can be handed back to the main thread using {@link #mainThread()}, these tasks are run in {@link ModuleManager#tick()}.<br>
+ * <br>
+ * When the module is stopped, the executor is shut down and all running and queued tasks are finished before the module is saved and stopped.
+ * Tasks that are submitted after that are rejected, and tasks that are handed back to the main thread after that are dropped.
+ */
+public final class ModuleExecutor implements Executor {
+	
+	private final String name;
+	private final Executor backing;
+	private final Executor mainThread;
+	private final ModuleResources resources;
+	
+	private final Object lock;
+	private int pending;
+	private volatile boolean shutdown;
+	
+	private final AtomicInteger queued;
+	private final AtomicInteger active;
+	private final LongAdder completed;
+	
+	ModuleExecutor(String name, Executor backing, Executor mainThread, ModuleResources resources) {
+		this.name = name;
+		this.backing = backing;
+		this.resources = resources;
+		this.lock = new Object();
+		this.pending = 0;
+		this.shutdown = false;
+		
+		this.queued = new AtomicInteger();
+		this.active = new AtomicInteger();
+		this.completed = new LongAdder();
+		
+		this.mainThread = task -> {
+			if (shutdown) return;
+			
+			mainThread.execute(() -> {
+				if (shutdown) return;
+				
+				ResourceMeter meter = ResourceMeter.begin();
+				try {
+					task.run();
+				} finally {
+					meter.end(resources, ResourceCategory.TASK);
+				}
+			});
+		};
+	}
+	
+	/**
+	 * Runs the task asynchronously.
+	 * 
+	 * @throws RejectedExecutionException if the module is stopped
+	 */
+	@Override
+	public void execute(Runnable task){
+		execute(task, ResourceCategory.ASYNC);
+	}
+	
+	/**
+	 * Runs the task asynchronously and accounts its {@link ModuleResources} to this category.
+	 * 
+	 * @throws RejectedExecutionException if the module is stopped
+	 */
+	void execute(Runnable task, ResourceCategory category){
+		synchronized (lock) {
+			if (shutdown) throw new RejectedExecutionException("The module " + name + " is stopped!");
+			pending++;
+		}
+		
+		queued.incrementAndGet();
+		try {
+			backing.execute(() -> run(task, category));
+		} catch (RejectedExecutionException ex){
+			queued.decrementAndGet();
+			done();
+			throw ex;
+		}
+	}
+	
+	private void run(Runnable task, ResourceCategory category){
+		queued.decrementAndGet();
+		active.incrementAndGet();
+		ResourceMeter meter = ResourceMeter.begin();
+		try {
+			task.run();
+		} catch (Throwable t){
+			LyeenPlugin.getLogger().error("Exception in async task of module: " + name, t);
+		} finally {
+			meter.end(resources, category);
+			active.decrementAndGet();
+			completed.increment();
+			done();
+		}
+	}
+	
+	private void done(){
+		synchronized (lock) {
+			pending--;
+			if (pending == 0) lock.notifyAll();
+		}
+	}
+	
+	/**
+	 * Runs the work asynchronously.
+	 * 
+	 * @return a future that completes with the result of the work
+	 */
+	public <T> CompletableFuture<T> supplyAsync(Supplier<T> work){
+		return CompletableFuture.supplyAsync(work, this);
+	}
+	
+	/**
+	 * Runs the work asynchronously and then hands the result to the callback on the main thread.<br>
+	 * If the work fails, the exception is logged and the callback is not called.
+	 * 
+	 * @return a future that completes with the result of the work <i>(before the callback is called)</i>
+	 */
+	public <T> CompletableFuture<T> supplyAsync(Supplier<T> work, Consumer<? super T> onMainThread){
+		CompletableFuture<T> future = supplyAsync(work);
+		future.whenComplete((result, error) -> {
+			if (error != null){
+				LyeenPlugin.getLogger().error("Exception in async task of module: " + name, error);
+				return;
+			}
+			
+			mainThread.execute(() -> onMainThread.accept(result));
+		});
+		return future;
+	}
+	
+	/**
+	 * An {@link Executor} that runs tasks on the main thread, e.g. to use with {@link CompletableFuture#thenAcceptAsync(Consumer, Executor)}.<br>
+	 * The tasks are run in the next {@link ModuleManager#tick()}, tasks that are handed over after the module has been stopped are dropped.
+	 */
+	public Executor mainThread(){
+		return mainThread;
+	}
+	
+	/**
+	 * The number of tasks that are waiting for a thread.
+	 */
+	public int getQueued(){
+		return queued.get();
+	}
+	
+	/**
+	 * The number of tasks that are running right now.
+	 */
+	public int getActive(){
+		return active.get();
+	}
+	
+	/**
+	 * The number of tasks that have been completed.
+	 */
+	public long getCompleted(){
+		return completed.sum();
+	}
+	
+	public boolean isShutdown(){
+		return shutdown;
+	}
+	
+	/**
+	 * Rejects all new tasks and waits until all running and queued tasks are finished.
+	 * 
+	 * @return <code>true</code> if all tasks are finished, <code>false</code> if the timeout elapsed before
+	 */
+	boolean shutdownAndDrain(long timeout, TimeUnit unit){
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		boolean interrupted = false;
+		
+		try {
+			synchronized (lock) {
+				shutdown = true;
+				
+				while (pending > 0){
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) return false;
+					
+					try {
+						TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+					} catch (InterruptedException ex){
+						interrupted = true;
+					}
+				}
+				
+				return true;
+			}
+		} finally {
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Rejects all new tasks without waiting for the running and queued tasks.
+	 */
+	void shutdown(){
+		synchronized (lock) {
+			shutdown = true;
+		}
+	}
+	
+}
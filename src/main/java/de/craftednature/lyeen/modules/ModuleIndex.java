@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Reads the module-index files that are generated at compile-time by the lyeen module-processor.<br>
+ * An index file contains the binary class-name of one {@link Module} per line.
+ */
+public final class ModuleIndex {
+	
+	/**
+	 * The location of the index-files in a jar
+	 */
+	public static final String RESOURCE = "META-INF/lyeen/modules.index";
+	
+	private ModuleIndex() {}
+	
+	/**
+	 * Reads all index-files that the {@link ClassLoader} can find.
+	 * 
+	 * @return the class-names of all indexed {@link Module}s
+	 */
+	public static Set<String> read(ClassLoader classLoader){
+		Set<String> names = new LinkedHashSet<>();
+		
+		try {
+			Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+			while (resources.hasMoreElements()){
+				URL url = resources.nextElement();
+				try (InputStream in = url.openStream()){
+					read(in, names);
+				} catch (IOException ex){
+					LyeenPlugin.getLogger().error("Failed to read module-index: " + url, ex);
+				}
+			}
+		} catch (IOException ex){
+			LyeenPlugin.getLogger().error("Failed to find module-indices!", ex);
+		}
+		
+		return names;
+	}
+	
+	/**
+	 * Reads an index-file and adds the class-names to the set.
+	 */
+	static void read(InputStream in, Set<String> names) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		
+		String line;
+		while ((line = reader.readLine()) != null){
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) continue;
+			names.add(line);
+		}
+	}
+	
+}
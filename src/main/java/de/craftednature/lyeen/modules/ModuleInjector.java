@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+/**
+ * Provides direct access to the {@link Depends} and {@link Uses} fields of a {@link Module}-type without any reflection.<br>
+ * <br>
+ * Implementations are generated at compile-time by the lyeen module-processor, and are named like the module-class with the suffix <code>_LyeenInjector</code>
+ * <i>(nested classes are separated by <code>_</code>)</i>. If there is no injector for a {@link Module}, the fields are accessed using reflection.<br>
+ * <br>
+ * The returned arrays are shared and must not be modified.
+ */
+public interface ModuleInjector {
+	
+	/**
+	 * The suffix of the name of generated injectors
+	 */
+	public static final String CLASS_SUFFIX = "_LyeenInjector";
+	
+	/**
+	 * The {@link Module}-type this injector belongs to
+	 */
+	public Class<? extends Module> getModuleType();
+	
+	/**
+	 * Creates a new instance of the {@link Module} using its no-args constructor.
+	 * 
+	 * @return the new {@link Module} or <code>null</code> if it has no accessible no-args constructor
+	 */
+	public Module create();
+	
+	/**
+	 * The names of all {@link Depends}-fields in the format <code>declaring.Class#field</code>
+	 */
+	public String[] getDependencyNames();
+	
+	/**
+	 * The types of all {@link Depends}-fields
+	 */
+	public Class<?>[] getDependencyTypes();
+	
+	/**
+	 * Returns the value of the {@link Depends}-field with this index.
+	 */
+	public Module getDependency(Module module, int index);
+	
+	/**
+	 * Sets the value of the {@link Depends}-field with this index.
+	 */
+	public void setDependency(Module module, int index, Module value);
+
+	/**
+	 * The names of all {@link Uses}-fields in the format <code>declaring.Class#field</code>
+	 */
+	public String[] getUsedNames();
+	
+	/**
+	 * The types of all {@link Uses}-fields
+	 */
+	public Class<?>[] getUsedTypes();
+	
+	/**
+	 * Returns the value of the {@link Uses}-field with this index.
+	 */
+	public Module getUsed(Module module, int index);
+	
+	/**
+	 * Sets the value of the {@link Uses}-field with this index.
+	 */
+	public void setUsed(Module module, int index, Module value);
+	
+}
@@ -0,0 +1,247 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Implementation of the logging-methods of {@link Module}.<br>
+ * The level is checked before anything is formatted, so a disabled log-statement does not allocate anything.
+ * The "<code>[Name] </code>"-prefix is cached for every {@link Module}-class that does not override {@link Module#getName()}, 
+ * if the name is overridden the prefix is built again for every log-statement.<br>
+ * <br>
+ * Formatted messages get the prefix as their first argument, so a <code>{}</code> in the name of a module is not taken as a placeholder.
+ * With the prefix, a one-argument message is logged through the two-argument method of SLF4J without a varargs-array, 
+ * messages with two or more arguments need an array.
+ */
+final class ModuleLog {
+	
+	private static final ClassValue<String> PREFIXES = new ClassValue<String>() {
+		@Override
+		protected String computeValue(Class<?> type) {
+			try {
+				if (type.getMethod("getName").getDeclaringClass() != Module.class) return null;
+			} catch (NoSuchMethodException ex){
+				return null;
+			}
+			
+			return prefix(type.getSimpleName());
+		}
+	};
+	
+	private ModuleLog() {}
+	
+	static void log(Module module, Level level, String msg){
+		Logger logger = LyeenPlugin.getLogger();
+		if (level.isEnabled(logger)) level.log(logger, prefix(module) + msg);
+	}
+	
+	static void log(Module module, Level level, String msg, Throwable error){
+		Logger logger = LyeenPlugin.getLogger();
+		if (level.isEnabled(logger)) level.log(logger, prefix(module) + msg, error);
+	}
+	
+	static void log(Module module, Level level, Supplier<String> msg){
+		Logger logger = LyeenPlugin.getLogger();
+		if (level.isEnabled(logger)) level.log(logger, prefix(module) + msg.get());
+	}
+	
+	static void log(Module module, Level level, String format, Object arg){
+		Logger logger = LyeenPlugin.getLogger();
+		if (level.isEnabled(logger)) level.log(logger, "{}" + format, prefix(module), arg);
+	}
+	
+	static void log(Module module, Level level, String format, Object arg1, Object arg2){
+		Logger logger = LyeenPlugin.getLogger();
+		if (level.isEnabled(logger)) level.log(logger, "{}" + format, prefix(module), arg1, arg2);
+	}
+	
+	static void log(Module module, Level level, String format, Object[] args){
+		Logger logger = LyeenPlugin.getLogger();
+		if (!level.isEnabled(logger)) return;
+		
+		Object[] prefixed = new Object[args.length + 1];
+		prefixed[0] = prefix(module);
+		System.arraycopy(args, 0, prefixed, 1, args.length);
+		level.log(logger, "{}" + format, prefixed);
+	}
+	
+	private static String prefix(Module module){
+		String prefix = PREFIXES.get(module.getClass());
+		if (prefix != null) return prefix;
+		
+		return prefix(module.getName());
+	}
+	
+	private static String prefix(String name){
+		return "[" + name + "] ";
+	}
+	
+	enum Level {
+		
+		DEBUG {
+			@Override
+			boolean isEnabled(Logger logger){
+				return logger.isDebugEnabled();
+			}
+			
+			@Override
+			void log(Logger logger, String msg){
+				logger.debug(msg);
+			}
+			
+			@Override
+			void log(Logger logger, String msg, Throwable error){
+				logger.debug(msg, error);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object... args){
+				logger.debug(format, args);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object arg1, Object arg2){
+				logger.debug(format, arg1, arg2);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object arg1, Object arg2, Object arg3){
+				logger.debug(format, arg1, arg2, arg3);
+			}
+		},
+		
+		INFO {
+			@Override
+			boolean isEnabled(Logger logger){
+				return logger.isInfoEnabled();
+			}
+			
+			@Override
+			void log(Logger logger, String msg){
+				logger.info(msg);
+			}
+			
+			@Override
+			void log(Logger logger, String msg, Throwable error){
+				logger.info(msg, error);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object... args){
+				logger.info(format, args);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object arg1, Object arg2){
+				logger.info(format, arg1, arg2);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object arg1, Object arg2, Object arg3){
+				logger.info(format, arg1, arg2, arg3);
+			}
+		},
+		
+		WARN {
+			@Override
+			boolean isEnabled(Logger logger){
+				return logger.isWarnEnabled();
+			}
+			
+			@Override
+			void log(Logger logger, String msg){
+				logger.warn(msg);
+			}
+			
+			@Override
+			void log(Logger logger, String msg, Throwable error){
+				logger.warn(msg, error);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object... args){
+				logger.warn(format, args);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object arg1, Object arg2){
+				logger.warn(format, arg1, arg2);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object arg1, Object arg2, Object arg3){
+				logger.warn(format, arg1, arg2, arg3);
+			}
+		},
+		
+		ERROR {
+			@Override
+			boolean isEnabled(Logger logger){
+				return logger.isErrorEnabled();
+			}
+			
+			@Override
+			void log(Logger logger, String msg){
+				logger.error(msg);
+			}
+			
+			@Override
+			void log(Logger logger, String msg, Throwable error){
+				logger.error(msg, error);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object... args){
+				logger.error(format, args);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object arg1, Object arg2){
+				logger.error(format, arg1, arg2);
+			}
+			
+			@Override
+			void log(Logger logger, String format, Object arg1, Object arg2, Object arg3){
+				logger.error(format, arg1, arg2, arg3);
+			}
+		};
+		
+		abstract boolean isEnabled(Logger logger);
+		abstract void log(Logger logger, String msg);
+		abstract void log(Logger logger, String msg, Throwable error);
+		abstract void log(Logger logger, String format, Object... args);
+		abstract void log(Logger logger, String format, Object arg1, Object arg2);
+		abstract void log(Logger logger, String format, Object arg1, Object arg2, Object arg3);
+		
+	}
+	
+}
@@ -27,24 +27,432 @@
 package de.craftednature.lyeen.modules;
 
 import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import de.craftednature.lyeen.LyeenPlugin;
 
 public class ModuleManager {
 
-	public Map<Class<? extends Module>, ModuleContainer> modules;
+	private static final int SAVE_THREADS = 2;
+	private static final long DEFAULT_MODULE_STOP_TIMEOUT = 30;
+	private static final long DEFAULT_STOP_ALL_TIMEOUT = 120;
+	private static final long IDLE_CHECK_INTERVAL = 1;
+	private static final long DEFAULT_WATCH_DEBOUNCE = 500;
+	private static final long DEFAULT_AUTOSAVE_INTERVAL = 300;
+	private static final int DEFAULT_AUTOSAVES_PER_TICK = 4;
+	private static final long DEFAULT_AUTOSAVE_TICK_BUDGET = 2;
+	private static final long DEFAULT_TASK_TICK_BUDGET = 5;
+	private static final int ASYNC_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * An unmodifiable view of all modules of this manager by their type.
+	 */
+	public final Map<Class<? extends Module>, ModuleContainer> modules;
+	
+	private final ModuleRegistry registry;
+	
+	private Map<Class<? extends Module>, LazyModule> lazyModules;
+	private ScheduledExecutorService idleChecker;
+	private ScheduledExecutorService resourceSummary;
+	private LoadSourceWatcher watcher;
+	
+	private StartupPlan plan;
+	private List<ModuleContainer> startupModules;
+	private DependencyGraph startupGraph;
+	private final LifecycleTrace trace;
+	private Executor startupExecutor;
+	private Executor saveExecutor;
+	private final ExecutorService ownSaveExecutor;
+	private Executor shutdownExecutor;
+	private long moduleStopTimeout;
+	private long stopAllTimeout;
+	private volatile SaveReport lastSaveReport;
+	private final AutoSaveScheduler autoSave;
+	private final ModuleTaskScheduler taskScheduler;
+	private final ExecutorService asyncExecutor;
+	private final boolean virtualThreads;
+	private final Queue<Runnable> mainThreadTasks;
+	private final AtomicInteger mainThreadBacklog;
+	private final ModuleEventBus eventBus;
 	
 	public ModuleManager() {
-		modules = new ConcurrentHashMap<>();
+		registry = new ModuleRegistry();
+		modules = registry.asMap();
+		lazyModules = new ConcurrentHashMap<>();
+		trace = new LifecycleTrace();
+		trace.setRecording(true);
+		idleChecker = null;
+		resourceSummary = null;
+		watcher = null;
+		startupExecutor = null;
+		ownSaveExecutor = createSaveExecutor();
+		saveExecutor = ownSaveExecutor;
+		shutdownExecutor = null;
+		moduleStopTimeout = TimeUnit.SECONDS.toNanos(DEFAULT_MODULE_STOP_TIMEOUT);
+		stopAllTimeout = TimeUnit.SECONDS.toNanos(DEFAULT_STOP_ALL_TIMEOUT);
+		lastSaveReport = null;
+		autoSave = new AutoSaveScheduler(this, TimeUnit.SECONDS.toNanos(DEFAULT_AUTOSAVE_INTERVAL), DEFAULT_AUTOSAVES_PER_TICK, TimeUnit.MILLISECONDS.toNanos(DEFAULT_AUTOSAVE_TICK_BUDGET));
+		taskScheduler = new ModuleTaskScheduler(this, TimeUnit.MILLISECONDS.toNanos(DEFAULT_TASK_TICK_BUDGET));
+		
+		ExecutorService virtualThreadExecutor = createVirtualThreadExecutor();
+		virtualThreads = virtualThreadExecutor != null;
+		asyncExecutor = virtualThreads ? virtualThreadExecutor : createAsyncPool();
+		mainThreadTasks = new ConcurrentLinkedQueue<>();
+		mainThreadBacklog = new AtomicInteger();
+		eventBus = new ModuleEventBus(this);
+	}
+	
+	private static ExecutorService createSaveExecutor(){
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				SAVE_THREADS, SAVE_THREADS, 
+				30, TimeUnit.SECONDS, 
+				new LinkedBlockingQueue<>(), 
+				new ThreadFactoryBuilder().setNameFormat("Lyeen-Save-%d").setDaemon(true).build()
+			);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+	
+	/**
+	 * Creates an executor that starts a new virtual thread for each task, if the runtime supports virtual threads.
+	 * 
+	 * @return the executor or <code>null</code> if virtual threads are not supported
+	 */
+	private static ExecutorService createVirtualThreadExecutor(){
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException ex){
+			return null;
+		}
+	}
+	
+	private static ExecutorService createAsyncPool(){
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+				ASYNC_THREADS, ASYNC_THREADS, 
+				60, TimeUnit.SECONDS, 
+				new LinkedBlockingQueue<>(), 
+				new ThreadFactoryBuilder().setNameFormat("Lyeen-Async-%d").setDaemon(true).build()
+			);
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+	
+	/**
+	 * Prepares a new container to be managed by this manager.
+	 */
+	private void manage(ModuleContainer mc){
+		mc.setTrace(trace);
+		mc.setExecutors(asyncExecutor, this::runOnMainThread);
+		mc.setEventBus(eventBus);
+	}
+	
+	/**
+	 * Returns the {@link ModuleExecutor} of this {@link Module}, for blocking work that should not be done on the main thread.
+	 * 
+	 * @throws IllegalStateException If the module is not present in this manager or is stopped
+	 */
+	public ModuleExecutor getExecutor(Module module){
+		ModuleContainer mc = registry.get(module.getClass());
+		if (mc == null || mc.getModule() != module) throw new IllegalStateException("The module is not present: " + module.getName());
+		
+		return mc.getExecutor();
+	}
+	
+	/**
+	 * Tests if the {@link ModuleExecutor}s use virtual threads. If not, they use a shared pool with one thread per processor.
+	 */
+	public boolean isUsingVirtualThreads(){
+		return virtualThreads;
+	}
+	
+	/**
+	 * Runs the task on the main thread in the next {@link #tick()}.<br>
+	 * This method can be called from any thread.
+	 */
+	public void runOnMainThread(Runnable task){
+		Preconditions.checkNotNull(task);
+		
+		mainThreadBacklog.incrementAndGet();
+		mainThreadTasks.add(task);
+	}
+	
+	/**
+	 * The number of tasks that are waiting to be run on the main thread in the next {@link #tick()}.
+	 */
+	public int getMainThreadBacklog(){
+		return mainThreadBacklog.get();
+	}
+	
+	private void runMainThreadTasks(){
+		//only run the tasks that are already queued, tasks that are added by these tasks are run in the next tick
+		int count = mainThreadBacklog.get();
+		for (int i = 0; i < count; i++){
+			Runnable task = mainThreadTasks.poll();
+			if (task == null) break;
+			mainThreadBacklog.decrementAndGet();
+			
+			try {
+				task.run();
+			} catch (Throwable t){
+				LyeenPlugin.getLogger().error("Exception in main-thread task!", t);
+			}
+		}
+	}
+	
+	/**
+	 * The trace of the {@link LifecyclePhase}s of all modules.<br>
+	 * The trace is recording from the creation of this manager until the end of the first {@link #startAll()}, so it contains the whole boot.
+	 * It can be started again using {@link LifecycleTrace#setRecording(boolean)}, but any later {@link #startAll()} will stop it again.
+	 */
+	public LifecycleTrace getTrace(){
+		return trace;
+	}
+	
+	/**
+	 * Returns the timings of the {@link LifecyclePhase}s of the {@link Module} with this type.
+	 */
+	public Optional<ModuleTimings> getTimings(Class<? extends Module> moduleType){
+		ModuleContainer mc = registry.get(moduleType);
+		if (mc == null) return Optional.empty();
+		return Optional.of(mc.getTimings());
+	}
+	
+	/**
+	 * Returns the cpu-time and the allocated bytes of the {@link Module} with this type.
+	 */
+	public Optional<ModuleResources> getResources(Class<? extends Module> moduleType){
+		ModuleContainer mc = registry.get(moduleType);
+		if (mc == null) return Optional.empty();
+		return Optional.of(mc.getResources());
+	}
+	
+	/**
+	 * Logs a {@link #logResourceSummary() summary of the resources} of all modules every <code>interval</code>, until {@link #stopAll()} is called.<br>
+	 * An interval of <code>0</code> <i>(default)</i> disables the summary.
+	 */
+	public synchronized void setResourceSummaryInterval(long interval, TimeUnit unit){
+		Preconditions.checkArgument(interval >= 0, "The interval can't be negative!");
+		
+		if (resourceSummary != null){
+			resourceSummary.shutdownNow();
+			resourceSummary = null;
+		}
+		if (interval == 0) return;
+		
+		resourceSummary = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("Lyeen-ResourceSummary").setDaemon(true).build());
+		resourceSummary.scheduleWithFixedDelay(this::logResourceSummary, interval, interval, unit);
+	}
+	
+	/**
+	 * {@link ModuleResources#sample() Samples} the resources of all modules and logs the cpu-usage and the allocation-rate of each module since the last sample, 
+	 * the modules that use the most cpu-time first.
+	 */
+	public void logResourceSummary(){
+		try {
+			List<ModuleContainer> containers = new ArrayList<>(registry.values());
+			for (ModuleContainer mc : containers) mc.getResources().sample();
+			containers.sort(Comparator.comparingDouble((ModuleContainer mc) -> mc.getResources().getCpuUsage()).reversed());
+			
+			StringBuilder summary = new StringBuilder("Resource usage of the modules:");
+			for (ModuleContainer mc : containers){
+				ModuleResources resources = mc.getResources();
+				summary.append("\n  ").append(mc.getModule().getName())
+					.append(": cpu ").append(String.format(Locale.ROOT, "%.2f%%", resources.getCpuUsage() * 100))
+					.append(" (total ").append(resources.getCpuTime(TimeUnit.MILLISECONDS)).append("ms)")
+					.append(", allocated ").append(formatBytes(resources.getAllocationRate())).append("/s")
+					.append(" (total ").append(formatBytes(resources.getAllocatedBytes())).append(")");
+			}
+			
+			LyeenPlugin.getLogger().info(summary.toString());
+		} catch (RuntimeException ex){
+			LyeenPlugin.getLogger().error("Failed to create the resource-summary!", ex);
+		}
+	}
+	
+	private static String formatBytes(double bytes){
+		if (bytes < 1024) return String.format(Locale.ROOT, "%.0fB", bytes);
+		if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1fKiB", bytes / 1024);
+		if (bytes < 1024 * 1024 * 1024) return String.format(Locale.ROOT, "%.1fMiB", bytes / (1024 * 1024));
+		return String.format(Locale.ROOT, "%.2fGiB", bytes / (1024 * 1024 * 1024));
+	}
+	
+	/**
+	 * Analyzes the dependencies of all currently registered modules, see {@link DependencyGraph}.
+	 */
+	public DependencyGraph analyzeDependencies(){
+		return DependencyGraph.analyze(registry.values());
+	}
+	
+	/**
+	 * The analysis of the dependencies of the last {@link #startAll()}.<br>
+	 * Other than {@link #analyzeDependencies()} it also contains the modules that could not be started, because they were missing dependencies or were part of a cycle.<br>
+	 * The analysis is done on the first call of this method, not during {@link #startAll()}.
+	 */
+	public synchronized Optional<DependencyGraph> getStartupGraph(){
+		if (startupGraph == null && startupModules != null) startupGraph = DependencyGraph.analyze(startupModules);
+		return Optional.ofNullable(startupGraph);
+	}
+	
+	private synchronized void setStartupModules(List<ModuleContainer> modules, DependencyGraph graph){
+		this.startupModules = modules;
+		this.startupGraph = graph;
+	}
+	
+	/**
+	 * Sets the {@link Executor} that is used by {@link #startAll()} to initialize the modules in parallel.<br>
+	 * Every module is initialized on the executor as soon as all its dependencies are initialized, so independent modules are initialized at the same time.
+	 * {@link Module#start()} is still called on the thread that calls {@link #startAll()}.<br>
+	 * <br>
+	 * If this is <code>null</code> <i>(default)</i>, all modules are initialized one after another on the thread that calls {@link #startAll()}.
+	 */
+	public void setStartupExecutor(Executor startupExecutor){
+		this.startupExecutor = startupExecutor;
+	}
+	
+	public Optional<Executor> getStartupExecutor(){
+		return Optional.ofNullable(startupExecutor);
+	}
+	
+	/**
+	 * Sets the {@link Executor} that writes the data of asynchronous saves.<br>
+	 * By default a small pool of daemon-threads is used, that is shut down by {@link #stopAll()}. An executor that is set here is left running.
+	 */
+	public void setSaveExecutor(Executor saveExecutor){
+		Preconditions.checkNotNull(saveExecutor);
+		this.saveExecutor = saveExecutor;
+	}
+	
+	public Executor getSaveExecutor(){
+		return saveExecutor;
+	}
+	
+	/**
+	 * Sets the {@link Executor} that is used by {@link #stopAll()} to save and stop the modules in parallel.<br>
+	 * If this is <code>null</code> <i>(default)</i>, a temporary thread-pool is used for each call of {@link #stopAll()}.
+	 */
+	public void setShutdownExecutor(Executor shutdownExecutor){
+		this.shutdownExecutor = shutdownExecutor;
+	}
+	
+	public Optional<Executor> getShutdownExecutor(){
+		return Optional.ofNullable(shutdownExecutor);
+	}
+	
+	/**
+	 * Sets the time {@link #stopAll()} waits for a single module to save and stop, and the time it waits for all modules together.<br>
+	 * Modules that are not stopped after this time are marked as {@link ModuleState#STOPPED} anyways.
+	 * 
+	 * @param moduleTimeout the maximum time to wait for a single module
+	 * @param totalTimeout the maximum time to wait for all modules
+	 * @param unit the unit of both timeouts
+	 */
+	public void setStopTimeouts(long moduleTimeout, long totalTimeout, TimeUnit unit){
+		Preconditions.checkArgument(moduleTimeout > 0 && totalTimeout > 0, "Timeouts must be greater than 0!");
+		
+		this.moduleStopTimeout = unit.toNanos(moduleTimeout);
+		this.stopAllTimeout = unit.toNanos(totalTimeout);
+	}
+	
+	/**
+	 * Sets the interval in which modules are saved automatically, if they have no {@link AutoSave}-annotation. <i>(Default: 5 minutes)</i><br>
+	 * <code>0</code> disables the automatic saving of these modules.
+	 */
+	public void setAutoSaveInterval(long interval, TimeUnit unit){
+		Preconditions.checkArgument(interval >= 0, "The interval can't be negative!");
+		autoSave.setDefaultInterval(unit.toNanos(interval));
+	}
+	
+	/**
+	 * Sets the interval in which the {@link Module} with this type is saved automatically, this overrides its {@link AutoSave}-annotation.<br>
+	 * <code>0</code> disables the automatic saving of this module.
+	 */
+	public void setAutoSaveInterval(Class<? extends Module> moduleType, long interval, TimeUnit unit){
+		Preconditions.checkArgument(interval >= 0, "The interval can't be negative!");
+		autoSave.setInterval(moduleType, unit.toNanos(interval));
+	}
+	
+	/**
+	 * Returns the interval in which the {@link Module} with this type is saved automatically, <code>0</code> means it is not saved automatically.
+	 */
+	public long getAutoSaveInterval(Class<? extends Module> moduleType, TimeUnit unit){
+		return unit.convert(autoSave.getInterval(moduleType), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Sets how many modules can be saved automatically in one tick, and how much time of a tick can be used for it. <i>(Default: 4 modules and 2ms)</i><br>
+	 * Modules that are due but exceed the budget are saved in the next ticks.
+	 */
+	public void setAutoSaveBudget(int maxSavesPerTick, long tickBudget, TimeUnit unit){
+		Preconditions.checkArgument(maxSavesPerTick > 0 && tickBudget > 0, "The budget must be greater than 0!");
+		autoSave.setBudget(maxSavesPerTick, unit.toNanos(tickBudget));
+	}
+	
+	/**
+	 * The {@link ModuleEventBus} that the modules of this manager use to notify each other.
+	 */
+	public ModuleEventBus getEventBus(){
+		return eventBus;
+	}
+	
+	/**
+	 * The scheduler that runs the {@link TickTask}s of the modules.
+	 */
+	public ModuleTaskScheduler getTaskScheduler(){
+		return taskScheduler;
+	}
+	
+	/**
+	 * This method needs to be called on the main thread once every server-tick.<br>
+	 * It runs the tasks that have been handed over to the main thread, the due tasks of the {@link #getTaskScheduler() task-scheduler}, 
+	 * and saves the modules that are due to be saved automatically, see {@link AutoSave}.
+	 */
+	public void tick(){
+		runMainThreadTasks();
+		taskScheduler.tick();
+		autoSave.tick();
 	}
 	
 	/**
@@ -54,58 +462,307 @@ public class ModuleManager {
 	 * {@link Module}s that are already initialized will not be initialized again.<br>
 	 * {@link Module}s that are already started will not be started again.<br>
 	 * <br>
-	 * Modules that cannot be started <i>(due to an error)</i>, will be removed.
+	 * Modules that cannot be started <i>(due to an error)</i>, will be removed.<br>
+	 * <br>
+	 * If a {@link #setStartupExecutor(Executor) startup-executor} is set, independent modules are initialized in parallel.<br>
+	 * <br>
+	 * {@link Lazy} modules are not initialized, unless another module needs them and can't use a proxy.
 	 */
 	public void startAll(){
+		long start = System.nanoTime();
 		
-		//init all modules
-		Set<ModuleContainer> stack = new HashSet<>();
-		stack.addAll(modules.values());
+		List<ModuleContainer> containers = new ArrayList<>(registry.values());
+		StartupPlan plan = StartupPlan.resolve(containers);
+		trace.record("resolve", "ModuleManager", start, -1);
 		
-		stackLoop:
-		while(!stack.isEmpty()){
-			Iterator<ModuleContainer> stackIterator = stack.iterator();
-			
-			while (stackIterator.hasNext()){
-				ModuleContainer mc = stackIterator.next();
-				if (mc.hasAllDependenciesSet()){
-					
-					try {
-						if (mc.getState() == ModuleState.CONSTRUCTED) mc.initModule();
-						stack.forEach(c -> c.offerDependency(mc.getModule()));
-					} catch (Throwable t){
-						modules.remove(mc.getType());
-						LyeenPlugin.getLogger().error("Failed to initialize module: " + mc.getModule().getName(), t);
-					}
-
-					stackIterator.remove();
-					continue stackLoop;
-				}
+		//the graph is only needed here to report cycles, otherwise it is created by getStartupGraph()
+		DependencyGraph graph = null;
+		if (!plan.getUnsatisfied().isEmpty()){
+			graph = DependencyGraph.analyze(containers);
+			for (List<ModuleContainer> cycle : graph.getCycles()){
+				LyeenPlugin.getLogger().warn("Could not initialize modules: " + joinModuleNames(cycle) + ", because they depend on each other: " + DependencyGraph.formatPath(cycle, true));
 			}
 			
-			//if the iterator finished without processing any module
-			for (ModuleContainer mc : stack){
-				LyeenPlugin.getLogger().warn("Could not initialize module: " + mc.getModule().getName() + ", because it is missing the following modules: ", listMissingModules(mc));
-				modules.remove(mc.getType());
+			for (Entry<ModuleContainer, Collection<Class<? extends Module>>> e : plan.getUnsatisfied().entrySet()){
+				ModuleContainer mc = e.getKey();
+				if (!graph.isInCycle(mc)) LyeenPlugin.getLogger().warn("Could not initialize module: " + mc.getModule().getName() + ", because it is missing the following modules: " + joinTypeNames(e.getValue()));
+				registry.remove(mc);
+				lazyModules.remove(mc.getType());
 			}
-			
-			stack.clear();
 		}
 		
+		//init all modules
+		if (startupExecutor != null){
+			initParallel(plan, startupExecutor);
+		} else {
+			for (ModuleContainer mc : plan.getOrder()) initPlanned(plan, mc);
+		}
+		
+		this.plan = plan;
+		
 		//inject all @Uses fields
-		modules.values().forEach(mc -> modules.values().forEach(o -> mc.offerToUse(o.getModule())));
+		for (ModuleContainer mc : registry.values()){
+			mc.injectUsedModules(type -> findInjectable(type, mc));
+		}
 		
 		//start all modules
-		modules.values().forEach(mc -> {
-			if (mc.getState() == ModuleState.INITIALIZED) mc.startModule();
-		});
+		for (ModuleContainer mc : plan.getOrder()){
+			if (mc.awaitState() == ModuleState.INITIALIZED && isPresent(mc)) mc.startModule();
+		}
+		
+		if (lazyModules.values().stream().anyMatch(LazyModule::hasIdleTimeout)) startIdleChecker();
+		
+		setStartupModules(containers, graph);
+		
+		trace.record("startAll", "ModuleManager", start, -1);
+		trace.setRecording(false);
 	}
 	
-	private String listMissingModules(ModuleContainer mc){
-		Collection<Class<? extends Module>> deps = mc.getDependencies();
-		deps.removeAll(modules.keySet());
+	/**
+	 * Initializes all modules of the plan on the executor.<br>
+	 * Each module is submitted as soon as all its dependencies are processed, this method returns after all modules are processed.
+	 */
+	private void initParallel(StartupPlan plan, Executor executor){
+		List<ModuleContainer> order = plan.getOrder();
+		if (order.isEmpty()) return;
+		
+		Map<ModuleContainer, AtomicInteger> pending = new HashMap<>(order.size() * 2);
+		for (ModuleContainer mc : order){
+			int count = 0;
+			for (ModuleContainer provider : plan.getProviders(mc)){
+				if (provider != null) count++;
+			}
+			pending.put(mc, new AtomicInteger(count));
+		}
+		
+		CountDownLatch remaining = new CountDownLatch(order.size());
+		for (ModuleContainer mc : order){
+			if (pending.get(mc).get() == 0) submitInit(plan, mc, executor, pending, remaining);
+		}
+		
+		boolean interrupted = false;
+		while (remaining.getCount() > 0){
+			try {
+				remaining.await();
+			} catch (InterruptedException ex){
+				interrupted = true;
+			}
+		}
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+	
+	private void submitInit(StartupPlan plan, ModuleContainer mc, Executor executor, Map<ModuleContainer, AtomicInteger> pending, CountDownLatch remaining){
+		Runnable task = () -> {
+			try {
+				initPlanned(plan, mc);
+			} finally {
+				for (ModuleContainer dependent : plan.getDependents(mc)){
+					if (pending.get(dependent).decrementAndGet() == 0) submitInit(plan, dependent, executor, pending, remaining);
+				}
+				remaining.countDown();
+			}
+		};
+		
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException ex){
+			task.run();
+		}
+	}
+	
+	/**
+	 * Initializes a module of the plan, if all its dependencies could be initialized.
+	 */
+	private void initPlanned(StartupPlan plan, ModuleContainer mc){
+		if (isInactiveLazy(mc)) return;
+		
+		if (!injectDependencies(plan, mc)){
+			LyeenPlugin.getLogger().warn("Could not initialize module: " + mc.getModule().getName() + ", because it is missing the following modules: " + listMissingModules(mc));
+			registry.remove(mc);
+			return;
+		}
+		
+		try {
+			if (mc.awaitState() == ModuleState.CONSTRUCTED) mc.initModule();
+		} catch (Throwable t){
+			registry.remove(mc);
+			LyeenPlugin.getLogger().error("Failed to initialize module: " + mc.getModule().getName(), t);
+		}
+	}
+	
+	/**
+	 * Injects the planned dependencies that are initialized and returns if all dependencies are set afterwards.
+	 */
+	private boolean injectDependencies(StartupPlan plan, ModuleContainer mc){
+		ModuleContainer[] providers = plan.getProviders(mc);
+		InjectionPoint[] points = mc.getDescriptor().getDependencies();
+		for (int i = 0; i < providers.length; i++){
+			if (providers[i] == null) continue;
+			
+			Module offer = getInjectable(providers[i], points[i].getType());
+			if (offer != null) mc.offerDependency(offer);
+		}
+		
+		if (!mc.hasAllDependenciesSet()) activateRequiredLazyModules(mc, false);
+		
+		return mc.hasAllDependenciesSet();
+	}
+	
+	/**
+	 * Returns the instance of this module that can be injected into a field of this type.<br>
+	 * This is the proxy if it is a {@link Lazy} module <i>(so it can still be stopped when it is idle and recreated)</i>, 
+	 * or the {@link Module} itself if it is initialized or started.<br>
+	 * If the proxy doesn't have this type, an active {@link Lazy} module is {@link LazyModule#pin() pinned} and injected directly.
+	 * 
+	 * @return the module or <code>null</code> if it can't be injected
+	 */
+	private Module getInjectable(ModuleContainer mc, Class<?> type){
+		if (!isPresent(mc)) return null;
+		
+		LazyModule lazy = lazyModules.get(mc.getType());
+		if (lazy != null && lazy.getContainer() == mc && type.isInstance(lazy.getProxy())) return lazy.getProxy();
+		
+		ModuleState state = mc.getStableState();
+		if ((state == ModuleState.INITIALIZED || state == ModuleState.STARTED) && type.isInstance(mc.getModule())){
+			if (lazy != null) lazy.pin();
+			return mc.getModule();
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Finds a module of this type that can be injected into other modules, see {@link #getInjectable(ModuleContainer, Class)}.<br>
+	 * A module of exactly this type is preferred.
+	 * 
+	 * @param exclude a module that should not be injected into itself
+	 * @return the module or <code>null</code> if there is none
+	 */
+	private Module findInjectable(Class<? extends Module> type, ModuleContainer exclude){
+		for (ModuleContainer mc : registry.getProviders(type)){
+			if (mc == exclude) continue;
+			
+			Module offer = getInjectable(mc, type);
+			if (offer != null) return offer;
+		}
+		return null;
+	}
+	
+	private boolean isInactiveLazy(ModuleContainer mc){
+		if (mc.awaitState() != ModuleState.CONSTRUCTED) return false;
+		
+		LazyModule lazy = lazyModules.get(mc.getType());
+		return lazy != null && lazy.getContainer() == mc;
+	}
+	
+	/**
+	 * Activates the {@link Lazy} modules that are needed to set the dependencies of this module, but can't be injected as a proxy.
+	 */
+	private void activateRequiredLazyModules(ModuleContainer mc, boolean start){
+		for (Class<? extends Module> missing : mc.getMissingDependencies()){
+			for (ModuleContainer provider : registry.getProviders(missing)){
+				LazyModule lazy = lazyModules.get(provider.getType());
+				if (lazy == null || provider == mc) continue;
+				
+				try {
+					lazy.pin();
+					mc.offerDependency(lazy.activate(start));
+					break;
+				} catch (IllegalStateException ex){
+					LyeenPlugin.getLogger().error("Failed to activate lazy module: " + lazy.getType().getName(), ex);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Injects the dependencies of a module that is initialized on its own <i>(a {@link Lazy} or restarted module)</i> and initializes it.
+	 * 
+	 * @throws IllegalStateException if the module could not be initialized, the module is removed in this case
+	 */
+	void initSingle(ModuleContainer mc, boolean start) throws IllegalStateException {
+		mc.injectDependencies(type -> findInjectable(type, mc));
+		
+		if (!mc.hasAllDependenciesSet()) activateRequiredLazyModules(mc, start);
+		
+		if (!mc.hasAllDependenciesSet()){
+			removeLazy(mc);
+			throw new IllegalStateException("Could not initialize module: " + mc.getModule().getName() + "! Dependencies missing: " + listMissingModules(mc));
+		}
+		
+		try {
+			mc.initModule();
+		} catch (Throwable t){
+			removeLazy(mc);
+			throw new IllegalStateException("Failed to initialize module: " + mc.getModule().getName(), t);
+		}
+		
+		mc.injectUsedModules(type -> findInjectable(type, mc));
+	}
+	
+	/**
+	 * Creates a new instance of a {@link Lazy} module that has been stopped, and replaces the old one.
+	 * 
+	 * @throws IllegalStateException if the module could not be created, the module is removed in this case
+	 */
+	ModuleContainer recreateLazy(LazyModule lazy) throws IllegalStateException {
+		ModuleContainer old = lazy.getContainer();
+		
+		try {
+			ModuleContainer mc = new ModuleContainer(createModule(lazy.getType()));
+			manage(mc);
+			if (!registry.replace(old, mc)) throw new IllegalStateException("The module has been removed: " + lazy.getType().getName());
+			return mc;
+		} catch (ReflectiveOperationException ex){
+			removeLazy(old);
+			throw new IllegalStateException("Failed to create a new instance of module: " + lazy.getType().getName(), ex);
+		}
+	}
+	
+	private void removeLazy(ModuleContainer mc){
+		registry.remove(mc);
+		lazyModules.remove(mc.getType());
+	}
+	
+	private synchronized void startIdleChecker(){
+		if (idleChecker != null) return;
 		
-		return StringUtils.join(deps.stream().map(d -> d.getName()).iterator(), ",");
+		idleChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("Lyeen-IdleChecker").setDaemon(true).build());
+		idleChecker.scheduleWithFixedDelay(this::stopIdleModules, IDLE_CHECK_INTERVAL, IDLE_CHECK_INTERVAL, TimeUnit.SECONDS);
+	}
+	
+	private synchronized void stopIdleChecker(){
+		if (idleChecker == null) return;
+		
+		idleChecker.shutdownNow();
+		idleChecker = null;
+	}
+	
+	/**
+	 * Saves and stops all {@link Lazy} modules that have not been used for longer than their idle-timeout.<br>
+	 * This is done automatically every few seconds after {@link #startAll()} if there are modules with an idle-timeout.
+	 */
+	public void stopIdleModules(){
+		long now = System.nanoTime();
+		for (LazyModule lazy : lazyModules.values()){
+			if (lazy.stopIfIdle(now)) LyeenPlugin.getLogger().info("Stopped idle module: " + lazy.getType().getSimpleName());
+		}
+	}
+	
+	private boolean isPresent(ModuleContainer mc){
+		return registry.get(mc.getType()) == mc;
+	}
+	
+	private String listMissingModules(ModuleContainer mc){
+		return joinTypeNames(mc.getMissingDependencies());
+	}
+	
+	private String joinTypeNames(Collection<Class<? extends Module>> types){
+		return StringUtils.join(types.stream().map(d -> d.getName()).iterator(), ",");
+	}
+	
+	private String joinModuleNames(Collection<ModuleContainer> containers){
+		return StringUtils.join(containers.stream().map(mc -> mc.getModule().getName()).iterator(), ",");
 	}
 	
 	/**
@@ -118,23 +775,35 @@ public class ModuleManager {
 	 * @return <code>true</code> if the module could be started and <code>false</code> otherwise!
 	 */
 	public boolean start(Class<? extends Module> moduleType){
-		ModuleContainer mc = modules.get(moduleType);
+		ModuleContainer mc = registry.get(moduleType);
 		if (mc == null) throw new IllegalStateException("Failed to start module! The module is not present: " + moduleType.getCanonicalName());
 
+		LazyModule lazy = lazyModules.get(moduleType);
+		if (lazy != null){
+			try {
+				lazy.get();
+				return true;
+			} catch (IllegalStateException ex){
+				LyeenPlugin.getLogger().error("Failed to initialize module: " + mc.getModule().getName(), ex);
+				return false;
+			}
+		}
+		
 		try {
-			modules.values().forEach(c -> mc.offerDependency(c.getModule()));
+			mc.injectDependencies(type -> findInjectable(type, mc));
+			if (!mc.hasAllDependenciesSet()) activateRequiredLazyModules(mc, true);
 			if (!mc.hasAllDependenciesSet()) throw new IllegalStateException("Could not initialize module: " + mc.getModule().getName() + "! Dependencies missing: " + listMissingModules(mc));
 		
 			mc.initModule();
 
-			modules.values().forEach(c -> mc.offerToUse(c.getModule()));
-			modules.values().forEach(c -> c.offerToUse(mc.getModule()));
+			mc.injectUsedModules(type -> findInjectable(type, mc));
+			registry.values().forEach(c -> c.offerToUse(mc.getModule()));
 			
 			mc.startModule();
 			return true;
 			
 		} catch (Throwable t){
-			modules.remove(mc.getType());
+			registry.remove(mc);
 			LyeenPlugin.getLogger().error("Failed to initialize module: " + mc.getModule().getName(), t);
 			
 			return false;
@@ -142,54 +811,295 @@ public class ModuleManager {
 	}
 	
 	/**
-	 * Tries to stop all modules in an order so that every module that is beeing stopped has all its dependencies still loaded.
+	 * Tries to stop all modules in an order so that every module that is beeing stopped has all its dependencies still loaded.<br>
+	 * <br>
+	 * Modules that don't depend on each other are saved and stopped in parallel on the {@link #setShutdownExecutor(Executor) shutdown-executor}.
+	 * If a module takes longer than the {@link #setStopTimeouts(long, long, TimeUnit) module-timeout} to stop, or stopping all modules takes longer than the total timeout,
+	 * the remaining modules are logged and marked as {@link ModuleState#STOPPED} without waiting for them any longer.<br>
+	 * <br>
+	 * Afterwards the thread-pools of this manager are shut down, an executor that has been set with {@link #setSaveExecutor(Executor)} is not.
 	 */
 	public void stopAll(){
-		Set<ModuleContainer> toBeStopped = new HashSet<>(modules.values());
-		while (!toBeStopped.isEmpty()){
-			Set<ModuleContainer> stoppable = new HashSet<>(toBeStopped);
-			for (ModuleContainer mc : toBeStopped){
-				stoppable.removeIf(rem -> mc.getDependencies().contains(rem.getType()));
+		stopIdleChecker();
+		setResourceSummaryInterval(0, TimeUnit.SECONDS);
+		stopWatching();
+		
+		StartupPlan plan = this.plan;
+		if (plan == null || !plan.containsAll(registry.values())) plan = StartupPlan.resolve(registry.values());
+		
+		Collection<ModuleContainer> leftOver = plan.getUnsatisfied().keySet();
+		if (leftOver.stream().anyMatch(mc -> mc.awaitState() == ModuleState.STARTED)){
+			LyeenPlugin.getLogger().warn("Can't stop all modules, without stopping a dependency of a still loaded module! (" + StringUtils.join(leftOver.stream().map(d -> d.getModule().getName()).iterator(), ",") + ")");
+			for (ModuleContainer mc : leftOver){
+				if (mc.awaitState() == ModuleState.STARTED) stopSafely(mc);
 			}
-
-			if (stoppable.isEmpty()){
-				LyeenPlugin.getLogger().warn("Can't stop all modules, without stopping a dependency of a still loaded module! (" + StringUtils.join(toBeStopped.stream().map(d -> d.getModule().getName()).iterator(), ",") + ")");
-				for (ModuleContainer mc : toBeStopped) mc.stopModule();
-				toBeStopped.clear();
+		}
+		
+		ExecutorService ownExecutor = null;
+		Executor executor = shutdownExecutor;
+		if (executor == null){
+			ownExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("Lyeen-Shutdown-%d").setDaemon(true).build());
+			executor = ownExecutor;
+		}
+		
+		try {
+			stopPlanned(plan, executor);
+		} finally {
+			if (ownExecutor != null) ownExecutor.shutdown();
+			
+			//queued tasks are still finished, but no new tasks are accepted
+			asyncExecutor.shutdown();
+			ownSaveExecutor.shutdown();
+		}
+	}
+	
+	/**
+	 * Stops all started modules of the plan in parallel, each module as soon as all its dependents are stopped.
+	 */
+	private void stopPlanned(StartupPlan plan, Executor executor){
+		Set<ModuleContainer> toStop = new HashSet<>();
+		for (ModuleContainer mc : plan.getReverseOrder()){
+			if (mc.awaitState() == ModuleState.STARTED && isPresent(mc)) toStop.add(mc);
+		}
+		if (toStop.isEmpty()) return;
+		
+		//count the dependents that need to be stopped before each module
+		Map<ModuleContainer, Integer> remainingDependents = new HashMap<>(toStop.size() * 2);
+		for (ModuleContainer mc : toStop){
+			int count = 0;
+			for (ModuleContainer dependent : plan.getDependents(mc)){
+				if (toStop.contains(dependent)) count++;
+			}
+			remainingDependents.put(mc, count);
+		}
+		
+		BlockingQueue<ModuleContainer> stopped = new LinkedBlockingQueue<>();
+		Map<ModuleContainer, Long> running = new HashMap<>();
+		Set<ModuleContainer> finished = new HashSet<>();
+		
+		long now = System.nanoTime();
+		long totalDeadline = now + stopAllTimeout;
+		
+		for (ModuleContainer mc : plan.getReverseOrder()){
+			if (toStop.contains(mc) && remainingDependents.get(mc) == 0) submitStop(mc, executor, stopped, running);
+		}
+		
+		boolean interrupted = false;
+		while (finished.size() < toStop.size()){
+			now = System.nanoTime();
+			
+			if (now - totalDeadline >= 0){
+				for (ModuleContainer mc : toStop){
+					if (finished.contains(mc)) continue;
+					LyeenPlugin.getLogger().warn("Module " + mc.getModule().getName() + " could not be stopped in time, it will be marked as stopped!");
+					mc.markStopped();
+				}
+				break;
 			}
 			
-			for (ModuleContainer mc : stoppable){
-				mc.stopModule();
-				toBeStopped.remove(mc);
+			long nextDeadline = totalDeadline;
+			for (Long deadline : running.values()){
+				if (deadline - nextDeadline < 0) nextDeadline = deadline;
+			}
+			
+			ModuleContainer mc = null;
+			try {
+				mc = stopped.poll(nextDeadline - now, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException ex){
+				interrupted = true;
+			}
+			
+			List<ModuleContainer> done = new ArrayList<>();
+			if (mc != null){
+				if (running.remove(mc) != null) done.add(mc);
+			} else {
+				now = System.nanoTime();
+				Iterator<Entry<ModuleContainer, Long>> runningIterator = running.entrySet().iterator();
+				while (runningIterator.hasNext()){
+					Entry<ModuleContainer, Long> e = runningIterator.next();
+					if (now - e.getValue() < 0) continue;
+					
+					ModuleContainer timedOut = e.getKey();
+					LyeenPlugin.getLogger().warn("Module " + timedOut.getModule().getName() + " did not stop within " + TimeUnit.NANOSECONDS.toMillis(moduleStopTimeout) + "ms, it will be marked as stopped!");
+					timedOut.markStopped();
+					
+					runningIterator.remove();
+					done.add(timedOut);
+				}
+			}
+			
+			for (ModuleContainer d : done){
+				finished.add(d);
+				for (ModuleContainer provider : plan.getProviders(d)){
+					if (provider == null || !toStop.contains(provider)) continue;
+					
+					int remaining = remainingDependents.get(provider) - 1;
+					remainingDependents.put(provider, remaining);
+					if (remaining == 0) submitStop(provider, executor, stopped, running);
+				}
+			}
+		}
+		
+		if (interrupted) Thread.currentThread().interrupt();
+	}
+	
+	private void submitStop(ModuleContainer mc, Executor executor, BlockingQueue<ModuleContainer> stopped, Map<ModuleContainer, Long> running){
+		running.put(mc, System.nanoTime() + moduleStopTimeout);
+		
+		Runnable task = () -> {
+			try {
+				stopSafely(mc);
+			} finally {
+				stopped.add(mc);
 			}
+		};
+		
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException ex){
+			task.run();
+		}
+	}
+	
+	private void stopSafely(ModuleContainer mc){
+		try {
+			mc.stopModule();
+		} catch (Throwable t){
+			LyeenPlugin.getLogger().error("Failed to stop module: " + mc.getModule().getName(), t);
+			mc.markStopped();
 		}
 	}
 	
 	/**
 	 * Tries to load every module that is {@link ModuleState#INITIALIZED} or {@link ModuleState#STARTED}
+	 * 
+	 * @see #loadChanged()
 	 */
 	public void loadAll(){
-		modules.values().forEach(m -> {
-			try {
-				if (m.getState() == ModuleState.INITIALIZED || m.getState() == ModuleState.STARTED) m.getModule().load();
-			} catch (IOException ex){
-				LyeenPlugin.getLogger().error("Exception trying to load module: " + m.getModule().getName(), ex);
-			}
+		registry.values().forEach(m -> {
+			ModuleState state = m.getStableState();
+			if (state == ModuleState.INITIALIZED || state == ModuleState.STARTED) m.reloadModule();
 		});
 	}
+	
+	/**
+	 * Tries to load every module that is {@link ModuleState#INITIALIZED} or {@link ModuleState#STARTED}, 
+	 * and whose {@link Module#getLoadSources() load-sources} have changed since it has been loaded the last time.<br>
+	 * Modules without load-sources are not loaded.
+	 * 
+	 * @see ModuleContainer#reloadIfChanged()
+	 * @return the number of modules that have been loaded
+	 */
+	public int loadChanged(){
+		int loaded = 0;
+		for (ModuleContainer mc : registry.values()){
+			ModuleState state = mc.getStableState();
+			if (state != ModuleState.INITIALIZED && state != ModuleState.STARTED) continue;
+			if (mc.reloadIfChanged()) loaded++;
+		}
+		return loaded;
+	}
+	
+	/**
+	 * Starts watching the {@link Module#getLoadSources() load-sources} of all loaded modules with a debounce-time of 500ms.
+	 * 
+	 * @see #startWatching(long, TimeUnit)
+	 */
+	public void startWatching() throws IOException {
+		startWatching(DEFAULT_WATCH_DEBOUNCE, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Starts watching the {@link Module#getLoadSources() load-sources} of all loaded modules.<br>
+	 * If the content of the load-sources of a module changes, the module is reloaded on the thread of the watcher
+	 * as soon as there have been no more changes for the debounce-time.<br>
+	 * Modules that are loaded later are watched as well. If the manager is already watching, this does nothing.
+	 * 
+	 * @param debounce the time without any changes to wait before the changed modules are reloaded
+	 * @param unit the unit of the debounce-time
+	 * @throws IOException if the file-system can't be watched
+	 */
+	public synchronized void startWatching(long debounce, TimeUnit unit) throws IOException {
+		if (watcher != null) return;
+		
+		watcher = new LoadSourceWatcher(modules, unit.toNanos(debounce));
+		watcher.start();
+	}
+	
+	/**
+	 * Stops watching the load-sources of the modules.
+	 */
+	public synchronized void stopWatching(){
+		if (watcher == null) return;
+		
+		watcher.stop();
+		watcher = null;
+	}
+	
+	public synchronized boolean isWatching(){
+		return watcher != null;
+	}
 
 	/**
-	 * Tries to load every module that is {@link ModuleState#INITIALIZED} or {@link ModuleState#STARTED}
+	 * Tries to save every module that is {@link ModuleState#INITIALIZED} or {@link ModuleState#STARTED}, and blocks until all data is written.
+	 * 
+	 * @see #saveAllAsync()
+	 * @return the report of this save
+	 */
+	public SaveReport saveAll(){
+		return saveAllAsync().join();
+	}
+	
+	/**
+	 * Tries to save every module that is {@link ModuleState#INITIALIZED} or {@link ModuleState#STARTED}.<br>
+	 * The data of each module is captured on the calling thread and written on the {@link #setSaveExecutor(Executor) save-executor}.
+	 * Modules that have no unsaved changes are skipped.
+	 * 
+	 * @see ModuleContainer#saveAsync(Executor)
+	 * @return a future that completes with the report of this save when the data of all modules is written
 	 */
-	public void saveAll(){
-		modules.values().forEach(m -> {
+	public CompletableFuture<SaveReport> saveAllAsync(){
+		long start = System.nanoTime();
+		
+		List<CompletableFuture<Long>> saves = new ArrayList<>(registry.size());
+		int skipped = 0;
+		for (ModuleContainer mc : registry.values()){
+			ModuleState state = mc.getStableState();
+			if (state != ModuleState.INITIALIZED && state != ModuleState.STARTED) continue;
+			
+			if (!mc.isDirty()){
+				skipped++;
+				continue;
+			}
+			
 			try {
-				if (m.getState() == ModuleState.INITIALIZED || m.getState() == ModuleState.STARTED) m.getModule().save();
-			} catch (IOException ex){
-				LyeenPlugin.getLogger().error("Exception trying to save module: " + m.getModule().getName(), ex);
+				saves.add(mc.saveAsync(saveExecutor));
+			} catch (IllegalStateException ex){
+				//the module has been stopped while saving the others
+				skipped++;
 			}
-		});
+		}
 		
+		int skippedModules = skipped;
+		return CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[saves.size()])).handle((result, error) -> {
+			int failed = 0;
+			long bytes = 0;
+			for (CompletableFuture<Long> save : saves){
+				if (save.isCompletedExceptionally()) failed++;
+				else bytes += save.join();
+			}
+			
+			SaveReport report = new SaveReport(saves.size() - failed, skippedModules, failed, bytes, System.nanoTime() - start);
+			lastSaveReport = report;
+			return report;
+		});
+	}
+	
+	/**
+	 * Returns the report of the last completed {@link #saveAllAsync()}.
+	 */
+	public Optional<SaveReport> getLastSaveReport(){
+		return Optional.ofNullable(lastSaveReport);
 	}
 	
 	/**
@@ -200,31 +1110,400 @@ public class ModuleManager {
 	 */
 	public void addModule(Module module){
 		ModuleContainer container = new ModuleContainer(module);
-		if (modules.containsKey(container.getType())) throw new IllegalStateException("This module is already present: " + module.getName());
+		if (registry.containsKey(container.getType())) throw new IllegalStateException("This module is already present: " + module.getName());
+		manage(container);
+		
+		Lazy lazy = container.getDescriptor().getLazy();
+		if (lazy != null) lazyModules.put(container.getType(), new LazyModule(this, container, lazy));
 		
-		modules.put(container.getType(), container);
+		registry.put(container);
 	}
 
+	/**
+	 * Creates and adds all {@link Module}s that are listed in the {@link ModuleIndex module-indices} the {@link ClassLoader} can find.<br>
+	 * The {@link Module}s are created in parallel using their generated {@link ModuleInjector}, or their no-args constructor if there is no injector.<br>
+	 * <i>(The modules will not get initialized, loaded or started)</i><br>
+	 * <br>
+	 * {@link Module}s that can't be created, that have no no-args constructor, or whose type is already present, are skipped.
+	 * 
+	 * @return the number of added {@link Module}s
+	 */
+	public int addIndexedModules(ClassLoader classLoader){
+		return addModules(ModuleIndex.read(classLoader), classLoader);
+	}
+	
+	/**
+	 * Creates and adds all indexed {@link Module}s like {@link #addIndexedModules(ClassLoader)}, 
+	 * and also all {@link Module}s of the add-on jars in this directory.<br>
+	 * <br>
+	 * The add-on jars are loaded with a new {@link ClassLoader} that has the given {@link ClassLoader} as parent, so add-ons can use all classes of the plugin.
+	 * The modules of every jar are cached in the directory, so jars that have not changed since the last startup are not opened again.
+	 * 
+	 * @param classLoader the {@link ClassLoader} of the plugin
+	 * @param addonDirectory the directory with the add-on jars, it is created if it does not exist
+	 * @return the number of added {@link Module}s
+	 */
+	public int addDiscoveredModules(ClassLoader classLoader, Path addonDirectory){
+		Set<String> names = new LinkedHashSet<>(ModuleIndex.read(classLoader));
+		
+		try {
+			Files.createDirectories(addonDirectory);
+			
+			ModuleDiscovery discovery = new ModuleDiscovery(addonDirectory);
+			List<Path> jars = discovery.findJars();
+			if (!jars.isEmpty()){
+				URL[] urls = new URL[jars.size()];
+				for (int i = 0; i < urls.length; i++) urls[i] = jars.get(i).toUri().toURL();
+				classLoader = new URLClassLoader(urls, classLoader);
+				
+				names.addAll(discovery.discover(jars, classLoader));
+				LyeenPlugin.getLogger().debug("Discovered modules in " + jars.size() + " add-ons (" + discovery.getCachedJars() + " cached, " + discovery.getIndexedJars() + " indexed, " + discovery.getScannedJars() + " scanned)");
+			}
+		} catch (IOException ex){
+			LyeenPlugin.getLogger().error("Failed to discover the add-ons in: " + addonDirectory, ex);
+		}
+		
+		return addModules(names, classLoader);
+	}
+	
+	/**
+	 * Creates the modules in parallel on the async-executor, and adds them in the order of the class-names.
+	 */
+	private int addModules(Collection<String> classNames, ClassLoader classLoader){
+		Map<String, CompletableFuture<Module>> created = new LinkedHashMap<>(classNames.size() * 2);
+		for (String className : classNames){
+			CompletableFuture<Module> future = new CompletableFuture<>();
+			created.put(className, future);
+			
+			try {
+				asyncExecutor.execute(() -> {
+					try {
+						future.complete(createModule(className, classLoader));
+					} catch (Throwable t){
+						future.completeExceptionally(t);
+					}
+				});
+			} catch (RejectedExecutionException ex){
+				future.completeExceptionally(ex);
+			}
+		}
+		
+		int added = 0;
+		for (Entry<String, CompletableFuture<Module>> e : created.entrySet()){
+			try {
+				Module module = e.getValue().join();
+				if (module == null || registry.containsKey(module.getClass())) continue;
+				
+				addModule(module);
+				added++;
+			} catch (CompletionException ex){
+				LyeenPlugin.getLogger().error("Failed to create indexed module: " + e.getKey(), ex.getCause());
+			} catch (Throwable t){
+				LyeenPlugin.getLogger().error("Failed to create indexed module: " + e.getKey(), t);
+			}
+		}
+		
+		return added;
+	}
+	
+	/**
+	 * Creates the module, or returns <code>null</code> if it is already present or has no no-args constructor.
+	 */
+	private Module createModule(String className, ClassLoader classLoader) throws ReflectiveOperationException {
+		Class<? extends Module> type = Class.forName(className, true, classLoader).asSubclass(Module.class);
+		if (registry.containsKey(type)) return null;
+		
+		try {
+			return createModule(type);
+		} catch (NoSuchMethodException ex){
+			//modules that need parameters are added by hand
+			LyeenPlugin.getLogger().debug("Skipping indexed module without a no-args constructor: " + className);
+			return null;
+		}
+	}
+	
+	private Module createModule(Class<? extends Module> type) throws ReflectiveOperationException {
+		ModuleInjector injector = ModuleDescriptor.of(type).getInjector();
+		if (injector != null){
+			Module module = injector.create();
+			if (module != null) return module;
+		}
+		
+		return type.getConstructor().newInstance();
+	}
+	
 	/**
 	 * Removes a {@link Module} from this manager.<br>
-	 * <i>(If the module is started, it will be saved and stopped)</i>
+	 * <i>(If the module is started, it will be saved and stopped)</i><br>
+	 * <br>
+	 * All modules that depend on it <i>(directly or transitively)</i> are stopped and removed first, 
+	 * and the removed modules are removed from the {@link Depends} and {@link Uses} fields of all remaining modules.
 	 * 
 	 * @throws IllegalStateException If there is no {@link Module} with that type.
 	 */
 	public void removeModule(Class<? extends Module> moduleType){
-		ModuleContainer mc = modules.remove(moduleType);
+		ModuleContainer mc = registry.get(moduleType);
 		if (mc == null) throw new IllegalStateException("Failed to remove module! The module is not present: " + moduleType.getCanonicalName());
 		
-		if (mc.getState() == ModuleState.STARTED) mc.stopModule();
+		for (ModuleContainer dependent : collectDependents(mc)){
+			LyeenPlugin.getLogger().warn("Removing module: " + dependent.getModule().getName() + ", because it depends on the removed module: " + mc.getModule().getName());
+			if (dependent.awaitState() == ModuleState.STARTED) stopSafely(dependent);
+			detach(dependent);
+		}
+		
+		detach(mc);
+		if (mc.awaitState() == ModuleState.STARTED) mc.stopModule();
 	}
 	
 	/**
-	 * Returns an {@link Optional} with the {@link Module}-instance of this module type, or an absent {@link Optional} if there is no {@link Module} with that type.
+	 * Replaces a present {@link Module} with a new instance of the same type, without restarting any unrelated modules.<br>
+	 * <br>
+	 * All modules that depend on the old instance <i>(directly or transitively)</i> are saved and stopped, most dependent modules first.
+	 * Then the old instance is stopped and every reference to it is replaced with the new instance, which is brought into the state the old instance was in.
+	 * Finally the dependent modules are started again in dependency-order.<br>
+	 * <br>
+	 * If the new instance or a dependent module can't be started again <i>(due to an error)</i>, it will be removed like with {@link #removeModule(Class)}.
+	 * 
+	 * @param replacement the new instance of the {@link Module}
+	 * @return <code>true</code> if the new instance and all dependent modules could be restarted and <code>false</code> otherwise
+	 * @throws IllegalStateException If there is no {@link Module} present with the type of the new instance
 	 */
-	public Optional<Module> getModule(Class<? extends Module> moduleType){
-		ModuleContainer mc = modules.get(moduleType);
-		if (mc == null) return Optional.empty();
-		return Optional.of(modules.get(moduleType).getModule());
+	public boolean restartModule(Module replacement){
+		Class<? extends Module> type = replacement.getClass();
+		ModuleContainer old = registry.get(type);
+		if (old == null) throw new IllegalStateException("Failed to restart module! The module is not present: " + type.getCanonicalName());
+		Preconditions.checkArgument(old.getModule() != replacement, "This instance of the module is already present: " + replacement.getName());
+		
+		//stop the subgraph, most dependent modules first
+		List<ModuleContainer> dependents = collectDependents(old);
+		Map<ModuleContainer, ModuleState> states = new HashMap<>(dependents.size() * 2);
+		for (ModuleContainer dependent : dependents){
+			states.put(dependent, dependent.awaitState());
+			if (states.get(dependent) == ModuleState.STARTED) suspendSafely(dependent);
+		}
+		
+		ModuleState oldState = old.awaitState();
+		if (oldState == ModuleState.STARTED) stopSafely(old);
+		else old.markStopped();
+		
+		//swap the instance
+		List<Module> oldReferences = getReferences(old);
+		
+		ModuleContainer mc = new ModuleContainer(replacement);
+		manage(mc);
+		registry.put(mc);
+		
+		LazyModule lazy = lazyModules.get(type);
+		if (lazy != null) lazy.setContainer(mc);
+		
+		unwire(oldReferences);
+		
+		boolean restarted = true;
+		if (oldState == ModuleState.INITIALIZED || oldState == ModuleState.STARTED){
+			List<Module> references = getReferences(mc);
+			try {
+				if (lazy != null){
+					lazy.activate(oldState == ModuleState.STARTED);
+				} else {
+					initSingle(mc, false);
+					if (oldState == ModuleState.STARTED) mc.startModule();
+				}
+			} catch (Throwable t){
+				LyeenPlugin.getLogger().error("Failed to restart module: " + replacement.getName(), t);
+				if (mc.getState() != ModuleState.CONSTRUCTED) mc.markStopped();
+				registry.remove(mc);
+				if (lazy != null) lazyModules.remove(type, lazy);
+				unwire(references);
+				restarted = false;
+			}
+		}
+		
+		//inject the proxy of lazy modules where possible, so the module can still be stopped when it is idle
+		Function<Class<? extends Module>, Module> injectable = t -> t.isAssignableFrom(type) ? getInjectable(mc, t) : null;
+		for (ModuleContainer c : registry.values()){
+			if (c != mc) c.injectUsedModules(injectable);
+		}
+		
+		//start the subgraph again, in dependency-order
+		for (int i = dependents.size() - 1; i >= 0; i--){
+			ModuleContainer dependent = dependents.get(i);
+			if (!isPresent(dependent)) continue;
+			
+			dependent.injectDependencies(injectable);
+			
+			ModuleState state = states.get(dependent);
+			if (state != ModuleState.INITIALIZED && state != ModuleState.STARTED) continue;
+			
+			if (dependent.awaitState() == ModuleState.STOPPED){
+				detach(dependent);
+				restarted = false;
+				continue;
+			}
+			
+			if (!dependent.hasAllDependenciesSet()){
+				LyeenPlugin.getLogger().warn("Could not restart module: " + dependent.getModule().getName() + ", because it is missing the following modules: " + listMissingModules(dependent));
+				dependent.markStopped();
+				detach(dependent);
+				restarted = false;
+				continue;
+			}
+			
+			if (state == ModuleState.STARTED){
+				try {
+					dependent.startModule();
+				} catch (Throwable t){
+					LyeenPlugin.getLogger().error("Failed to restart module: " + dependent.getModule().getName(), t);
+					dependent.markStopped();
+					detach(dependent);
+					restarted = false;
+				}
+			}
+		}
+		
+		return restarted;
+	}
+	
+	private void suspendSafely(ModuleContainer mc){
+		try {
+			mc.suspendModule();
+		} catch (Throwable t){
+			LyeenPlugin.getLogger().error("Failed to stop module: " + mc.getModule().getName(), t);
+			mc.markStopped();
+		}
+	}
+	
+	/**
+	 * Returns all modules that depend on this module directly or transitively.<br>
+	 * The modules are ordered so that every module comes before all modules it depends on, so the list can be used to stop the modules
+	 * and the reversed list can be used to start them.
+	 */
+	private List<ModuleContainer> collectDependents(ModuleContainer root){
+		Map<Module, List<ModuleContainer>> directDependents = new IdentityHashMap<>();
+		for (ModuleContainer mc : registry.values()){
+			for (Module dependency : mc.getInjectedDependencies()){
+				directDependents.computeIfAbsent(dependency, d -> new ArrayList<>()).add(mc);
+			}
+		}
+		
+		//depth-first post-order, without recursion so long dependency-chains can't overflow the stack
+		List<ModuleContainer> order = new ArrayList<>();
+		Set<ModuleContainer> visited = new HashSet<>();
+		Deque<ModuleContainer> path = new ArrayDeque<>();
+		Deque<Iterator<ModuleContainer>> pending = new ArrayDeque<>();
+		
+		visited.add(root);
+		path.push(root);
+		pending.push(getDirectDependents(root, directDependents).iterator());
+		
+		while (!pending.isEmpty()){
+			Iterator<ModuleContainer> iterator = pending.peek();
+			if (iterator.hasNext()){
+				ModuleContainer dependent = iterator.next();
+				if (!visited.add(dependent)) continue;
+				
+				path.push(dependent);
+				pending.push(getDirectDependents(dependent, directDependents).iterator());
+			} else {
+				pending.pop();
+				ModuleContainer done = path.pop();
+				if (done != root) order.add(done);
+			}
+		}
+		
+		return order;
+	}
+	
+	private List<ModuleContainer> getDirectDependents(ModuleContainer mc, Map<Module, List<ModuleContainer>> directDependents){
+		List<ModuleContainer> dependents = new ArrayList<>();
+		for (Module reference : getReferences(mc)){
+			dependents.addAll(directDependents.getOrDefault(reference, Collections.emptyList()));
+		}
+		return dependents;
+	}
+	
+	/**
+	 * Returns all instances that might be injected into other modules for this module: the {@link Module} itself and the proxy if it is a {@link Lazy} module.
+	 */
+	private List<Module> getReferences(ModuleContainer mc){
+		List<Module> references = new ArrayList<>(2);
+		references.add(mc.getModule());
+		
+		LazyModule lazy = lazyModules.get(mc.getType());
+		if (lazy != null && lazy.getContainer() == mc) references.add(lazy.getProxy());
+		
+		return references;
+	}
+	
+	/**
+	 * Removes the module from this manager and from the fields of all remaining modules, without changing its state.
+	 */
+	private void detach(ModuleContainer mc){
+		List<Module> references = getReferences(mc);
+		
+		registry.remove(mc);
+		LazyModule lazy = lazyModules.get(mc.getType());
+		if (lazy != null && lazy.getContainer() == mc) lazyModules.remove(mc.getType(), lazy);
+		
+		unwire(references);
+	}
+	
+	private void unwire(List<Module> references){
+		for (ModuleContainer c : registry.values()){
+			for (Module reference : references) c.removeDependencyOrUse(reference);
+		}
+	}
+	
+	/**
+	 * Returns an {@link Optional} with the {@link Module}-instance of this module type, or an absent {@link Optional} if there is no {@link Module} with that type.<br>
+	 * The type can also be an interface or superclass of the module, a {@link Module} of exactly this type is preferred.<br>
+	 * {@link Lazy} modules are returned as their proxy if it has this type. Otherwise they are activated by this method, and are not stopped when they are idle anymore.
+	 */
+	public <T extends Module> Optional<T> getModule(Class<T> moduleType){
+		ModuleContainer mc = registry.get(moduleType);
+		if (mc == null){
+			List<ModuleContainer> providers = registry.getProviders(moduleType);
+			if (providers.isEmpty()) return Optional.empty();
+			mc = providers.get(0);
+		}
+		
+		LazyModule lazy = lazyModules.get(mc.getType());
+		if (lazy != null){
+			try {
+				return Optional.of(moduleType.cast(moduleType.isInstance(lazy.getProxy()) ? lazy.getProxy() : lazy.getPinned()));
+			} catch (IllegalStateException ex){
+				LyeenPlugin.getLogger().error("Failed to activate lazy module: " + mc.getType().getName(), ex);
+				return Optional.empty();
+			}
+		}
+		
+		return Optional.of(moduleType.cast(mc.getModule()));
+	}
+	
+	/**
+	 * Returns all {@link Module}-instances that are an instance of this type.<br>
+	 * {@link Lazy} modules that are not active are returned as their proxy if it has this type, so they are only activated when they are used.
+	 * Otherwise they are activated by this method.
+	 */
+	public <T extends Module> List<T> getAll(Class<T> moduleType){
+		List<ModuleContainer> providers = registry.getProviders(moduleType);
+		List<T> all = new ArrayList<>(providers.size());
+		
+		for (ModuleContainer mc : providers){
+			LazyModule lazy = lazyModules.get(mc.getType());
+			if (lazy != null){
+				try {
+					Module module = moduleType.isInstance(lazy.getProxy()) ? lazy.getProxy() : lazy.getPinned();
+					all.add(moduleType.cast(module));
+				} catch (IllegalStateException ex){
+					LyeenPlugin.getLogger().error("Failed to activate lazy module: " + mc.getType().getName(), ex);
+				}
+				continue;
+			}
+			
+			all.add(moduleType.cast(mc.getModule()));
+		}
+		
+		return all;
 	}
 	
 }
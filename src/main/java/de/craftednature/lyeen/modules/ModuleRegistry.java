@@ -0,0 +1,216 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@link ModuleContainer}s of a {@link ModuleManager}, indexed by their type.<br>
+ * <br>
+ * Every container is also indexed under all interfaces and superclasses of its type that extend {@link Module},
+ * so finding the modules that can be injected into a field of any type needs only one lookup instead of testing every module.<br>
+ * <br>
+ * The containers are kept in the order they have been added, a container that replaces another one takes its place.
+ * So {@link #values()} and {@link #getProviders(Class)} always list the modules in the same order, and the provider that is selected 
+ * for a dependency is the same, no matter if it is selected by the {@link StartupPlan} or by the {@link ModuleManager} later.
+ */
+final class ModuleRegistry {
+	
+	private static final ClassValue<Class<?>[]> MODULE_TYPES = new ClassValue<Class<?>[]>() {
+		@Override
+		protected Class<?>[] computeValue(Class<?> type) {
+			Set<Class<?>> types = StartupPlan.moduleTypesOf(type);
+			types.remove(Module.class);
+			return types.toArray(new Class<?>[types.size()]);
+		}
+	};
+	
+	private final Map<Class<? extends Module>, ModuleContainer> byType;
+	private final List<ModuleContainer> ordered;
+	private final Map<Class<?>, List<ModuleContainer>> byModuleType;
+	private final Map<Class<? extends Module>, ModuleContainer> view;
+	private final Collection<ModuleContainer> orderedView;
+	
+	ModuleRegistry() {
+		this.byType = new ConcurrentHashMap<>();
+		this.ordered = new CopyOnWriteArrayList<>();
+		this.byModuleType = new ConcurrentHashMap<>();
+		this.view = Collections.unmodifiableMap(byType);
+		this.orderedView = Collections.unmodifiableList(ordered);
+	}
+	
+	/**
+	 * An unmodifiable view of all containers by their exact type.<br>
+	 * <i>The iteration-order of this map is undefined, use {@link #values()} for the registration-order.</i>
+	 */
+	public Map<Class<? extends Module>, ModuleContainer> asMap(){
+		return view;
+	}
+	
+	/**
+	 * Returns the container of exactly this type, or <code>null</code> if there is none.
+	 */
+	public ModuleContainer get(Class<? extends Module> type){
+		return byType.get(type);
+	}
+	
+	public boolean containsKey(Class<? extends Module> type){
+		return byType.containsKey(type);
+	}
+	
+	/**
+	 * An unmodifiable view of all containers in the order they have been added.
+	 */
+	public Collection<ModuleContainer> values(){
+		return orderedView;
+	}
+	
+	public int size(){
+		return byType.size();
+	}
+	
+	/**
+	 * Returns all containers whose module is an instance of this type.<br>
+	 * The container that {@link #selectProvider(Class, List, ModuleContainer)} selects is always the first, the others are in the order they have been added.
+	 */
+	public List<ModuleContainer> getProviders(Class<?> type){
+		List<ModuleContainer> candidates = type == Module.class ? ordered : byModuleType.get(type);
+		if (candidates == null) return Collections.emptyList();
+		
+		List<ModuleContainer> providers = new ArrayList<>(candidates);
+		ModuleContainer selected = selectProvider(type, providers, null);
+		if (selected != null && providers.get(0) != selected){
+			providers.remove(selected);
+			providers.add(0, selected);
+		}
+		return providers;
+	}
+	
+	/**
+	 * Selects the provider for a dependency of this type from the candidates, which have to be in registration-order.<br>
+	 * The container of exactly this type is preferred, otherwise it is the first candidate. A module is never selected as its own provider.<br>
+	 * The registry, the {@link StartupPlan} and the {@link DependencyGraph} all use this, so they always select the same provider.
+	 * 
+	 * @param dependent the module that needs the provider, or <code>null</code>
+	 * @return the provider or <code>null</code> if there is none
+	 */
+	static ModuleContainer selectProvider(Class<?> type, List<ModuleContainer> candidates, ModuleContainer dependent){
+		if (candidates == null) return null;
+		
+		ModuleContainer selected = null;
+		for (ModuleContainer candidate : candidates){
+			if (candidate == dependent) continue;
+			if (candidate.getType() == type) return candidate;
+			if (selected == null) selected = candidate;
+		}
+		return selected;
+	}
+	
+	/**
+	 * Indexes these containers under their type and all its interfaces and superclasses that are {@link Module}s, the same way the registry does.<br>
+	 * The lists keep the order of the collection, so they can be passed to {@link #selectProvider(Class, List, ModuleContainer)}.
+	 */
+	static Map<Class<?>, List<ModuleContainer>> indexProviders(Collection<ModuleContainer> containers){
+		Map<Class<?>, List<ModuleContainer>> index = new HashMap<>();
+		index.put(Module.class, new ArrayList<>(containers));
+		for (ModuleContainer mc : containers){
+			for (Class<?> type : MODULE_TYPES.get(mc.getType())){
+				index.computeIfAbsent(type, t -> new ArrayList<>(1)).add(mc);
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * Adds the container and replaces the container with the same type if there is one.
+	 */
+	public synchronized void put(ModuleContainer mc){
+		ModuleContainer previous = byType.put(mc.getType(), mc);
+		if (previous != null){
+			replaceIndexed(previous, mc);
+			return;
+		}
+		
+		ordered.add(mc);
+		for (Class<?> type : MODULE_TYPES.get(mc.getType())){
+			byModuleType.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(mc);
+		}
+	}
+	
+	/**
+	 * Removes this container if it is present.
+	 * 
+	 * @return <code>true</code> if the container has been removed
+	 */
+	public synchronized boolean remove(ModuleContainer mc){
+		if (!byType.remove(mc.getType(), mc)) return false;
+		
+		ordered.remove(mc);
+		for (Class<?> type : MODULE_TYPES.get(mc.getType())){
+			List<ModuleContainer> containers = byModuleType.get(type);
+			if (containers != null) containers.remove(mc);
+		}
+		return true;
+	}
+	
+	/**
+	 * Replaces the old container with the new one, if the old container is present.
+	 * 
+	 * @return <code>true</code> if the container has been replaced
+	 */
+	public synchronized boolean replace(ModuleContainer old, ModuleContainer mc){
+		if (!byType.replace(mc.getType(), old, mc)) return false;
+		
+		replaceIndexed(old, mc);
+		return true;
+	}
+	
+	/**
+	 * Puts the new container at the position of the old one, both have the same type so they are indexed under the same types.
+	 */
+	private void replaceIndexed(ModuleContainer old, ModuleContainer mc){
+		replaceIn(ordered, old, mc);
+		for (Class<?> type : MODULE_TYPES.get(mc.getType())){
+			replaceIn(byModuleType.get(type), old, mc);
+		}
+	}
+	
+	private static void replaceIn(List<ModuleContainer> containers, ModuleContainer old, ModuleContainer mc){
+		int index = containers.indexOf(old);
+		if (index >= 0) containers.set(index, mc);
+		else containers.add(mc);
+	}
+	
+}
@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The cpu-time and the allocated bytes of all work that has been done on behalf of a {@link Module}, see {@link ResourceCategory}.<br>
+ * <br>
+ * The usage is measured with the thread-counters of the JVM <i>(see {@link java.lang.management.ThreadMXBean})</i> before and after every call, 
+ * so it only contains the work done on the calling thread. If the JVM can't measure the cpu-time or the allocations of threads, the values stay <code>0</code>.<br>
+ * <br>
+ * The rates are calculated between the last two {@link #sample() samples}, the {@link ModuleManager} takes a sample with every resource-summary.
+ */
+public final class ModuleResources {
+	
+	private final Map<ResourceCategory, Counter> counters;
+	
+	private long sampleTime;
+	private long sampledCpu;
+	private long sampledBytes;
+	private volatile double cpuUsage;
+	private volatile double allocationRate;
+	
+	ModuleResources() {
+		this.counters = new EnumMap<>(ResourceCategory.class);
+		for (ResourceCategory category : ResourceCategory.values()) counters.put(category, new Counter());
+		
+		this.sampleTime = System.nanoTime();
+		this.sampledCpu = 0;
+		this.sampledBytes = 0;
+		this.cpuUsage = 0;
+		this.allocationRate = 0;
+	}
+	
+	/**
+	 * The total cpu-time used by the module.
+	 */
+	public long getCpuTime(TimeUnit unit){
+		long total = 0;
+		for (Counter counter : counters.values()) total += counter.cpu.sum();
+		return unit.convert(total, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * The cpu-time used by the module for this kind of work.
+	 */
+	public long getCpuTime(ResourceCategory category, TimeUnit unit){
+		return unit.convert(counters.get(category).cpu.sum(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * The total number of bytes allocated by the module.
+	 */
+	public long getAllocatedBytes(){
+		long total = 0;
+		for (Counter counter : counters.values()) total += counter.bytes.sum();
+		return total;
+	}
+	
+	/**
+	 * The number of bytes allocated by the module for this kind of work.
+	 */
+	public long getAllocatedBytes(ResourceCategory category){
+		return counters.get(category).bytes.sum();
+	}
+	
+	/**
+	 * The number of measured calls of this kind of work.
+	 */
+	public long getCalls(ResourceCategory category){
+		return counters.get(category).calls.sum();
+	}
+	
+	/**
+	 * The cpu-time used by the module between the last two samples, as a fraction of one cpu-core <i>(<code>0.5</code> means half a core)</i>.
+	 */
+	public double getCpuUsage(){
+		return cpuUsage;
+	}
+	
+	/**
+	 * The bytes allocated by the module per second, between the last two samples.
+	 */
+	public double getAllocationRate(){
+		return allocationRate;
+	}
+	
+	/**
+	 * Updates the {@link #getCpuUsage() cpu-usage} and the {@link #getAllocationRate() allocation-rate} to the usage since the last sample.
+	 */
+	public synchronized void sample(){
+		long now = System.nanoTime();
+		long cpu = getCpuTime(TimeUnit.NANOSECONDS);
+		long bytes = getAllocatedBytes();
+		
+		long elapsed = now - sampleTime;
+		if (elapsed <= 0) return;
+		
+		cpuUsage = (double) (cpu - sampledCpu) / elapsed;
+		allocationRate = (bytes - sampledBytes) * 1000000000d / elapsed;
+		
+		sampleTime = now;
+		sampledCpu = cpu;
+		sampledBytes = bytes;
+	}
+	
+	void record(ResourceCategory category, long cpuNanos, long bytes){
+		Counter counter = counters.get(category);
+		counter.cpu.add(cpuNanos);
+		counter.bytes.add(bytes);
+		counter.calls.increment();
+	}
+	
+	/**
+	 * Tests if the JVM can measure the cpu-time of threads.
+	 */
+	public static boolean isCpuTimeSupported(){
+		return ResourceMeter.isCpuTimeSupported();
+	}
+	
+	/**
+	 * Tests if the JVM can measure the bytes allocated by threads.
+	 */
+	public static boolean isAllocationSupported(){
+		return ResourceMeter.isAllocationSupported();
+	}
+	
+	@Override
+	public String toString(){
+		return "ModuleResources[cpu=" + getCpuTime(TimeUnit.MILLISECONDS) + "ms, allocated=" + getAllocatedBytes() + "B, cpuUsage=" + cpuUsage + ", allocationRate=" + allocationRate + "B/s]";
+	}
+	
+	private static final class Counter {
+		final LongAdder cpu = new LongAdder();
+		final LongAdder bytes = new LongAdder();
+		final LongAdder calls = new LongAdder();
+	}
+	
+}
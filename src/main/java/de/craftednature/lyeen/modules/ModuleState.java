@@ -27,7 +27,10 @@
 package de.craftednature.lyeen.modules;
 
 /**
- * Represents the state of a {@link Module}
+ * Represents the state of a {@link Module}<br>
+ * <br>
+ * Besides the stable states, a module is in a transitional state while a lifecycle-method is running. 
+ * Lifecycle-operations that are requested during a transition wait until it is finished, see {@link ModuleContainer#awaitState()}.
  */
 public enum ModuleState {
 	
@@ -38,14 +41,26 @@ public enum ModuleState {
 	 */
 	CONSTRUCTED,
 	
+	/**
+	 * <i>(Transitional)</i> {@link Module#init()} and {@link Module#load()} are beeing called.<br>
+	 * The module will be {@link #INITIALIZED}, or {@link #STOPPED} if the initialisation fails, because a module can't be initialized again.
+	 */
+	INITIALIZING,
+	
 	/**
 	 * The {@link Module} is initialized and ready to be started and used.<br>
 	 * <br>
 	 * {@link Module#init()} <i>(and {@link Module#load()})</i> has been called.<br>
-	 * {@link Module#start()} has not been called yet.
+	 * {@link Module#start()} has not been called yet, or the module has been {@link ModuleContainer#suspendModule() suspended} since.
 	 */
 	INITIALIZED,
 	
+	/**
+	 * <i>(Transitional)</i> {@link Module#start()} is beeing called.<br>
+	 * The module will be {@link #STARTED}, or {@link #INITIALIZED} again if starting fails.
+	 */
+	STARTING,
+	
 	/**
 	 * The {@link Module} is initialized and started.<br>
 	 * <br>
@@ -54,10 +69,30 @@ public enum ModuleState {
 	 */
 	STARTED,
 	
+	/**
+	 * <i>(Transitional)</i> The data of the {@link Module} is beeing saved or captured for an asynchronous save.<br>
+	 * The module will be in the state again that it has been in before, see {@link ModuleContainer#getStableState()}.
+	 */
+	SAVING,
+	
+	/**
+	 * <i>(Transitional)</i> The {@link Module} is beeing saved and stopped, or suspended.<br>
+	 * The module will be {@link #STOPPED} <i>(or {@link #INITIALIZED} if it is suspended)</i>. It is {@link #STOPPED} as well if stopping fails.
+	 */
+	STOPPING,
+	
 	/**
 	 * The {@link Module} is stopped.<br>
 	 * <br>
 	 * {@link Module#stop()} has been called.
 	 */
-	STOPPED
-}
\ No newline at end of file
+	STOPPED;
+	
+	/**
+	 * Tests if this is a transitional state, that a lifecycle-method is currently running in.
+	 */
+	public boolean isTransitional(){
+		return this == INITIALIZING || this == STARTING || this == SAVING || this == STOPPING;
+	}
+	
+}
@@ -0,0 +1,267 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+
+import de.craftednature.lyeen.LyeenPlugin;
+
+/**
+ * Runs the {@link TickTask}s of all modules on the main thread, within a time-budget per tick.<br>
+ * <br>
+ * Every tick, the due tasks are run slice by slice, higher {@link TaskPriority priorities} first and in submission-order within a priority.
+ * A task that has more work to do after a slice is queued again behind the other tasks of its priority, so long tasks share the budget with each other.
+ * As soon as the budget of the tick is used up, the remaining tasks are carried over to the next tick.
+ * The scheduler can't interrupt a running slice, so the budget can be exceeded by the length of one slice.<br>
+ * <br>
+ * Tasks of modules that are not started anymore are cancelled.
+ */
+public final class ModuleTaskScheduler {
+	
+	private static final long STARVATION_TICKS = 100;
+	
+	private final ModuleManager manager;
+	private final Queue<ScheduledTask> submitted;
+	private final PriorityQueue<ScheduledTask> delayed;
+	private final Map<TaskPriority, ArrayDeque<ScheduledTask>> ready;
+	private final Map<Class<? extends Module>, TaskStats> stats;
+	
+	private volatile long tickBudget;
+	private volatile long currentTick;
+	private volatile long lastTickTime;
+	private volatile int readyCount;
+	
+	ModuleTaskScheduler(ModuleManager manager, long tickBudget) {
+		this.manager = manager;
+		this.submitted = new ConcurrentLinkedQueue<>();
+		this.delayed = new PriorityQueue<>(Comparator.comparingLong((ScheduledTask t) -> t.dueTick));
+		this.ready = new EnumMap<>(TaskPriority.class);
+		for (TaskPriority priority : TaskPriority.values()) ready.put(priority, new ArrayDeque<>());
+		this.stats = new ConcurrentHashMap<>();
+		
+		this.tickBudget = tickBudget;
+		this.currentTick = 0;
+		this.lastTickTime = 0;
+		this.readyCount = 0;
+	}
+	
+	/**
+	 * Sets the time the scheduler can use for the tasks in each tick. <i>(Default: 5ms)</i>
+	 */
+	public void setTickBudget(long budget, TimeUnit unit){
+		Preconditions.checkArgument(budget > 0, "The budget must be greater than 0!");
+		this.tickBudget = unit.toNanos(budget);
+	}
+	
+	public long getTickBudget(TimeUnit unit){
+		return unit.convert(tickBudget, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Submits a task that is run in the next tick, until its work is done.<br>
+	 * This method can be called from any thread.
+	 * 
+	 * @param owner the {@link Module} that submits the task
+	 * @param priority the priority of the task
+	 * @param task the task
+	 * @return the handle of the task
+	 */
+	public ScheduledTask submit(Module owner, TaskPriority priority, TickTask task){
+		return schedule(owner, priority, task, 0, 0);
+	}
+	
+	/**
+	 * Submits a task that is run every <code>interval</code> ticks, until it is cancelled or the owner is stopped.<br>
+	 * Each run starts when the work of the previous run is done <i>(the task returned <code>false</code>)</i> and the interval has passed.<br>
+	 * This method can be called from any thread.
+	 * 
+	 * @param owner the {@link Module} that submits the task
+	 * @param priority the priority of the task
+	 * @param interval the number of ticks between two runs
+	 * @param task the task
+	 * @return the handle of the task
+	 */
+	public ScheduledTask submitRepeating(Module owner, TaskPriority priority, long interval, TickTask task){
+		Preconditions.checkArgument(interval > 0, "The interval must be greater than 0!");
+		return schedule(owner, priority, task, interval, interval);
+	}
+	
+	private ScheduledTask schedule(Module owner, TaskPriority priority, TickTask task, long interval, long delay){
+		Preconditions.checkNotNull(owner);
+		Preconditions.checkNotNull(priority);
+		Preconditions.checkNotNull(task);
+		
+		ScheduledTask scheduled = new ScheduledTask(this, owner, priority, task, interval, currentTick + delay);
+		getStatsOf(owner.getClass()).queued();
+		submitted.add(scheduled);
+		return scheduled;
+	}
+	
+	/**
+	 * Returns the statistics of the tasks of the {@link Module} with this type.
+	 */
+	public Optional<TaskStats> getStats(Class<? extends Module> moduleType){
+		return Optional.ofNullable(stats.get(moduleType));
+	}
+	
+	/**
+	 * The number of tasks that have been due at the end of the last tick, but could not be run within the budget.
+	 */
+	public int getCarriedOver(){
+		return readyCount;
+	}
+	
+	/**
+	 * The time the tasks used in the last tick.
+	 */
+	public long getLastTickTime(TimeUnit unit){
+		return unit.convert(lastTickTime, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * Runs the due tasks within the budget of one tick. This needs to be called on the main thread.
+	 */
+	void tick(){
+		long tick = ++currentTick;
+		long start = System.nanoTime();
+		long deadline = start + tickBudget;
+		
+		ScheduledTask task;
+		while ((task = submitted.poll()) != null){
+			if (task.dueTick <= tick) enqueue(task, tick);
+			else delayed.add(task);
+		}
+		while ((task = delayed.peek()) != null && task.dueTick <= tick){
+			delayed.poll();
+			enqueue(task, tick);
+		}
+		
+		promoteStarved(tick);
+		
+		long now = start;
+		while (now - deadline < 0 && (task = pollReady()) != null){
+			if (task.isDone()) continue;
+			
+			ModuleContainer owner = getStartedOwner(task.getOwner());
+			if (owner == null){
+				task.cancel();
+				continue;
+			}
+			
+			boolean more;
+			ResourceMeter meter = ResourceMeter.begin();
+			try {
+				more = task.getTask().run();
+			} catch (Throwable t){
+				LyeenPlugin.getLogger().error("Exception in task of module: " + task.getOwner().getName() + ", the task is cancelled!", t);
+				task.cancel();
+				more = false;
+			} finally {
+				meter.end(owner.getResources(), ResourceCategory.TASK);
+			}
+			
+			long end = System.nanoTime();
+			getStatsOf(task.getOwner().getClass()).recordSlice(end - now);
+			now = end;
+			
+			if (task.isDone()) continue;
+			
+			if (more){
+				enqueue(task, tick);
+			} else if (task.getInterval() > 0){
+				task.dueTick = tick + task.getInterval();
+				task.priority = task.getPriority();
+				delayed.add(task);
+			} else {
+				task.finish();
+			}
+		}
+		
+		int count = 0;
+		for (ArrayDeque<ScheduledTask> queue : ready.values()) count += queue.size();
+		readyCount = count;
+		lastTickTime = now - start;
+	}
+	
+	private void enqueue(ScheduledTask task, long tick){
+		task.queuedTick = tick;
+		ready.get(task.priority).addLast(task);
+	}
+	
+	private ScheduledTask pollReady(){
+		for (ArrayDeque<ScheduledTask> queue : ready.values()){
+			ScheduledTask task = queue.pollFirst();
+			if (task != null) return task;
+		}
+		return null;
+	}
+	
+	/**
+	 * Moves the oldest task of each priority up to the next higher priority, if it has been waiting for too long.
+	 */
+	private void promoteStarved(long tick){
+		TaskPriority[] priorities = TaskPriority.values();
+		for (int i = 1; i < priorities.length; i++){
+			ArrayDeque<ScheduledTask> queue = ready.get(priorities[i]);
+			ScheduledTask task = queue.peekFirst();
+			if (task == null || tick - task.queuedTick < STARVATION_TICKS) continue;
+			
+			queue.pollFirst();
+			task.priority = priorities[i - 1];
+			enqueue(task, tick);
+		}
+	}
+	
+	/**
+	 * Returns the {@link ModuleContainer} of the owner, or <code>null</code> if the owner is not started.
+	 */
+	private ModuleContainer getStartedOwner(Module owner){
+		ModuleContainer mc = manager.modules.get(owner.getClass());
+		if (mc != null && mc.getModule() == owner && mc.getStableState() == ModuleState.STARTED) return mc;
+		return null;
+	}
+	
+	private TaskStats getStatsOf(Class<? extends Module> moduleType){
+		return stats.computeIfAbsent(moduleType, t -> new TaskStats());
+	}
+	
+	void finished(ScheduledTask task){
+		getStatsOf(task.getOwner().getClass()).finished();
+	}
+	
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The wall-clock and cpu timings of all {@link LifecyclePhase}s of a {@link Module}.
+ */
+public final class ModuleTimings {
+	
+	private static final int WINDOW_SIZE = 128;
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+	
+	private final Map<LifecyclePhase, TimingHistogram> wallTimes;
+	private final Map<LifecyclePhase, TimingHistogram> cpuTimes;
+	
+	public ModuleTimings() {
+		this.wallTimes = new EnumMap<>(LifecyclePhase.class);
+		this.cpuTimes = new EnumMap<>(LifecyclePhase.class);
+		
+		for (LifecyclePhase phase : LifecyclePhase.values()){
+			wallTimes.put(phase, new TimingHistogram(WINDOW_SIZE));
+			cpuTimes.put(phase, new TimingHistogram(WINDOW_SIZE));
+		}
+	}
+	
+	/**
+	 * The wall-clock durations of this phase in nanoseconds
+	 */
+	public TimingHistogram getWallTime(LifecyclePhase phase){
+		return wallTimes.get(phase);
+	}
+	
+	/**
+	 * The cpu-time the thread running this phase used, in nanoseconds.<br>
+	 * If the JVM does not support measuring the cpu-time of threads, this histogram stays empty.
+	 */
+	public TimingHistogram getCpuTime(LifecyclePhase phase){
+		return cpuTimes.get(phase);
+	}
+	
+	void record(LifecyclePhase phase, long wallNanos, long cpuNanos){
+		wallTimes.get(phase).record(wallNanos);
+		if (cpuNanos >= 0) cpuTimes.get(phase).record(cpuNanos);
+	}
+	
+	/**
+	 * Returns the cpu-time of the current thread in nanoseconds, or <code>-1</code> if it can't be measured.
+	 */
+	static long currentCpuTime(){
+		if (!CPU_TIME_SUPPORTED) return -1;
+		
+		try {
+			return THREADS.getCurrentThreadCpuTime();
+		} catch (UnsupportedOperationException ex){
+			return -1;
+		}
+	}
+	
+}
@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+/**
+ * The kinds of work that the {@link ModuleResources} of a {@link Module} are accounted to.
+ */
+public enum ResourceCategory {
+	
+	/**
+	 * All {@link LifecyclePhase}s of the module
+	 */
+	LIFECYCLE,
+	
+	/**
+	 * The {@link TickTask}s of the module in the {@link ModuleTaskScheduler}, and the tasks it hands over to the main thread using {@link ModuleExecutor#mainThread()}
+	 */
+	TASK,
+	
+	/**
+	 * The listeners of the module in the {@link ModuleEventBus}, including the ones that are delivered asynchronously
+	 */
+	EVENT,
+	
+	/**
+	 * The tasks that run on the {@link ModuleExecutor} of the module
+	 */
+	ASYNC
+	
+}
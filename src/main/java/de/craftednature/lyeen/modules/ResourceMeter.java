@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Measures the cpu-time and the allocated bytes of the current thread between {@link #begin()} and {@link #end(ModuleResources, ResourceCategory)}.<br>
+ * <br>
+ * Measurements can be nested <i>(e.g. a module posts an event while it is starting)</i>, 
+ * the outer measurement then only accounts the usage that is not accounted to the inner measurement, so nothing is counted twice.<br>
+ * There is one meter per thread, it does not allocate anything after the first few measurements.
+ */
+final class ResourceMeter {
+	
+	private static final ThreadLocal<ResourceMeter> METERS = ThreadLocal.withInitial(ResourceMeter::new);
+	
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final com.sun.management.ThreadMXBean ALLOCATION_THREADS = findAllocationCounter();
+	private static final MethodHandle CURRENT_THREAD_ALLOCATED_BYTES = findCurrentThreadAllocationCounter();
+	
+	private static final int FRAME_SIZE = 4;
+	
+	private long[] frames;
+	private int depth;
+	private long accountedCpu;
+	private long accountedBytes;
+	
+	private ResourceMeter() {
+		this.frames = new long[FRAME_SIZE * 8];
+		this.depth = 0;
+		this.accountedCpu = 0;
+		this.accountedBytes = 0;
+	}
+	
+	/**
+	 * Starts a measurement on the current thread, every call needs to be followed by exactly one call of {@link #end(ModuleResources, ResourceCategory)} on the returned meter.
+	 */
+	static ResourceMeter begin(){
+		ResourceMeter meter = METERS.get();
+		meter.push();
+		return meter;
+	}
+	
+	private void push(){
+		int offset = depth * FRAME_SIZE;
+		if (offset == frames.length) frames = Arrays.copyOf(frames, frames.length * 2);
+		
+		frames[offset] = currentCpuTime();
+		frames[offset + 1] = currentAllocatedBytes();
+		frames[offset + 2] = accountedCpu;
+		frames[offset + 3] = accountedBytes;
+		depth++;
+	}
+	
+	/**
+	 * Ends the last measurement of this thread and accounts the usage to the resources.<br>
+	 * If the resources are <code>null</code>, the usage is left to the outer measurement.
+	 * 
+	 * @return the cpu-time of the whole measurement in nanoseconds <i>(including nested measurements)</i>, or <code>-1</code> if it can't be measured
+	 */
+	long end(ModuleResources resources, ResourceCategory category){
+		int offset = --depth * FRAME_SIZE;
+		
+		long measuredCpu = frames[offset] >= 0 ? currentCpuTime() - frames[offset] : -1;
+		long cpu = Math.max(measuredCpu, 0);
+		long bytes = frames[offset + 1] >= 0 ? currentAllocatedBytes() - frames[offset + 1] : 0;
+		
+		long nestedCpu = accountedCpu - frames[offset + 2];
+		long nestedBytes = accountedBytes - frames[offset + 3];
+		
+		if (resources == null){
+			//the nested measurements are still accounted, so they are not counted again by the outer one
+			return measuredCpu;
+		}
+		
+		resources.record(category, Math.max(cpu - nestedCpu, 0), Math.max(bytes - nestedBytes, 0));
+		accountedCpu = frames[offset + 2] + Math.max(cpu, nestedCpu);
+		accountedBytes = frames[offset + 3] + Math.max(bytes, nestedBytes);
+		return measuredCpu;
+	}
+	
+	/**
+	 * Tests if the JVM can measure the bytes allocated by a thread.
+	 */
+	static boolean isAllocationSupported(){
+		return ALLOCATION_THREADS != null;
+	}
+	
+	/**
+	 * Tests if the JVM can measure the cpu-time of a thread.
+	 */
+	static boolean isCpuTimeSupported(){
+		return ModuleTimings.currentCpuTime() >= 0;
+	}
+	
+	private static long currentCpuTime(){
+		return ModuleTimings.currentCpuTime();
+	}
+	
+	/**
+	 * Returns the number of bytes the current thread has allocated so far, or <code>-1</code> if it can't be measured.
+	 */
+	static long currentAllocatedBytes(){
+		if (ALLOCATION_THREADS == null) return -1;
+		
+		try {
+			if (CURRENT_THREAD_ALLOCATED_BYTES != null) return (long) CURRENT_THREAD_ALLOCATED_BYTES.invokeExact();
+			return ALLOCATION_THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+		} catch (Throwable t){
+			return -1;
+		}
+	}
+	
+	private static com.sun.management.ThreadMXBean findAllocationCounter(){
+		if (!(THREADS instanceof com.sun.management.ThreadMXBean)) return null;
+		
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+		try {
+			if (!threads.isThreadAllocatedMemorySupported()) return null;
+			if (!threads.isThreadAllocatedMemoryEnabled()) threads.setThreadAllocatedMemoryEnabled(true);
+			return threads;
+		} catch (UnsupportedOperationException | SecurityException ex){
+			return null;
+		}
+	}
+	
+	/**
+	 * Java 14+ can read the counter of the current thread directly, older versions have to look the thread up by its id.
+	 */
+	private static MethodHandle findCurrentThreadAllocationCounter(){
+		if (ALLOCATION_THREADS == null) return null;
+		
+		try {
+			return MethodHandles.publicLookup()
+					.findVirtual(com.sun.management.ThreadMXBean.class, "getCurrentThreadAllocatedBytes", MethodType.methodType(long.class))
+					.bindTo(ALLOCATION_THREADS);
+		} catch (NoSuchMethodException | IllegalAccessException ex){
+			return null;
+		}
+	}
+	
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result of saving all modules with {@link ModuleManager#saveAllAsync()}.
+ */
+public final class SaveReport {
+	
+	private final int saved;
+	private final int skipped;
+	private final int failed;
+	private final long bytesWritten;
+	private final long duration;
+	
+	SaveReport(int saved, int skipped, int failed, long bytesWritten, long duration) {
+		this.saved = saved;
+		this.skipped = skipped;
+		this.failed = failed;
+		this.bytesWritten = bytesWritten;
+		this.duration = duration;
+	}
+	
+	/**
+	 * The number of modules that have been saved successfully.
+	 */
+	public int getSaved(){
+		return saved;
+	}
+	
+	/**
+	 * The number of modules that have not been saved, because they had no changes.
+	 */
+	public int getSkipped(){
+		return skipped;
+	}
+	
+	/**
+	 * The number of modules that failed to save.
+	 */
+	public int getFailed(){
+		return failed;
+	}
+	
+	/**
+	 * The number of bytes that the {@link SaveTask}s of the modules reported as written.
+	 * 
+	 * @see ModuleContainer#saveAsync(java.util.concurrent.Executor)
+	 */
+	public long getBytesWritten(){
+		return bytesWritten;
+	}
+	
+	/**
+	 * The time from the start of the save until all data has been written.
+	 */
+	public long getDuration(TimeUnit unit){
+		return unit.convert(duration, TimeUnit.NANOSECONDS);
+	}
+	
+	@Override
+	public String toString(){
+		return "SaveReport[saved=" + saved + ", skipped=" + skipped + ", failed=" + failed + ", bytesWritten=" + bytesWritten + ", duration=" + getDuration(TimeUnit.MILLISECONDS) + "ms]";
+	}
+	
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link TickTask} that has been submitted to the {@link ModuleTaskScheduler}.
+ */
+public final class ScheduledTask {
+	
+	private final ModuleTaskScheduler scheduler;
+	private final Module owner;
+	private final TaskPriority basePriority;
+	private final TickTask task;
+	private final long interval;
+	private final AtomicBoolean done;
+	
+	//only accessed by the main thread, the priority is raised while the task is starving
+	TaskPriority priority;
+	long dueTick;
+	long queuedTick;
+	
+	ScheduledTask(ModuleTaskScheduler scheduler, Module owner, TaskPriority priority, TickTask task, long interval, long dueTick) {
+		this.scheduler = scheduler;
+		this.owner = owner;
+		this.basePriority = priority;
+		this.task = task;
+		this.interval = interval;
+		this.done = new AtomicBoolean(false);
+		
+		this.priority = priority;
+		this.dueTick = dueTick;
+		this.queuedTick = dueTick;
+	}
+	
+	/**
+	 * The {@link Module} that submitted this task.
+	 */
+	public Module getOwner(){
+		return owner;
+	}
+	
+	/**
+	 * The priority this task has been submitted with.
+	 */
+	public TaskPriority getPriority(){
+		return basePriority;
+	}
+	
+	/**
+	 * The number of ticks between two runs of this task, or <code>0</code> if this task only runs once.
+	 */
+	public long getInterval(){
+		return interval;
+	}
+	
+	/**
+	 * Cancels this task, it will not be run again.<br>
+	 * A slice that is currently running is not interrupted.
+	 */
+	public void cancel(){
+		finish();
+	}
+	
+	/**
+	 * Tests if this task is done, either because all work is done or because it has been cancelled.
+	 */
+	public boolean isDone(){
+		return done.get();
+	}
+	
+	TickTask getTask(){
+		return task;
+	}
+	
+	/**
+	 * Marks this task as done.
+	 * 
+	 * @return <code>true</code> if this task was not done before
+	 */
+	boolean finish(){
+		if (!done.compareAndSet(false, true)) return false;
+		
+		scheduler.finished(this);
+		return true;
+	}
+	
+}
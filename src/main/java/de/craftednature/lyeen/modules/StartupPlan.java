@@ -0,0 +1,224 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The resolved {@link Depends}-graph of a set of {@link ModuleContainer}s.<br>
+ * <br>
+ * The graph is built once in <code>O(modules + dependencies)</code> and contains a topological order <i>(every {@link Module} comes after all its dependencies)</i>
+ * and all {@link Module}s that can't be started, together with the module-types they are missing.<br>
+ * The same plan can be used to stop the {@link Module}s again, using the {@link #getReverseOrder() reverse order}.
+ */
+public final class StartupPlan {
+
+	private final Map<ModuleContainer, Node> nodes;
+	private final List<ModuleContainer> order;
+	private final List<ModuleContainer> reverseOrder;
+	private final Map<ModuleContainer, Collection<Class<? extends Module>>> unsatisfied;
+	
+	private StartupPlan(Map<ModuleContainer, Node> nodes, List<ModuleContainer> order, Map<ModuleContainer, Collection<Class<? extends Module>>> unsatisfied) {
+		this.nodes = nodes;
+		this.order = Collections.unmodifiableList(order);
+		
+		List<ModuleContainer> reverse = new ArrayList<>(order);
+		Collections.reverse(reverse);
+		this.reverseOrder = Collections.unmodifiableList(reverse);
+		
+		this.unsatisfied = Collections.unmodifiableMap(unsatisfied);
+	}
+	
+	/**
+	 * Resolves the dependencies of all these {@link ModuleContainer}s and creates the plan.
+	 */
+	public static StartupPlan resolve(Collection<ModuleContainer> containers){
+		Map<ModuleContainer, Node> nodes = new LinkedHashMap<>(containers.size() * 2);
+		for (ModuleContainer mc : containers) nodes.put(mc, new Node(mc));
+		
+		Map<Class<?>, List<ModuleContainer>> providerIndex = ModuleRegistry.indexProviders(nodes.keySet());
+		
+		//build the edges
+		for (Node node : nodes.values()){
+			Module module = node.container.getModule();
+			InjectionPoint[] points = node.container.getDescriptor().getDependencies();
+			node.providers = new Node[points.length];
+			
+			for (int i = 0; i < points.length; i++){
+				InjectionPoint point = points[i];
+				if (point.isSet(module)) continue;
+				
+				Node provider = nodes.get(ModuleRegistry.selectProvider(point.getType(), providerIndex.get(point.getType()), node.container));
+				if (provider == null){
+					node.missing.add(point.getType());
+					continue;
+				}
+				
+				node.providers[i] = provider;
+				provider.dependents.add(node);
+				node.pending++;
+			}
+		}
+		
+		//kahn's algorithm
+		List<ModuleContainer> order = new ArrayList<>(nodes.size());
+		ArrayList<Node> queue = new ArrayList<>();
+		for (Node node : nodes.values()){
+			if (node.pending == 0 && node.missing.isEmpty()) queue.add(node);
+		}
+		
+		int head = 0;
+		while (head < queue.size()){
+			Node node = queue.get(head++);
+			node.resolved = true;
+			order.add(node.container);
+			
+			for (Node dependent : node.dependents){
+				if (--dependent.pending == 0 && dependent.missing.isEmpty()) queue.add(dependent);
+			}
+		}
+		
+		//everything that is left is missing something or depends on a cycle
+		Map<ModuleContainer, Collection<Class<? extends Module>>> unsatisfied = new LinkedHashMap<>();
+		for (Node node : nodes.values()){
+			if (node.resolved) continue;
+			
+			InjectionPoint[] points = node.container.getDescriptor().getDependencies();
+			for (int i = 0; i < points.length; i++){
+				Node provider = node.providers[i];
+				if (provider != null && !provider.resolved) node.missing.add(points[i].getType());
+			}
+			
+			unsatisfied.put(node.container, Collections.unmodifiableSet(node.missing));
+		}
+		
+		return new StartupPlan(nodes, order, unsatisfied);
+	}
+	
+	/**
+	 * All startable {@link Module}s in the order they have to be initialized and started.
+	 */
+	public List<ModuleContainer> getOrder(){
+		return order;
+	}
+	
+	/**
+	 * All startable {@link Module}s in the order they have to be stopped.
+	 */
+	public List<ModuleContainer> getReverseOrder(){
+		return reverseOrder;
+	}
+	
+	/**
+	 * All {@link Module}s that can't be started, mapped to the module-types of the dependencies that are missing or can't be started themselves.
+	 */
+	public Map<ModuleContainer, Collection<Class<? extends Module>>> getUnsatisfied(){
+		return unsatisfied;
+	}
+	
+	/**
+	 * Tests if this {@link ModuleContainer} was part of the resolution of this plan.
+	 */
+	public boolean contains(ModuleContainer mc){
+		return nodes.containsKey(mc);
+	}
+	
+	/**
+	 * Tests if every of these {@link ModuleContainer}s was part of the resolution of this plan.
+	 */
+	public boolean containsAll(Collection<ModuleContainer> containers){
+		for (ModuleContainer mc : containers){
+			if (!contains(mc)) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns all {@link Module}s that directly depend on this {@link Module}.
+	 */
+	public Collection<ModuleContainer> getDependents(ModuleContainer mc){
+		Node node = nodes.get(mc);
+		if (node == null) return Collections.emptyList();
+		
+		List<ModuleContainer> dependents = new ArrayList<>(node.dependents.size());
+		for (Node dependent : node.dependents) dependents.add(dependent.container);
+		return dependents;
+	}
+	
+	/**
+	 * Returns the {@link ModuleContainer}s that have been selected to provide the {@link Depends}-fields of this {@link Module}.<br>
+	 * The array is aligned with {@link ModuleDescriptor#getDependencies()}, fields that were already set or can't be provided are <code>null</code>.
+	 */
+	ModuleContainer[] getProviders(ModuleContainer mc){
+		Node node = nodes.get(mc);
+		if (node == null) return new ModuleContainer[0];
+		
+		ModuleContainer[] providers = new ModuleContainer[node.providers.length];
+		for (int i = 0; i < providers.length; i++){
+			if (node.providers[i] != null) providers[i] = node.providers[i].container;
+		}
+		return providers;
+	}
+	
+	/**
+	 * Returns the type itself and all its superclasses and interfaces that are {@link Module}s.
+	 */
+	static Set<Class<?>> moduleTypesOf(Class<?> type){
+		Set<Class<?>> types = new LinkedHashSet<>();
+		collectModuleTypes(type, types);
+		return types;
+	}
+	
+	private static void collectModuleTypes(Class<?> type, Set<Class<?>> types){
+		if (type == null || !Module.class.isAssignableFrom(type)) return;
+		if (!types.add(type)) return;
+		
+		collectModuleTypes(type.getSuperclass(), types);
+		for (Class<?> iface : type.getInterfaces()) collectModuleTypes(iface, types);
+	}
+	
+	private static class Node {
+		final ModuleContainer container;
+		final List<Node> dependents = new ArrayList<>(2);
+		final Set<Class<? extends Module>> missing = new LinkedHashSet<>();
+		Node[] providers;
+		int pending = 0;
+		boolean resolved = false;
+		
+		Node(ModuleContainer container) {
+			this.container = container;
+		}
+	}
+	
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics of the {@link TickTask}s of one {@link Module} in the {@link ModuleTaskScheduler}.
+ */
+public final class TaskStats {
+	
+	private final LongAdder time;
+	private final LongAdder slices;
+	private final AtomicInteger backlog;
+	
+	TaskStats() {
+		this.time = new LongAdder();
+		this.slices = new LongAdder();
+		this.backlog = new AtomicInteger();
+	}
+	
+	/**
+	 * The total time the tasks of the module have been running.
+	 */
+	public long getTime(TimeUnit unit){
+		return unit.convert(time.sum(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * The number of slices the tasks of the module have run.
+	 */
+	public long getSlices(){
+		return slices.sum();
+	}
+	
+	/**
+	 * The number of tasks of the module that are not done yet.
+	 */
+	public int getBacklog(){
+		return backlog.get();
+	}
+	
+	void recordSlice(long nanos){
+		time.add(nanos);
+		slices.increment();
+	}
+	
+	void queued(){
+		backlog.incrementAndGet();
+	}
+	
+	void finished(){
+		backlog.decrementAndGet();
+	}
+	
+	@Override
+	public String toString(){
+		return "TaskStats[time=" + getTime(TimeUnit.MILLISECONDS) + "ms, slices=" + getSlices() + ", backlog=" + getBacklog() + "]";
+	}
+	
+}
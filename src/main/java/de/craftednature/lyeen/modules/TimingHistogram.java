@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations in nanoseconds.<br>
+ * <br>
+ * The count, total and maximum cover all recorded durations, while the {@link #getPercentile(double) percentiles} and {@link #getBuckets() buckets}
+ * only cover a rolling window of the most recent durations.
+ */
+public final class TimingHistogram {
+	
+	/**
+	 * The number of buckets, bucket <code>i</code> contains all durations in <code>[2^(i-1), 2^i)</code> nanoseconds
+	 */
+	public static final int BUCKETS = 64;
+	
+	private final long[] window;
+	private final int[] buckets;
+	private int next;
+	private int size;
+	
+	private long count;
+	private long total;
+	private long max;
+	private long last;
+	
+	public TimingHistogram(int windowSize) {
+		this.window = new long[windowSize];
+		this.buckets = new int[BUCKETS];
+		this.next = 0;
+		this.size = 0;
+		
+		this.count = 0;
+		this.total = 0;
+		this.max = 0;
+		this.last = 0;
+	}
+	
+	/**
+	 * Records a duration. Negative durations are ignored.
+	 */
+	public synchronized void record(long nanos){
+		if (nanos < 0) return;
+		
+		if (size == window.length){
+			buckets[bucketOf(window[next])]--;
+		} else {
+			size++;
+		}
+		
+		window[next] = nanos;
+		buckets[bucketOf(nanos)]++;
+		next = (next + 1) % window.length;
+		
+		count++;
+		total += nanos;
+		if (nanos > max) max = nanos;
+		last = nanos;
+	}
+	
+	/**
+	 * The number of all recorded durations
+	 */
+	public synchronized long getCount(){
+		return count;
+	}
+	
+	/**
+	 * The sum of all recorded durations
+	 */
+	public synchronized long getTotal(){
+		return total;
+	}
+	
+	/**
+	 * The longest of all recorded durations
+	 */
+	public synchronized long getMax(){
+		return max;
+	}
+	
+	/**
+	 * The most recent recorded duration
+	 */
+	public synchronized long getLast(){
+		return last;
+	}
+	
+	/**
+	 * The average of all recorded durations
+	 */
+	public synchronized double getMean(){
+		if (count == 0) return 0;
+		return (double) total / count;
+	}
+	
+	/**
+	 * The number of durations in the rolling window
+	 */
+	public synchronized int getWindowSize(){
+		return size;
+	}
+	
+	/**
+	 * Returns the percentile of the durations in the rolling window.
+	 * 
+	 * @param percentile the percentile between 0 and 100
+	 */
+	public long getPercentile(double percentile){
+		long[] values;
+		synchronized (this) {
+			if (size == 0) return 0;
+			values = Arrays.copyOf(window, size);
+		}
+		
+		Arrays.sort(values);
+		int index = (int) Math.ceil(percentile / 100d * values.length) - 1;
+		return values[Math.max(0, Math.min(values.length - 1, index))];
+	}
+	
+	/**
+	 * Returns a copy of the bucket-counts of the durations in the rolling window.
+	 * 
+	 * @see #BUCKETS
+	 */
+	public synchronized int[] getBuckets(){
+		return Arrays.copyOf(buckets, buckets.length);
+	}
+	
+	private static int bucketOf(long nanos){
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+	
+}
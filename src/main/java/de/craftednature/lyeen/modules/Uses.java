@@ -27,6 +27,8 @@
 package de.craftednature.lyeen.modules;
 
 import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
@@ -37,5 +39,6 @@ import java.lang.annotation.Target;
  * <br>
  * <b>Fields with this annotation can always be set to <code>null</code>!
  */
+@Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.FIELD)
 public @interface Uses {}
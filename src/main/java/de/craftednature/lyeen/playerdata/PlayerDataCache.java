@@ -0,0 +1,470 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.playerdata;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.network.ClientConnectionEvent;
+
+import com.google.common.base.Preconditions;
+
+import de.craftednature.lyeen.LyeenPlugin;
+import de.craftednature.lyeen.modules.AutoSave;
+import de.craftednature.lyeen.modules.Module;
+import de.craftednature.lyeen.modules.ModuleExecutor;
+import de.craftednature.lyeen.modules.SaveTask;
+
+/**
+ * A {@link Module} that holds the {@link PlayerRecord}s of the players, so other modules don't need to load player data on their own.<br>
+ * <br>
+ * The records are kept in a cache that is limited to a {@link #setMaximumSize(int) maximum number} of records, 
+ * if the cache is full the least recently used record is evicted. The record of a player is loaded asynchronously when the player logs in.<br>
+ * Changes are written behind: the {@link AutoSave autosave} captures all changed records on the main thread and writes them in one batch on a background-thread.
+ * Changed records that have been evicted are kept until they are written.
+ */
+@AutoSave(interval = 30)
+public class PlayerDataCache implements Module {
+	
+	public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+	
+	private static final String FILE_EXTENSION = ".properties";
+	private static final String TEMP_FILE_EXTENSION = ".tmp";
+	
+	private final Path directory;
+	
+	private final Object lock = new Object();
+	private final LinkedHashMap<UUID, PlayerRecord> records;
+	private final Map<UUID, PlayerRecord> evicted;
+	private final Map<UUID, CompletableFuture<PlayerRecord>> loading;
+	private int maximumSize;
+	
+	private final AtomicLong stateVersion;
+	private final LongAdder hits, misses, evictions, writes;
+	
+	private volatile Executor executor;
+	
+	/**
+	 * @param directory the directory the records are stored in, one file per player
+	 */
+	public PlayerDataCache(Path directory) {
+		this.directory = directory;
+		
+		this.records = new LinkedHashMap<UUID, PlayerRecord>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<UUID, PlayerRecord> eldest) {
+				if (size() <= maximumSize) return false;
+				
+				evict(eldest.getValue());
+				return true;
+			}
+		};
+		this.evicted = new HashMap<>();
+		this.loading = new HashMap<>();
+		this.maximumSize = DEFAULT_MAXIMUM_SIZE;
+		
+		this.stateVersion = new AtomicLong();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+		this.writes = new LongAdder();
+		
+		this.executor = null;
+	}
+	
+	@Override
+	public void init() throws IOException {
+		Files.createDirectories(directory);
+	}
+	
+	@Override
+	public void start() {
+		ModuleExecutor executor = LyeenPlugin.getInstance().getModuleManager().getExecutor(this);
+		this.executor = executor;
+		
+		Sponge.getEventManager().registerListeners(LyeenPlugin.getInstance(), this);
+	}
+	
+	@Override
+	public void stop() {
+		Sponge.getEventManager().unregisterListeners(this);
+		
+		executor = null;
+	}
+	
+	@Listener(order = Order.EARLY)
+	public void onLogin(ClientConnectionEvent.Login evt){
+		UUID uuid = evt.getTargetUser().getUniqueId();
+		getAsync(uuid).exceptionally(ex -> {
+			logError("Failed to load the data of player " + uuid, ex);
+			return null;
+		});
+	}
+	
+	/**
+	 * Returns the {@link PlayerRecord} of this player, if it is currently loaded. This does not count as hit or miss.
+	 */
+	public Optional<PlayerRecord> getIfLoaded(UUID uuid){
+		synchronized (lock) {
+			return Optional.ofNullable(lookup(uuid));
+		}
+	}
+	
+	/**
+	 * Returns the {@link PlayerRecord} of this player, and loads it asynchronously if it is not loaded yet.<br>
+	 * If the player has no stored data yet, an empty record is created.
+	 * 
+	 * @throws IllegalStateException If this module is not started
+	 */
+	public CompletableFuture<PlayerRecord> getAsync(UUID uuid) throws IllegalStateException {
+		Preconditions.checkNotNull(uuid);
+		
+		synchronized (lock) {
+			PlayerRecord record = lookup(uuid);
+			if (record != null){
+				hits.increment();
+				return CompletableFuture.completedFuture(record);
+			}
+			
+			CompletableFuture<PlayerRecord> future = loading.get(uuid);
+			if (future != null) return future;
+			
+			Executor executor = this.executor;
+			Preconditions.checkState(executor != null, "The PlayerDataCache is not started!");
+			
+			misses.increment();
+			future = new CompletableFuture<>();
+			loading.put(uuid, future);
+			
+			CompletableFuture<PlayerRecord> result = future;
+			try {
+				executor.execute(() -> {
+					try {
+						result.complete(insert(read(uuid)));
+					} catch (IOException | RuntimeException ex){
+						synchronized (lock) {
+							loading.remove(uuid, result);
+						}
+						result.completeExceptionally(ex);
+					}
+				});
+			} catch (RejectedExecutionException ex){
+				//the executor is already shut down while this module is stopping
+				loading.remove(uuid, future);
+				future.completeExceptionally(ex);
+			}
+			
+			return future;
+		}
+	}
+	
+	/**
+	 * Returns the {@link PlayerRecord} of this player, and waits until it is loaded if it is not loaded yet.<br>
+	 * If the player has no stored data yet, an empty record is created.<br>
+	 * <br>
+	 * <b>This blocks the calling thread on a cache-miss, use {@link #getAsync(UUID)} on the main thread!</b>
+	 * 
+	 * @throws IOException If the record could not be loaded
+	 * @throws IllegalStateException If this module is not started
+	 */
+	public PlayerRecord get(UUID uuid) throws IOException, IllegalStateException {
+		try {
+			return getAsync(uuid).join();
+		} catch (CompletionException ex){
+			if (ex.getCause() instanceof IOException) throw (IOException) ex.getCause();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * Looks up a loaded record, and moves it back into the cache if it has been evicted but is not written yet.
+	 */
+	private PlayerRecord lookup(UUID uuid){
+		PlayerRecord record = records.get(uuid);
+		if (record != null) return record;
+		
+		record = evicted.remove(uuid);
+		if (record != null){
+			record.evicted = false;
+			records.put(uuid, record);
+		}
+		
+		return record;
+	}
+	
+	private PlayerRecord insert(PlayerRecord loaded){
+		synchronized (lock) {
+			loading.remove(loaded.getUniqueId());
+			
+			PlayerRecord record = lookup(loaded.getUniqueId());
+			if (record != null) return record;
+			
+			records.put(loaded.getUniqueId(), loaded);
+			return loaded;
+		}
+	}
+	
+	private void evict(PlayerRecord record){
+		record.evicted = true;
+		evictions.increment();
+		
+		if (record.isDirty()) evicted.put(record.getUniqueId(), record);
+	}
+	
+	/**
+	 * Called by a {@link PlayerRecord} every time it has been changed.
+	 */
+	void recordChanged(PlayerRecord record){
+		stateVersion.incrementAndGet();
+		
+		if (!record.evicted) return;
+		synchronized (lock) {
+			if (!record.evicted) return;
+			
+			UUID uuid = record.getUniqueId();
+			PlayerRecord current = records.containsKey(uuid) ? records.get(uuid) : evicted.get(uuid);
+			if (current == null){
+				evicted.put(uuid, record);
+			} else if (current != record){
+				logWarning("A change to an outdated record of player {} will not be saved! Don't keep references to the records of players that are not online.", uuid);
+			}
+		}
+	}
+	
+	/**
+	 * Captures all records that have unsaved changes, and returns a {@link SaveTask} that writes them in one batch.
+	 */
+	@Override
+	public SaveTask prepareSave() {
+		List<PlayerRecord> changed = new ArrayList<>();
+		
+		synchronized (lock) {
+			evicted.values().removeIf(record -> !record.isDirty());
+			changed.addAll(evicted.values());
+			
+			for (PlayerRecord record : records.values()){
+				if (record.isDirty()) changed.add(record);
+			}
+		}
+		
+		List<Snapshot> snapshots = new ArrayList<>(changed.size());
+		for (PlayerRecord record : changed){
+			long version = record.getVersion();
+			snapshots.add(new Snapshot(record, version, record.snapshot()));
+		}
+		
+		return () -> writeAll(snapshots);
+	}
+	
+	@Override
+	public void save() throws IOException {
+		prepareSave().write();
+	}
+	
+	@Override
+	public long getStateVersion() {
+		return stateVersion.get();
+	}
+	
+	private long writeAll(List<Snapshot> snapshots) throws IOException {
+		IOException failed = null;
+		long written = 0;
+		
+		for (Snapshot snapshot : snapshots){
+			try {
+				written += write(snapshot.record.getUniqueId(), snapshot.values);
+				snapshot.record.markSaved(snapshot.version);
+				writes.increment();
+			} catch (IOException ex){
+				if (failed == null) failed = new IOException("Failed to write the data of some players!");
+				failed.addSuppressed(ex);
+			}
+		}
+		
+		if (failed != null) throw failed;
+		return written;
+	}
+	
+	private PlayerRecord read(UUID uuid) throws IOException {
+		Path file = getFile(uuid);
+		Map<String, String> values = new HashMap<>();
+		
+		if (Files.exists(file)){
+			Properties properties = new Properties();
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)){
+				properties.load(reader);
+			}
+			
+			for (String key : properties.stringPropertyNames()){
+				values.put(key, properties.getProperty(key));
+			}
+		}
+		
+		return new PlayerRecord(this, uuid, values);
+	}
+	
+	/**
+	 * Writes the values of the player and returns the number of written bytes.
+	 */
+	private long write(UUID uuid, Properties values) throws IOException {
+		Path file = getFile(uuid);
+		
+		if (values.isEmpty()){
+			Files.deleteIfExists(file);
+			return 0;
+		}
+		
+		Path temp = file.resolveSibling(file.getFileName() + TEMP_FILE_EXTENSION);
+		try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)){
+			values.store(writer, null);
+		}
+		long size = Files.size(temp);
+		
+		try {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException ex){
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		
+		return size;
+	}
+	
+	private Path getFile(UUID uuid){
+		return directory.resolve(uuid.toString() + FILE_EXTENSION);
+	}
+	
+	/**
+	 * Sets the maximum number of records that are kept in the cache. <i>(Default: 1000)</i><br>
+	 * If there are currently more records loaded, the least recently used records are evicted.
+	 */
+	public void setMaximumSize(int maximumSize){
+		Preconditions.checkArgument(maximumSize > 0, "The maximum size must be greater than 0!");
+		
+		synchronized (lock) {
+			this.maximumSize = maximumSize;
+			
+			Iterator<PlayerRecord> iterator = records.values().iterator();
+			while (records.size() > maximumSize && iterator.hasNext()){
+				evict(iterator.next());
+				iterator.remove();
+			}
+		}
+	}
+	
+	public int getMaximumSize(){
+		synchronized (lock) {
+			return maximumSize;
+		}
+	}
+	
+	/**
+	 * The number of records that are currently in the cache.
+	 */
+	public int size(){
+		synchronized (lock) {
+			return records.size();
+		}
+	}
+	
+	/**
+	 * How often a requested record was already loaded.
+	 */
+	public long getHits(){
+		return hits.sum();
+	}
+	
+	/**
+	 * How often a requested record had to be loaded from disk.
+	 */
+	public long getMisses(){
+		return misses.sum();
+	}
+	
+	/**
+	 * The ratio of {@link #getHits() hits} to all requests, or <code>1</code> if there were no requests yet.
+	 */
+	public double getHitRate(){
+		long hits = getHits(), total = hits + getMisses();
+		if (total == 0) return 1;
+		return (double) hits / total;
+	}
+	
+	/**
+	 * How often a record has been evicted from the cache because it was full.
+	 */
+	public long getEvictions(){
+		return evictions.sum();
+	}
+	
+	/**
+	 * How many records have been written to disk.
+	 */
+	public long getWrites(){
+		return writes.sum();
+	}
+	
+	private static class Snapshot {
+		
+		private final PlayerRecord record;
+		private final long version;
+		private final Properties values;
+		
+		private Snapshot(PlayerRecord record, long version, Properties values) {
+			this.record = record;
+			this.version = version;
+			this.values = values;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,183 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.playerdata;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The persistent data of one player, held by the {@link PlayerDataCache}.<br>
+ * A record is a simple key-value store, the keys should be prefixed with the name of the module that uses them <i>(e.g. "homes.count")</i>.<br>
+ * <br>
+ * All methods of a record are thread-safe. Changes are written to disk by the {@link PlayerDataCache} in the background.
+ */
+public final class PlayerRecord {
+
+	private final PlayerDataCache cache;
+	private final UUID uuid;
+	private final Map<String, String> values;
+	private final AtomicLong version;
+	private volatile long savedVersion;
+	
+	volatile boolean evicted;
+	
+	PlayerRecord(PlayerDataCache cache, UUID uuid, Map<String, String> values) {
+		this.cache = cache;
+		this.uuid = uuid;
+		this.values = new ConcurrentHashMap<>(values);
+		this.version = new AtomicLong();
+		this.savedVersion = 0;
+		this.evicted = false;
+	}
+	
+	/**
+	 * The UUID of the player this record belongs to.
+	 */
+	public UUID getUniqueId(){
+		return uuid;
+	}
+	
+	public Optional<String> get(String key){
+		return Optional.ofNullable(values.get(key));
+	}
+	
+	public String getString(String key, String defaultValue){
+		return values.getOrDefault(key, defaultValue);
+	}
+	
+	public int getInt(String key, int defaultValue){
+		String value = values.get(key);
+		if (value == null) return defaultValue;
+		
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException ex){
+			return defaultValue;
+		}
+	}
+	
+	public long getLong(String key, long defaultValue){
+		String value = values.get(key);
+		if (value == null) return defaultValue;
+		
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException ex){
+			return defaultValue;
+		}
+	}
+	
+	public double getDouble(String key, double defaultValue){
+		String value = values.get(key);
+		if (value == null) return defaultValue;
+		
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException ex){
+			return defaultValue;
+		}
+	}
+	
+	public boolean getBoolean(String key, boolean defaultValue){
+		String value = values.get(key);
+		if (value == null) return defaultValue;
+		
+		return Boolean.parseBoolean(value);
+	}
+	
+	/**
+	 * All keys that have a value in this record.
+	 */
+	public Set<String> getKeys(){
+		return Collections.unmodifiableSet(values.keySet());
+	}
+	
+	/**
+	 * Sets the value for this key. The value is stored as {@link String#valueOf(Object) string}, <code>null</code> removes the key.
+	 */
+	public void set(String key, Object value){
+		Preconditions.checkNotNull(key);
+		
+		if (value == null){
+			remove(key);
+			return;
+		}
+		
+		String string = String.valueOf(value);
+		if (!Objects.equals(values.put(key, string), string)) changed();
+	}
+	
+	/**
+	 * Removes the value for this key.
+	 */
+	public void remove(String key){
+		if (values.remove(key) != null) changed();
+	}
+	
+	/**
+	 * Tests if this record has changes that have not been written to disk yet.
+	 */
+	public boolean isDirty(){
+		return version.get() != savedVersion;
+	}
+	
+	private void changed(){
+		version.incrementAndGet();
+		cache.recordChanged(this);
+	}
+	
+	/**
+	 * Captures the current values of this record.<br>
+	 * The snapshot contains at least all changes up to the {@link #getVersion() version} that has been read before.
+	 */
+	Properties snapshot(){
+		Properties properties = new Properties();
+		for (Entry<String, String> e : values.entrySet()){
+			properties.setProperty(e.getKey(), e.getValue());
+		}
+		return properties;
+	}
+	
+	long getVersion(){
+		return version.get();
+	}
+	
+	synchronized void markSaved(long version){
+		if (version > savedVersion) savedVersion = version;
+	}
+	
+}
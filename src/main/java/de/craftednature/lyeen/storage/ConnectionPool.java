@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.storage;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of {@link PooledConnection}s, used by the {@link SqlStorage}.<br>
+ * Connections are opened when they are needed, and kept open until the pool is closed.
+ */
+final class ConnectionPool {
+	
+	private final String url;
+	private final Properties properties;
+	private final int size;
+	private final int statementCacheSize;
+	
+	private final BlockingQueue<PooledConnection> idle;
+	private final Semaphore permits;
+	private volatile boolean closed;
+	
+	ConnectionPool(String url, Properties properties, int size, int statementCacheSize) {
+		this.url = url;
+		this.properties = properties;
+		this.size = size;
+		this.statementCacheSize = statementCacheSize;
+		
+		this.idle = new ArrayBlockingQueue<>(size);
+		this.permits = new Semaphore(size, true);
+		this.closed = false;
+	}
+	
+	/**
+	 * Takes a connection from the pool, and waits if all connections are in use.<br>
+	 * The connection needs to be given back with {@link #release(PooledConnection)}.
+	 * 
+	 * @throws SQLException If the pool is closed, no connection was available in time or a new connection could not be opened
+	 */
+	PooledConnection borrow(long timeout, TimeUnit unit) throws SQLException {
+		if (closed) throw new SQLException("The connection-pool is closed!");
+		
+		try {
+			if (!permits.tryAcquire(timeout, unit)) throw new SQLTimeoutException("No connection was available within " + unit.toMillis(timeout) + "ms!");
+		} catch (InterruptedException ex){
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection!", ex);
+		}
+		
+		try {
+			PooledConnection connection;
+			while ((connection = idle.poll()) != null){
+				if (connection.isUsable()) return connection;
+				connection.close();
+			}
+			
+			return new PooledConnection(DriverManager.getConnection(url, properties), statementCacheSize);
+		} catch (SQLException | RuntimeException ex){
+			permits.release();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * Gives a connection back to the pool. Closed connections are discarded.
+	 */
+	void release(PooledConnection connection){
+		connection.markUsed();
+		
+		if (!closed && connection.isUsable() && idle.offer(connection)){
+			if (closed && idle.remove(connection)) connection.close();
+		} else {
+			connection.close();
+		}
+		
+		permits.release();
+	}
+	
+	/**
+	 * Closes all idle connections. Connections that are in use are closed when they are released.
+	 */
+	void close(){
+		closed = true;
+		
+		PooledConnection connection;
+		while ((connection = idle.poll()) != null){
+			connection.close();
+		}
+	}
+	
+	int getSize(){
+		return size;
+	}
+	
+	int getActive(){
+		return size - permits.availablePermits();
+	}
+	
+	int getIdle(){
+		return idle.size();
+	}
+	
+}
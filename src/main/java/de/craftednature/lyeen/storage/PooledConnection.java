@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Connection} of the {@link ConnectionPool} with a cache of its {@link PreparedStatement}s.<br>
+ * Only one thread uses a pooled connection at a time, so it is not thread-safe.
+ */
+final class PooledConnection {
+	
+	private static final long VALIDATION_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+	private static final int VALIDATION_TIMEOUT = 1; //seconds
+	
+	private final Connection connection;
+	private final LinkedHashMap<String, PreparedStatement> statements;
+	private long lastUsed;
+	
+	PooledConnection(Connection connection, int statementCacheSize) {
+		this.connection = connection;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() <= statementCacheSize) return false;
+				
+				closeQuietly(eldest.getValue());
+				return true;
+			}
+		};
+		this.lastUsed = System.currentTimeMillis();
+	}
+	
+	Connection getConnection(){
+		return connection;
+	}
+	
+	/**
+	 * Returns the cached {@link PreparedStatement} for this sql, or prepares a new one.
+	 */
+	PreparedStatement prepare(String sql) throws SQLException {
+		PreparedStatement statement = statements.get(sql);
+		if (statement == null || statement.isClosed()){
+			statement = connection.prepareStatement(sql);
+			statements.put(sql, statement);
+		}
+		
+		return statement;
+	}
+	
+	/**
+	 * Tests if this connection is still open. Connections that have not been used for a while are also validated with the database.
+	 */
+	boolean isUsable(){
+		try {
+			if (connection.isClosed()) return false;
+			if (System.currentTimeMillis() - lastUsed < VALIDATION_INTERVAL) return true;
+			
+			return connection.isValid(VALIDATION_TIMEOUT);
+		} catch (SQLException ex){
+			return false;
+		}
+	}
+	
+	void markUsed(){
+		lastUsed = System.currentTimeMillis();
+	}
+	
+	void close(){
+		for (PreparedStatement statement : statements.values()){
+			closeQuietly(statement);
+		}
+		statements.clear();
+		
+		try {
+			connection.close();
+		} catch (SQLException ignore){}
+	}
+	
+	private static void closeQuietly(PreparedStatement statement){
+		try {
+			statement.close();
+		} catch (SQLException ignore){}
+	}
+	
+}
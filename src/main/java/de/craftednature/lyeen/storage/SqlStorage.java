@@ -0,0 +1,477 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+
+import de.craftednature.lyeen.LyeenPlugin;
+import de.craftednature.lyeen.modules.Depends;
+import de.craftednature.lyeen.modules.Module;
+import de.craftednature.lyeen.modules.ModuleExecutor;
+
+/**
+ * A {@link Module} that gives other modules access to an SQL-database, without blocking the main thread.<br>
+ * Modules that store their data in the database should {@link Depends depend} on this module.<br>
+ * <br>
+ * All queries and writes are done on the {@link ModuleExecutor} of this module, using a bounded pool of connections that cache their prepared statements.<br>
+ * Writes are queued and the queued writes are executed together in one transaction, with consecutive writes of the same statement grouped into one JDBC-batch.<br>
+ * <br>
+ * The JDBC-driver for the database needs to be on the classpath. If the driver can't be found automatically <i>(e.g. because it has been shaded)</i>,
+ * its class needs to be loaded before this module is initialized.
+ */
+public class SqlStorage implements Module {
+	
+	public static final int DEFAULT_POOL_SIZE = 4;
+	
+	private static final int STATEMENT_CACHE_SIZE = 64;
+	private static final int MAX_BATCH_SIZE = 500;
+	private static final long CONNECTION_TIMEOUT = 30; //seconds
+	
+	private final String url;
+	private final Properties properties;
+	private final int poolSize;
+	
+	private volatile ConnectionPool pool;
+	private volatile Executor executor;
+	private volatile boolean stopped;
+	
+	private final Queue<Write> writes;
+	private final AtomicInteger queuedWrites;
+	private final AtomicBoolean draining;
+	
+	private final LongAdder executedWrites, batches, failedWrites;
+	
+	/**
+	 * @param url the JDBC-url of the database
+	 * @param user the user to connect with
+	 * @param password the password of the user
+	 */
+	public SqlStorage(String url, String user, String password) {
+		this(url, credentials(user, password), DEFAULT_POOL_SIZE);
+	}
+	
+	/**
+	 * @param url the JDBC-url of the database
+	 * @param properties the properties of the connections, e.g. the user and password
+	 * @param poolSize the maximum number of open connections
+	 */
+	public SqlStorage(String url, Properties properties, int poolSize) {
+		Preconditions.checkNotNull(url);
+		Preconditions.checkArgument(poolSize > 0, "The pool-size must be greater than 0!");
+		
+		this.url = url;
+		this.properties = properties;
+		this.poolSize = poolSize;
+		
+		this.pool = null;
+		this.executor = null;
+		this.stopped = false;
+		
+		this.writes = new ConcurrentLinkedQueue<>();
+		this.queuedWrites = new AtomicInteger();
+		this.draining = new AtomicBoolean();
+		
+		this.executedWrites = new LongAdder();
+		this.batches = new LongAdder();
+		this.failedWrites = new LongAdder();
+	}
+	
+	private static Properties credentials(String user, String password){
+		Properties properties = new Properties();
+		if (user != null) properties.setProperty("user", user);
+		if (password != null) properties.setProperty("password", password);
+		return properties;
+	}
+	
+	/**
+	 * Creates the connection-pool and tests if a connection to the database can be opened.
+	 */
+	@Override
+	public void init() throws SQLException {
+		ConnectionPool pool = new ConnectionPool(url, properties, poolSize, STATEMENT_CACHE_SIZE);
+		pool.release(pool.borrow(CONNECTION_TIMEOUT, TimeUnit.SECONDS));
+		
+		this.pool = pool;
+	}
+	
+	@Override
+	public void start() {
+		ModuleExecutor executor = LyeenPlugin.getInstance().getModuleManager().getExecutor(this);
+		this.executor = executor;
+		
+		if (!writes.isEmpty()) scheduleDrain();
+	}
+	
+	/**
+	 * Closes all connections. All queued writes have been executed at this point, because the {@link ModuleExecutor} is drained before a module is stopped.
+	 * Writes that are queued after this fail immediately.
+	 */
+	@Override
+	public void stop() {
+		stopped = true;
+		executor = null;
+		failQueuedWrites();
+		
+		ConnectionPool pool = this.pool;
+		if (pool != null) pool.close();
+	}
+	
+	/**
+	 * Runs this query asynchronously.
+	 * 
+	 * @param sql the sql of the query, with <code>?</code> for the parameters
+	 * @param mapper maps the result of the query
+	 * @param parameters the parameters of the query
+	 * @return a future that completes with the mapped result, or exceptionally with the {@link SQLException}
+	 */
+	public <T> CompletableFuture<T> query(String sql, ResultMapper<T> mapper, Object... parameters){
+		Preconditions.checkNotNull(sql);
+		Preconditions.checkNotNull(mapper);
+		
+		Object[] values = parameters.clone();
+		return withPooledConnection(connection -> {
+			PreparedStatement statement = connection.prepare(sql);
+			bind(statement, values);
+			
+			try (ResultSet resultSet = statement.executeQuery()){
+				return mapper.map(resultSet);
+			}
+		});
+	}
+	
+	/**
+	 * Queues an insert, update or delete.<br>
+	 * Queued writes are executed in the order they have been queued. 
+	 * <i>(Queries that are run before the write is completed might not see its changes yet, use {@link #flush()} if needed.)</i>
+	 * 
+	 * @param sql the sql of the statement, with <code>?</code> for the parameters
+	 * @param parameters the parameters of the statement
+	 * @return a future that completes with the update-count of the statement, or exceptionally with the {@link SQLException}
+	 */
+	public CompletableFuture<Integer> update(String sql, Object... parameters){
+		Preconditions.checkNotNull(sql);
+		
+		return enqueue(new Write(sql, parameters.clone()));
+	}
+	
+	/**
+	 * Returns a future that completes when all writes that have been queued before are executed.
+	 */
+	public CompletableFuture<Void> flush(){
+		return enqueue(new Write(null, null)).thenApply(count -> null);
+	}
+	
+	/**
+	 * Does some work with a connection of the pool asynchronously, e.g. creating tables or running a transaction.
+	 * 
+	 * @return a future that completes with the result of the function, or exceptionally with the {@link SQLException}
+	 */
+	public <T> CompletableFuture<T> withConnection(ConnectionFunction<T> function){
+		Preconditions.checkNotNull(function);
+		
+		return withPooledConnection(connection -> function.apply(connection.getConnection()));
+	}
+	
+	private <T> CompletableFuture<T> withPooledConnection(PooledFunction<T> function){
+		Executor executor = this.executor;
+		Preconditions.checkState(executor != null, "The SqlStorage is not started!");
+		
+		CompletableFuture<T> future = new CompletableFuture<>();
+		executor.execute(() -> {
+			try {
+				PooledConnection connection = pool.borrow(CONNECTION_TIMEOUT, TimeUnit.SECONDS);
+				try {
+					future.complete(function.apply(connection));
+				} finally {
+					pool.release(connection);
+				}
+			} catch (SQLException | RuntimeException ex){
+				future.completeExceptionally(ex);
+			}
+		});
+		
+		return future;
+	}
+	
+	private CompletableFuture<Integer> enqueue(Write write){
+		writes.add(write);
+		queuedWrites.incrementAndGet();
+		
+		scheduleDrain();
+		
+		return write.future;
+	}
+	
+	private void scheduleDrain(){
+		Executor executor = this.executor;
+		if (executor == null){
+			//queued writes are executed when this module is started, but a stopped module is never started again
+			if (stopped) failQueuedWrites();
+			return;
+		}
+		
+		if (!draining.compareAndSet(false, true)) return;
+		
+		try {
+			executor.execute(this::drainWrites);
+		} catch (RejectedExecutionException ex){
+			draining.set(false);
+			failQueuedWrites();
+		}
+	}
+	
+	private void failQueuedWrites(){
+		Write write;
+		while ((write = writes.poll()) != null){
+			queuedWrites.decrementAndGet();
+			write.future.completeExceptionally(new IllegalStateException("The SqlStorage is stopped!"));
+		}
+	}
+	
+	/**
+	 * Executes the queued writes in batches of up to {@link #MAX_BATCH_SIZE} writes, until the queue is empty.
+	 */
+	private void drainWrites(){
+		List<Write> batch = new ArrayList<>();
+		
+		while (true){
+			Write write;
+			while (batch.size() < MAX_BATCH_SIZE && (write = writes.poll()) != null){
+				queuedWrites.decrementAndGet();
+				batch.add(write);
+			}
+			
+			if (batch.isEmpty()){
+				draining.set(false);
+				
+				//a write might have been queued after the queue has been polled the last time
+				if (writes.isEmpty() || !draining.compareAndSet(false, true)) return;
+				continue;
+			}
+			
+			executeWrites(batch);
+			batch.clear();
+		}
+	}
+	
+	private void executeWrites(List<Write> batch){
+		PooledConnection connection;
+		try {
+			connection = pool.borrow(CONNECTION_TIMEOUT, TimeUnit.SECONDS);
+		} catch (SQLException ex){
+			logError("Failed to execute " + batch.size() + " writes, no connection is available!", ex);
+			
+			for (Write write : batch){
+				fail(write, ex);
+			}
+			return;
+		}
+		
+		try {
+			try {
+				executeBatch(connection, batch);
+			} catch (SQLException ex){
+				//execute the writes one by one, so only the writes that are actually failing fail
+				executeSingle(connection, batch);
+			}
+		} finally {
+			pool.release(connection);
+		}
+	}
+	
+	/**
+	 * Executes the writes in one transaction, consecutive writes with the same sql are grouped into one JDBC-batch.
+	 */
+	private void executeBatch(PooledConnection pooled, List<Write> batch) throws SQLException {
+		Connection connection = pooled.getConnection();
+		int[] counts = new int[batch.size()];
+		
+		connection.setAutoCommit(false);
+		try {
+			int i = 0;
+			while (i < batch.size()){
+				String sql = batch.get(i).sql;
+				if (sql == null){
+					i++;
+					continue;
+				}
+				
+				PreparedStatement statement = pooled.prepare(sql);
+				int end = i;
+				try {
+					while (end < batch.size() && sql.equals(batch.get(end).sql)){
+						bind(statement, batch.get(end).parameters);
+						statement.addBatch();
+						end++;
+					}
+					
+					int[] result = statement.executeBatch();
+					System.arraycopy(result, 0, counts, i, Math.min(result.length, end - i));
+				} finally {
+					statement.clearBatch();
+				}
+				
+				i = end;
+			}
+			
+			connection.commit();
+		} catch (SQLException | RuntimeException ex){
+			try {
+				connection.rollback();
+			} catch (SQLException rollbackEx){
+				ex.addSuppressed(rollbackEx);
+			}
+			throw ex;
+		} finally {
+			connection.setAutoCommit(true);
+		}
+		
+		//count the batch before completing the futures, so the statistics are up to date when a flush completes
+		batches.increment();
+		for (int i = 0; i < batch.size(); i++){
+			Write write = batch.get(i);
+			if (write.sql != null) executedWrites.increment();
+			write.future.complete(counts[i]);
+		}
+	}
+	
+	private void executeSingle(PooledConnection connection, List<Write> batch){
+		for (Write write : batch){
+			if (write.sql == null){
+				write.future.complete(0);
+				continue;
+			}
+			
+			try {
+				PreparedStatement statement = connection.prepare(write.sql);
+				bind(statement, write.parameters);
+				int count = statement.executeUpdate();
+				
+				executedWrites.increment();
+				write.future.complete(count);
+			} catch (SQLException | RuntimeException ex){
+				logError("Failed to execute write: " + write.sql, ex);
+				fail(write, ex);
+			}
+		}
+	}
+	
+	private void fail(Write write, Exception ex){
+		if (write.sql != null) failedWrites.increment();
+		write.future.completeExceptionally(ex);
+	}
+	
+	private static void bind(PreparedStatement statement, Object[] parameters) throws SQLException {
+		statement.clearParameters();
+		for (int i = 0; i < parameters.length; i++){
+			statement.setObject(i + 1, parameters[i]);
+		}
+	}
+	
+	/**
+	 * The number of writes that are queued and not executed yet.
+	 */
+	public int getQueuedWrites(){
+		return queuedWrites.get();
+	}
+	
+	/**
+	 * The number of writes that have been executed successfully.
+	 */
+	public long getExecutedWrites(){
+		return executedWrites.sum();
+	}
+	
+	/**
+	 * The number of writes that failed.
+	 */
+	public long getFailedWrites(){
+		return failedWrites.sum();
+	}
+	
+	/**
+	 * The number of transactions the writes have been executed in.
+	 */
+	public long getBatches(){
+		return batches.sum();
+	}
+	
+	/**
+	 * The number of connections that are currently in use.
+	 */
+	public int getActiveConnections(){
+		ConnectionPool pool = this.pool;
+		return pool == null ? 0 : pool.getActive();
+	}
+	
+	/**
+	 * The number of connections that are open and currently not in use.
+	 */
+	public int getIdleConnections(){
+		ConnectionPool pool = this.pool;
+		return pool == null ? 0 : pool.getIdle();
+	}
+	
+	@FunctionalInterface
+	private interface PooledFunction<T> {
+		
+		T apply(PooledConnection connection) throws SQLException;
+		
+	}
+	
+	private static class Write {
+		
+		private final String sql;
+		private final Object[] parameters;
+		private final CompletableFuture<Integer> future;
+		
+		private Write(String sql, Object[] parameters) {
+			this.sql = sql;
+			this.parameters = parameters;
+			this.future = new CompletableFuture<>();
+		}
+		
+	}
+	
+}
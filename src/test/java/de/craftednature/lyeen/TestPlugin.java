@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+
+import org.slf4j.Logger;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.event.EventManager;
+
+import de.craftednature.lyeen.modules.ModuleManager;
+
+/**
+ * Installs a {@link LyeenPlugin}-instance without a running server, for modules that use {@link LyeenPlugin#getInstance()}.
+ */
+public final class TestPlugin {
+	
+	private TestPlugin() {}
+	
+	/**
+	 * Creates a new plugin-instance with a new {@link ModuleManager} and makes it the current instance.
+	 */
+	public static ModuleManager install(){
+		ModuleManager manager = new ModuleManager();
+		
+		LyeenPlugin plugin = new LyeenPlugin();
+		try {
+			Field field = LyeenPlugin.class.getDeclaredField("moduleManager");
+			field.setAccessible(true);
+			field.set(plugin, manager);
+		} catch (ReflectiveOperationException ex){
+			throw new IllegalStateException("Failed to install the test-plugin!", ex);
+		}
+		
+		LyeenPlugin.instance = plugin;
+		installEventManager();
+		return manager;
+	}
+	
+	/**
+	 * Sponge is not initialized in tests, so modules that register listeners get an {@link EventManager} that ignores them.
+	 */
+	private static void installEventManager(){
+		try {
+			Field field = Sponge.class.getDeclaredField("eventManager");
+			field.setAccessible(true);
+			if (field.get(null) != null) return;
+			
+			field.set(null, Proxy.newProxyInstance(EventManager.class.getClassLoader(), new Class<?>[]{ EventManager.class }, (proxy, method, args) -> null));
+		} catch (ReflectiveOperationException ex){
+			throw new IllegalStateException("Failed to install the event-manager!", ex);
+		}
+	}
+	
+	/**
+	 * Sets the logger of the current plugin-instance, that is returned by {@link LyeenPlugin#getLogger()}.
+	 */
+	public static void setLogger(Logger logger){
+		try {
+			Field field = LyeenPlugin.class.getDeclaredField("log");
+			field.setAccessible(true);
+			field.set(LyeenPlugin.getInstance(), logger);
+		} catch (ReflectiveOperationException ex){
+			throw new IllegalStateException("Failed to set the logger!", ex);
+		}
+	}
+	
+	/**
+	 * Removes the current plugin-instance.
+	 */
+	public static void uninstall(){
+		LyeenPlugin.instance = null;
+	}
+	
+}
@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.craftednature.lyeen.TestPlugin;
+
+public class AutoSaveSchedulerTest {
+	
+	/**
+	 * Remembers when it has been saved, and can take some time to save.
+	 */
+	public static abstract class SavingModule implements Module {
+		final List<Long> saves = new ArrayList<>();
+		long saveTime;
+		long version = -1;
+		
+		@Override
+		public void save() {
+			saves.add(System.nanoTime());
+			if (saveTime > 0){
+				try {
+					Thread.sleep(saveTime);
+				} catch (InterruptedException ex){
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		
+		@Override
+		public long getStateVersion() {
+			return version;
+		}
+	}
+	
+	public static class M1 extends SavingModule {}
+	public static class M2 extends SavingModule {}
+	public static class M3 extends SavingModule {}
+	public static class M4 extends SavingModule {}
+	public static class M5 extends SavingModule {}
+	public static class M6 extends SavingModule {}
+	public static class M7 extends SavingModule {}
+	public static class M8 extends SavingModule {}
+	
+	private ModuleManager manager;
+	private List<SavingModule> modules;
+	
+	@Before
+	public void setUp(){
+		manager = TestPlugin.install();
+		manager.setSaveExecutor(Runnable::run);
+		
+		modules = new ArrayList<>();
+		for (SavingModule module : new SavingModule[]{ new M1(), new M2(), new M3(), new M4(), new M5(), new M6(), new M7(), new M8() }){
+			modules.add(module);
+			manager.addModule(module);
+		}
+		manager.startAll();
+	}
+	
+	@After
+	public void tearDown(){
+		manager.stopAll();
+		TestPlugin.uninstall();
+	}
+	
+	@Test
+	public void firstSavesAreSpreadOverTheInterval() throws InterruptedException {
+		long interval = TimeUnit.MILLISECONDS.toNanos(500);
+		AutoSaveScheduler scheduler = new AutoSaveScheduler(manager, interval, 100, TimeUnit.SECONDS.toNanos(1));
+		
+		long start = System.nanoTime();
+		Set<Integer> ticksWithSaves = new HashSet<>();
+		for (int tick = 0; System.nanoTime() - start < interval + TimeUnit.MILLISECONDS.toNanos(20); tick++){
+			if (scheduler.tick() > 0) ticksWithSaves.add(tick);
+			Thread.sleep(5);
+		}
+		
+		//every module is saved within its interval, but not all in the same tick
+		for (SavingModule module : modules){
+			assertFalse(module.saves.isEmpty());
+			assertTrue(module.saves.get(0) - start < interval + TimeUnit.MILLISECONDS.toNanos(20));
+		}
+		assertTrue(ticksWithSaves.size() > 1);
+	}
+	
+	@Test
+	public void savesPerTickAreLimited() throws InterruptedException {
+		AutoSaveScheduler scheduler = new AutoSaveScheduler(manager, TimeUnit.MILLISECONDS.toNanos(20), 3, TimeUnit.SECONDS.toNanos(1));
+		
+		//the first tick schedules the modules within their interval
+		assertEquals(0, scheduler.tick());
+		Thread.sleep(30);
+		
+		assertEquals(3, scheduler.tick());
+		assertEquals(3, scheduler.tick());
+		
+		//the modules that are due the longest are saved first, so every module is saved once before one is saved again
+		assertEquals(2, scheduler.tick());
+		for (SavingModule module : modules) assertEquals(1, module.saves.size());
+	}
+	
+	@Test
+	public void tickStopsWhenTheBudgetIsUsedUp() throws InterruptedException {
+		for (SavingModule module : modules) module.saveTime = 30;
+		AutoSaveScheduler scheduler = new AutoSaveScheduler(manager, TimeUnit.SECONDS.toNanos(10), 100, TimeUnit.MILLISECONDS.toNanos(50));
+		scheduler.setInterval(M1.class, TimeUnit.MILLISECONDS.toNanos(1));
+		scheduler.setInterval(M2.class, TimeUnit.MILLISECONDS.toNanos(1));
+		scheduler.setInterval(M3.class, TimeUnit.MILLISECONDS.toNanos(1));
+		scheduler.tick();
+		Thread.sleep(10);
+		
+		//the first two saves start within the budget of 50ms, the third would start after 60ms
+		assertEquals(2, scheduler.tick());
+	}
+	
+	@Test
+	public void cleanModulesDontUseTheBudget() throws InterruptedException {
+		//saving once makes the modules with a version clean
+		for (SavingModule module : modules.subList(0, 4)) module.version = 0;
+		manager.saveAll();
+		for (SavingModule module : modules) module.saves.clear();
+		
+		AutoSaveScheduler scheduler = new AutoSaveScheduler(manager, TimeUnit.MILLISECONDS.toNanos(1), 4, TimeUnit.SECONDS.toNanos(1));
+		scheduler.tick();
+		Thread.sleep(10);
+		
+		assertEquals(4, scheduler.tick());
+		for (SavingModule module : modules.subList(0, 4)) assertTrue(module.saves.isEmpty());
+		for (SavingModule module : modules.subList(4, 8)) assertEquals(1, module.saves.size());
+	}
+	
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DependencyGraphTest {
+	
+	public interface Missing extends Module {}
+	
+	public static class A implements Module {}
+	public static class B implements Module { @Depends A a; }
+	public static class C implements Module { @Depends B b; @Depends A a; }
+	
+	public static class D implements Module { @Depends E e; }
+	public static class E implements Module { @Depends F f; }
+	public static class F implements Module { @Depends D d; }
+	public static class G implements Module { @Depends D d; }
+	
+	public static class H implements Module { @Depends Missing missing; @Depends A a; }
+	
+	private Map<Class<?>, ModuleContainer> containers;
+	private DependencyGraph graph;
+	
+	@Before
+	public void setUp(){
+		containers = new LinkedHashMap<>();
+		for (Module module : new Module[]{ new H(), new G(), new F(), new E(), new D(), new C(), new B(), new A() }){
+			containers.put(module.getClass(), new ModuleContainer(module));
+		}
+		
+		graph = DependencyGraph.analyze(containers.values());
+	}
+	
+	private ModuleContainer mc(Class<?> type){
+		return containers.get(type);
+	}
+	
+	@Test
+	public void edges(){
+		assertEquals(Arrays.asList(mc(B.class), mc(A.class)), graph.getDependencies(mc(C.class)));
+		assertEquals(new HashSet<>(Arrays.asList(mc(B.class), mc(C.class), mc(H.class))), new HashSet<>(graph.getDependents(mc(A.class))));
+		assertEquals(3, graph.getFanIn(mc(A.class)));
+		assertEquals(0, graph.getFanIn(mc(C.class)));
+	}
+	
+	@Test
+	public void depth(){
+		assertEquals(0, graph.getDepth(mc(A.class)));
+		assertEquals(1, graph.getDepth(mc(B.class)));
+		assertEquals(2, graph.getDepth(mc(C.class)));
+		
+		//part of or depending on a cycle
+		assertEquals(-1, graph.getDepth(mc(D.class)));
+		assertEquals(-1, graph.getDepth(mc(G.class)));
+		assertEquals(-1, graph.getEarliestFinish(mc(G.class)));
+	}
+	
+	@Test
+	public void cycles(){
+		List<List<ModuleContainer>> cycles = graph.getCycles();
+		assertEquals(1, cycles.size());
+		
+		List<ModuleContainer> cycle = cycles.get(0);
+		assertEquals(new HashSet<>(Arrays.asList(mc(D.class), mc(E.class), mc(F.class))), new HashSet<>(cycle));
+		
+		//every module of the cycle depends on the next one
+		for (int i = 0; i < cycle.size(); i++){
+			ModuleContainer next = cycle.get((i + 1) % cycle.size());
+			assertTrue(graph.getDependencies(cycle.get(i)).contains(next));
+		}
+		
+		assertTrue(graph.isInCycle(mc(D.class)));
+		assertTrue(graph.isInCycle(mc(F.class)));
+		assertFalse(graph.isInCycle(mc(G.class)));
+		assertFalse(graph.isInCycle(mc(A.class)));
+	}
+	
+	@Test
+	public void missingProviders(){
+		assertEquals(Collections.singletonList(Missing.class), graph.getMissing(mc(H.class)));
+		assertEquals(Collections.singletonList(mc(A.class)), graph.getDependencies(mc(H.class)));
+		
+		assertEquals(Collections.emptyList(), graph.getMissing(mc(C.class)));
+		assertEquals(Collections.emptyList(), graph.getMissing(mc(G.class)));
+	}
+	
+	@Test
+	public void formatPath(){
+		List<ModuleContainer> path = Arrays.asList(mc(A.class), mc(B.class), mc(C.class));
+		assertEquals("A -> B -> C", DependencyGraph.formatPath(path, false));
+		assertEquals("A -> B -> C -> A", DependencyGraph.formatPath(path, true));
+	}
+	
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.craftednature.lyeen.TestPlugin;
+
+public class LazyModuleTest {
+	
+	private static final AtomicInteger instances = new AtomicInteger(), inits = new AtomicInteger(), stops = new AtomicInteger();
+	
+	public interface Counter extends Module {
+		int increment();
+	}
+	
+	@Lazy(idleTimeout = 50, unit = TimeUnit.MILLISECONDS)
+	public static class LazyCounter implements Counter {
+		private final AtomicInteger count = new AtomicInteger();
+		
+		public LazyCounter() {
+			instances.incrementAndGet();
+		}
+		
+		@Override
+		public void init() throws Throwable {
+			inits.incrementAndGet();
+			
+			//make concurrent activations likely
+			Thread.sleep(50);
+		}
+		
+		@Override
+		public void stop() {
+			stops.incrementAndGet();
+		}
+		
+		@Override
+		public int increment() {
+			return count.incrementAndGet();
+		}
+	}
+	
+	private ModuleManager manager;
+	private Counter proxy;
+	
+	@Before
+	public void setUp(){
+		instances.set(0);
+		inits.set(0);
+		stops.set(0);
+		
+		manager = TestPlugin.install();
+		manager.addModule(new LazyCounter());
+		manager.startAll();
+		
+		proxy = manager.getModule(Counter.class).get();
+	}
+	
+	@After
+	public void tearDown(){
+		manager.stopAll();
+		TestPlugin.uninstall();
+	}
+	
+	@Test
+	public void moduleIsActivatedOnTheFirstCall(){
+		assertFalse(proxy instanceof LazyCounter);
+		assertEquals(0, inits.get());
+		
+		//the name and the log-methods don't need the module
+		assertEquals("LazyCounter", proxy.getName());
+		proxy.logDebug("not activated: {}", proxy);
+		assertEquals(0, inits.get());
+		
+		assertEquals(1, proxy.increment());
+		assertEquals(2, proxy.increment());
+		assertEquals(1, inits.get());
+	}
+	
+	@Test
+	public void concurrentCallsActivateTheModuleOnce() throws Exception {
+		int threads = 8;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch go = new CountDownLatch(1);
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++){
+				results.add(pool.submit(() -> {
+					go.await();
+					return proxy.increment();
+				}));
+			}
+			
+			go.countDown();
+			for (Future<Integer> result : results) result.get(10, TimeUnit.SECONDS);
+			
+			assertEquals(1, inits.get());
+			assertEquals(threads + 1, proxy.increment());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void idleModuleIsStoppedAndActivatedAgain() throws InterruptedException {
+		assertEquals(1, proxy.increment());
+		
+		Thread.sleep(100);
+		manager.stopIdleModules();
+		assertEquals(1, stops.get());
+		
+		//the next call creates a new instance
+		assertEquals(1, proxy.increment());
+		assertEquals(2, inits.get());
+		assertEquals(2, instances.get());
+	}
+	
+}
@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LoadSourceWatcherTest {
+	
+	private static final long DEBOUNCE = TimeUnit.MILLISECONDS.toNanos(300);
+	
+	/**
+	 * Counts its loads and remembers the content of its load-source, or the number of files if it is a directory.
+	 */
+	public static class SourceModule implements Module {
+		final Path source;
+		final AtomicInteger loads = new AtomicInteger();
+		volatile String content;
+		
+		SourceModule(Path source) {
+			this.source = source;
+		}
+		
+		@Override
+		public Collection<Path> getLoadSources() {
+			return Collections.singletonList(source);
+		}
+		
+		@Override
+		public void load() throws IOException {
+			if (Files.isDirectory(source)){
+				try (Stream<Path> files = Files.list(source)){
+					content = String.valueOf(files.count());
+				}
+			} else {
+				content = Files.exists(source) ? new String(Files.readAllBytes(source), StandardCharsets.UTF_8) : null;
+			}
+			loads.incrementAndGet();
+		}
+	}
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private LoadSourceWatcher watcher;
+	
+	@After
+	public void tearDown(){
+		if (watcher != null) watcher.stop();
+	}
+	
+	private void watch(SourceModule module) throws Throwable {
+		ModuleContainer mc = new ModuleContainer(module);
+		mc.setExecutors(Runnable::run, Runnable::run);
+		mc.initModule();
+		
+		watcher = new LoadSourceWatcher(Collections.singletonMap(SourceModule.class, mc), DEBOUNCE);
+		watcher.start();
+		
+		//the first sync registers the directories right after the start
+		Thread.sleep(200);
+	}
+	
+	private static void awaitLoads(SourceModule module, int loads) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (module.loads.get() < loads && System.nanoTime() < deadline) Thread.sleep(10);
+		assertEquals(loads, module.loads.get());
+	}
+	
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void changesAreDebounced() throws Throwable {
+		Path file = folder.getRoot().toPath().resolve("config.txt");
+		write(file, "0");
+		SourceModule module = new SourceModule(file);
+		watch(module);
+		
+		//every write is within the debounce-time of the last one, so they are reloaded together
+		for (int i = 1; i <= 5; i++){
+			write(file, String.valueOf(i));
+			Thread.sleep(50);
+		}
+		
+		awaitLoads(module, 2);
+		assertEquals("5", module.content);
+		
+		Thread.sleep(2 * TimeUnit.NANOSECONDS.toMillis(DEBOUNCE));
+		assertEquals(2, module.loads.get());
+	}
+	
+	@Test
+	public void unchangedContentIsNotLoadedAgain() throws Throwable {
+		Path file = folder.getRoot().toPath().resolve("config.txt");
+		write(file, "same");
+		SourceModule module = new SourceModule(file);
+		watch(module);
+		
+		write(file, "same");
+		Thread.sleep(3 * TimeUnit.NANOSECONDS.toMillis(DEBOUNCE));
+		assertEquals(1, module.loads.get());
+		
+		write(file, "changed");
+		awaitLoads(module, 2);
+		assertEquals("changed", module.content);
+	}
+	
+	@Test
+	public void recreatedDirectoryIsWatchedAgain() throws Throwable {
+		Path dir = folder.newFolder("data").toPath();
+		SourceModule module = new SourceModule(dir);
+		watch(module);
+		
+		write(dir.resolve("a.txt"), "a");
+		awaitLoads(module, 2);
+		assertEquals("1", module.content);
+		
+		//deleting the directory invalidates its registration
+		Files.delete(dir.resolve("a.txt"));
+		Files.delete(dir);
+		awaitLoads(module, 3);
+		
+		//the next sync registers the new directory
+		Files.createDirectory(dir);
+		Thread.sleep(1500);
+		
+		write(dir.resolve("b.txt"), "b");
+		awaitLoads(module, 4);
+		assertEquals("1", module.content);
+	}
+	
+}
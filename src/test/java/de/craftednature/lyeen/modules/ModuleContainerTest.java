@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class ModuleContainerTest {
+	
+	public static class TestModule implements Module {
+		boolean failInit, failStart, failStop;
+		int inits, starts, stops;
+		
+		@Override
+		public void init() throws Throwable {
+			inits++;
+			if (failInit) throw new Exception("init failed");
+		}
+		
+		@Override
+		public void start() {
+			starts++;
+			if (failStart) throw new IllegalArgumentException("start failed");
+		}
+		
+		@Override
+		public void stop() {
+			stops++;
+			if (failStop) throw new IllegalArgumentException("stop failed");
+		}
+	}
+	
+	private static ModuleContainer container(TestModule module, List<String> transitions){
+		ModuleContainer mc = new ModuleContainer(module);
+		mc.setExecutors(Runnable::run, Runnable::run);
+		mc.addStateListener((from, to) -> transitions.add(from + ">" + to));
+		return mc;
+	}
+	
+	private static void assertIllegalState(Runnable operation){
+		try {
+			operation.run();
+			fail("Expected an IllegalStateException!");
+		} catch (IllegalStateException expected){}
+	}
+	
+	@Test
+	public void lifecycle() throws Throwable {
+		TestModule module = new TestModule();
+		List<String> transitions = new ArrayList<>();
+		ModuleContainer mc = container(module, transitions);
+		
+		assertEquals(ModuleState.CONSTRUCTED, mc.getState());
+		mc.initModule();
+		mc.startModule();
+		assertEquals(ModuleState.STARTED, mc.getState());
+		mc.stopModule();
+		
+		assertEquals(ModuleState.STOPPED, mc.getState());
+		assertEquals(ModuleState.STOPPED, mc.getStableState());
+		assertEquals(Arrays.asList(
+				"CONSTRUCTED>INITIALIZING", "INITIALIZING>INITIALIZED", 
+				"INITIALIZED>STARTING", "STARTING>STARTED", 
+				"STARTED>STOPPING", "STOPPING>STOPPED"
+			), transitions);
+		assertEquals(1, module.stops);
+	}
+	
+	@Test
+	public void operationsInTheWrongStateDontChangeTheState() throws Throwable {
+		ModuleContainer mc = container(new TestModule(), new ArrayList<>());
+		
+		assertIllegalState(mc::startModule);
+		assertIllegalState(mc::stopModule);
+		assertIllegalState(mc::suspendModule);
+		assertEquals(ModuleState.CONSTRUCTED, mc.getState());
+		
+		mc.initModule();
+		mc.startModule();
+		assertIllegalState(mc::startModule);
+		assertEquals(ModuleState.STARTED, mc.getState());
+		
+		mc.stopModule();
+		assertIllegalState(mc::startModule);
+		assertIllegalState(mc::stopModule);
+		assertEquals(ModuleState.STOPPED, mc.getState());
+	}
+	
+	@Test
+	public void failedInitStopsTheModule() throws Throwable {
+		TestModule module = new TestModule();
+		module.failInit = true;
+		List<String> transitions = new ArrayList<>();
+		ModuleContainer mc = container(module, transitions);
+		
+		try {
+			mc.initModule();
+			fail("init should have failed!");
+		} catch (Exception expected){}
+		
+		//a module can't be initialized again
+		assertEquals(ModuleState.STOPPED, mc.getState());
+		assertEquals(Arrays.asList("CONSTRUCTED>INITIALIZING", "INITIALIZING>STOPPED"), transitions);
+		
+		module.failInit = false;
+		try {
+			mc.initModule();
+			fail("A module that failed to initialize, can't be initialized again!");
+		} catch (IllegalStateException expected){}
+		assertEquals(1, module.inits);
+		
+		assertIllegalState(mc::getExecutor);
+	}
+	
+	@Test
+	public void failedStartRevertsToInitialized() throws Throwable {
+		TestModule module = new TestModule();
+		module.failStart = true;
+		ModuleContainer mc = container(module, new ArrayList<>());
+		mc.initModule();
+		
+		try {
+			mc.startModule();
+			fail("start should have failed!");
+		} catch (IllegalArgumentException expected){}
+		assertEquals(ModuleState.INITIALIZED, mc.getState());
+		
+		module.failStart = false;
+		mc.startModule();
+		assertEquals(ModuleState.STARTED, mc.getState());
+	}
+	
+	@Test
+	public void failedStopStopsTheModule() throws Throwable {
+		TestModule module = new TestModule();
+		module.failStop = true;
+		List<String> transitions = new ArrayList<>();
+		ModuleContainer mc = container(module, transitions);
+		mc.initModule();
+		mc.startModule();
+		mc.getExecutor();
+		
+		try {
+			mc.stopModule();
+			fail("stop should have failed!");
+		} catch (IllegalArgumentException expected){}
+		
+		//the teardown has started, so the module can't be STARTED again
+		assertEquals(ModuleState.STOPPED, mc.getState());
+		assertEquals("STOPPING>STOPPED", transitions.get(transitions.size() - 1));
+		assertIllegalState(mc::getExecutor);
+		assertIllegalState(mc::stopModule);
+		assertEquals(1, module.stops);
+	}
+	
+	@Test
+	public void suspendedModuleCanBeStartedAgain() throws Throwable {
+		TestModule module = new TestModule();
+		ModuleContainer mc = container(module, new ArrayList<>());
+		mc.initModule();
+		mc.startModule();
+		mc.getExecutor();
+		
+		mc.suspendModule();
+		assertEquals(ModuleState.INITIALIZED, mc.getState());
+		
+		mc.startModule();
+		assertEquals(ModuleState.STARTED, mc.getState());
+		assertTrue(mc.getExecutor() != null);
+		assertEquals(2, module.starts);
+		assertEquals(1, module.inits);
+	}
+	
+	@Test
+	public void failedSuspendStopsTheModule() throws Throwable {
+		TestModule module = new TestModule();
+		module.failStop = true;
+		ModuleContainer mc = container(module, new ArrayList<>());
+		mc.initModule();
+		mc.startModule();
+		
+		try {
+			mc.suspendModule();
+			fail("suspend should have failed!");
+		} catch (IllegalArgumentException expected){}
+		
+		assertEquals(ModuleState.STOPPED, mc.getState());
+		assertIllegalState(mc::startModule);
+		assertIllegalState(mc::getExecutor);
+	}
+	
+	@Test
+	public void lifecycleCpuTimeIsMeasuredOnce() throws Throwable {
+		Assume.assumeTrue(ResourceMeter.isCpuTimeSupported());
+		
+		TestModule module = new TestModule() {
+			@Override
+			public void init() throws Throwable {
+				super.init();
+				
+				long end = ModuleTimings.currentCpuTime() + TimeUnit.MILLISECONDS.toNanos(10);
+				while (ModuleTimings.currentCpuTime() < end);
+			}
+		};
+		ModuleContainer mc = container(module, new ArrayList<>());
+		mc.initModule();
+		
+		//the timings and the resources get the cpu-time of the same measurement
+		long init = mc.getTimings().getCpuTime(LifecyclePhase.INIT).getLast();
+		long load = mc.getTimings().getCpuTime(LifecyclePhase.LOAD).getLast();
+		assertTrue(init >= TimeUnit.MILLISECONDS.toNanos(10));
+		assertEquals(init + load, mc.getResources().getCpuTime(ResourceCategory.LIFECYCLE, TimeUnit.NANOSECONDS));
+	}
+	
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModuleDiscoveryTest {
+	
+	public interface Discovered extends Module {}
+	
+	public static class First implements Discovered {}
+	public static class Second implements Discovered {}
+	public static class NoModule {}
+	
+	private static final CountDownLatch constructing = new CountDownLatch(2);
+	
+	/**
+	 * Waits in its constructor until the other one is constructed as well, so both can only be created in parallel.
+	 */
+	public static abstract class ParallelModule implements Discovered {
+		final boolean parallel;
+		
+		ParallelModule() throws InterruptedException {
+			constructing.countDown();
+			parallel = constructing.await(10, TimeUnit.SECONDS);
+		}
+	}
+	
+	public static class ParallelA extends ParallelModule {
+		public ParallelA() throws InterruptedException {}
+	}
+	
+	public static class ParallelB extends ParallelModule {
+		public ParallelB() throws InterruptedException {}
+	}
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private Path directory;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = folder.newFolder("addons").toPath();
+	}
+	
+	private static String index(Class<?>... types){
+		StringBuilder index = new StringBuilder();
+		for (Class<?> type : types) index.append(type.getName()).append('\n');
+		return index.toString();
+	}
+	
+	/**
+	 * Writes a jar with a module-index, or with the class-files of these types if the index is <code>null</code>.
+	 */
+	private Path writeJar(String name, String index, Class<?>... classes) throws IOException {
+		Path jar = directory.resolve(name);
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))){
+			if (index != null){
+				out.putNextEntry(new JarEntry(ModuleIndex.RESOURCE));
+				out.write(index.getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+			
+			for (Class<?> type : classes){
+				String entry = type.getName().replace('.', '/') + ".class";
+				out.putNextEntry(new JarEntry(entry));
+				try (InputStream in = type.getClassLoader().getResourceAsStream(entry)){
+					copy(in, out);
+				}
+				out.closeEntry();
+			}
+		}
+		return jar;
+	}
+	
+	private static void copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = in.read(buffer)) >= 0) out.write(buffer, 0, read);
+	}
+	
+	private Set<String> discover(ModuleDiscovery discovery) throws IOException {
+		return discovery.discover(discovery.findJars(), getClass().getClassLoader());
+	}
+	
+	@Test
+	public void indexIgnoresCommentsAndBlankLines() throws IOException {
+		String index = "# generated\n" + First.class.getName() + "\n\n  " + Second.class.getName() + "  \n" + First.class.getName() + "\n";
+		
+		Set<String> names = new LinkedHashSet<>();
+		ModuleIndex.read(new ByteArrayInputStream(index.getBytes(StandardCharsets.UTF_8)), names);
+		assertEquals(Arrays.asList(First.class.getName(), Second.class.getName()), new ArrayList<>(names));
+	}
+	
+	@Test
+	public void jarsAreReadFromTheirIndexOrScanned() throws IOException {
+		writeJar("a-indexed.jar", index(First.class));
+		writeJar("b-scanned.jar", null, Second.class, NoModule.class, ParallelModule.class);
+		
+		ModuleDiscovery discovery = new ModuleDiscovery(directory);
+		assertEquals(new LinkedHashSet<>(Arrays.asList(First.class.getName(), Second.class.getName())), discover(discovery));
+		assertEquals(1, discovery.getIndexedJars());
+		assertEquals(1, discovery.getScannedJars());
+		assertEquals(0, discovery.getCachedJars());
+	}
+	
+	@Test
+	public void unchangedJarsAreNotOpenedAgain() throws IOException {
+		writeJar("a.jar", index(First.class));
+		Path changing = writeJar("b.jar", index(Second.class));
+		discover(new ModuleDiscovery(directory));
+		
+		ModuleDiscovery cached = new ModuleDiscovery(directory);
+		assertEquals(new LinkedHashSet<>(Arrays.asList(First.class.getName(), Second.class.getName())), discover(cached));
+		assertEquals(2, cached.getCachedJars());
+		assertEquals(0, cached.getIndexedJars());
+		
+		//a jar with a different size or last-modified time is read again
+		writeJar("b.jar", index(Second.class, First.class));
+		Files.setLastModifiedTime(changing, FileTime.fromMillis(Files.getLastModifiedTime(changing).toMillis() + 2000));
+		
+		ModuleDiscovery changed = new ModuleDiscovery(directory);
+		assertEquals(new LinkedHashSet<>(Arrays.asList(First.class.getName(), Second.class.getName())), discover(changed));
+		assertEquals(1, changed.getCachedJars());
+		assertEquals(1, changed.getIndexedJars());
+	}
+	
+	@Test
+	public void discoveredModulesAreCreatedInParallel() throws IOException {
+		writeJar("parallel.jar", index(ParallelA.class, ParallelB.class));
+		
+		ModuleManager manager = new ModuleManager();
+		try {
+			assertTrue(manager.addDiscoveredModules(getClass().getClassLoader(), directory) >= 2);
+			
+			//both constructors waited for each other, and the modules are added in the order of the index
+			List<ParallelModule> modules = manager.getAll(ParallelModule.class);
+			assertEquals(Arrays.asList(ParallelA.class, ParallelB.class), Arrays.asList(modules.get(0).getClass(), modules.get(1).getClass()));
+			for (ParallelModule module : modules) assertTrue(module.parallel);
+		} finally {
+			manager.stopAll();
+		}
+	}
+	
+}
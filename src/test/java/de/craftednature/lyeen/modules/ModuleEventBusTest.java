@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ModuleEventBusTest {
+	
+	public static class Event {
+		int received;
+	}
+	
+	public static class Parent implements Module {
+		int parentCalls, hiddenCalls;
+		
+		@Subscribe
+		public void onEvent(Event event){
+			parentCalls++;
+			event.received++;
+		}
+		
+		@Subscribe
+		private void onHidden(Event event){
+			hiddenCalls++;
+			event.received++;
+		}
+	}
+	
+	public static class Child extends Parent {
+		int childCalls, childHiddenCalls;
+		
+		@Override
+		@Subscribe
+		public void onEvent(Event event){
+			childCalls++;
+			event.received++;
+		}
+		
+		//private methods are not overridden, so both are listeners
+		@Subscribe
+		private void onHidden(Event event){
+			childHiddenCalls++;
+			event.received++;
+		}
+	}
+	
+	@Test
+	public void overriddenListenersAreInvokedOnce(){
+		ModuleManager manager = new ModuleManager();
+		Child module = new Child();
+		
+		ModuleEventBus bus = manager.getEventBus();
+		bus.registerAnnotated(module);
+		
+		Event event = new Event();
+		assertEquals(3, bus.post(event));
+		assertEquals(3, event.received);
+		
+		assertEquals(1, module.childCalls);
+		assertEquals(0, module.parentCalls);
+		assertEquals(1, module.childHiddenCalls);
+		assertEquals(1, module.hiddenCalls);
+	}
+	
+}
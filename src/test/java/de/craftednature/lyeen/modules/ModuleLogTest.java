@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.helpers.MessageFormatter;
+
+import de.craftednature.lyeen.TestPlugin;
+
+public class ModuleLogTest {
+	
+	public static class Plain implements Module {}
+	
+	public static class Named implements Module {
+		@Override
+		public String getName(){
+			return "Weird{}Name";
+		}
+	}
+	
+	private final List<String> messages = new ArrayList<>();
+	private final List<Method> methods = new ArrayList<>();
+	
+	@Before
+	public void setUp(){
+		TestPlugin.install();
+		TestPlugin.setLogger((Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), new Class<?>[]{ Logger.class }, (proxy, method, args) -> {
+			if (method.getReturnType() == boolean.class) return true;
+			if (!method.getName().equals("info") || args == null) return null;
+			methods.add(method);
+			
+			//format the message like a real slf4j-logger would
+			Object[] arguments;
+			if (args.length == 1) arguments = new Object[0];
+			else if (args.length == 2 && args[1] instanceof Object[]) arguments = (Object[]) args[1];
+			else {
+				arguments = new Object[args.length - 1];
+				System.arraycopy(args, 1, arguments, 0, arguments.length);
+			}
+			
+			messages.add(MessageFormatter.arrayFormat((String) args[0], arguments).getMessage());
+			return null;
+		}));
+	}
+	
+	@After
+	public void tearDown(){
+		TestPlugin.uninstall();
+	}
+	
+	@Test
+	public void messagesArePrefixedWithTheName(){
+		Plain module = new Plain();
+		module.logInfo("plain {}");
+		module.logInfo("one {}", 1);
+		module.logInfo("two {} {}", 1, 2);
+		module.logInfo("three {} {} {}", 1, 2, 3);
+		
+		assertEquals("[Plain] plain {}", messages.get(0));
+		assertEquals("[Plain] one 1", messages.get(1));
+		assertEquals("[Plain] two 1 2", messages.get(2));
+		assertEquals("[Plain] three 1 2 3", messages.get(3));
+	}
+	
+	@Test
+	public void oneArgumentIsLoggedWithoutAnArray() throws NoSuchMethodException {
+		new Plain().logInfo("one {}", 1);
+		
+		assertEquals(Logger.class.getMethod("info", String.class, Object.class, Object.class), methods.get(0));
+	}
+	
+	@Test
+	public void placeholdersInTheNameAreNotFormatted(){
+		Named module = new Named();
+		module.logInfo("one {}", 1);
+		module.logInfo("two {} {}", 1, 2);
+		module.logInfo("three {} {} {}", 1, 2, 3);
+		
+		assertEquals("[Weird{}Name] one 1", messages.get(0));
+		assertEquals("[Weird{}Name] two 1 2", messages.get(1));
+		assertEquals("[Weird{}Name] three 1 2 3", messages.get(2));
+	}
+	
+}
@@ -0,0 +1,362 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import de.craftednature.lyeen.TestPlugin;
+
+public class ModuleManagerTest {
+	
+	private static final List<String> events = Collections.synchronizedList(new ArrayList<>());
+	
+	/**
+	 * Records every call of init, start and stop in {@link ModuleManagerTest#events}.
+	 */
+	public static abstract class RecordingModule implements Module {
+		boolean failInit;
+		long initDelay;
+		volatile CountDownLatch blockStop;
+		volatile boolean initialized;
+		int starts, stops;
+		
+		@Override
+		public void init() throws Throwable {
+			events.add(getName() + ".init");
+			if (initDelay > 0) Thread.sleep(initDelay);
+			if (failInit) throw new Exception("init failed");
+			initialized = true;
+		}
+		
+		@Override
+		public void start() {
+			starts++;
+			events.add(getName() + ".start");
+		}
+		
+		@Override
+		public void stop() {
+			stops++;
+			events.add(getName() + ".stop");
+			
+			CountDownLatch blockStop = this.blockStop;
+			if (blockStop != null) Uninterruptibles.awaitUninterruptibly(blockStop);
+		}
+		
+		boolean isRunning(){
+			return starts > stops;
+		}
+	}
+	
+	public static class Service extends RecordingModule {}
+	
+	public static class Consumer extends RecordingModule {
+		@Depends Service service;
+		boolean serviceInitialized;
+		
+		@Override
+		public void init() throws Throwable {
+			serviceInitialized = service.initialized;
+			super.init();
+		}
+	}
+	
+	public static class Client extends RecordingModule { @Depends Consumer consumer; }
+	public static class Unrelated extends RecordingModule {}
+	
+	public interface Counter extends Module {
+		int increment();
+	}
+	
+	@Lazy
+	public static class LazyCounter extends RecordingModule implements Counter {
+		int count;
+		
+		@Override
+		public int increment() {
+			return ++count;
+		}
+	}
+	
+	public static class CounterUser extends RecordingModule { @Depends Counter counter; }
+	
+	private ModuleManager manager;
+	
+	@Before
+	public void setUp(){
+		events.clear();
+		manager = TestPlugin.install();
+	}
+	
+	@After
+	public void tearDown(){
+		manager.stopAll();
+		TestPlugin.uninstall();
+	}
+	
+	private ModuleState stateOf(Class<? extends Module> type) throws ReflectiveOperationException {
+		Field field = ModuleManager.class.getDeclaredField("registry");
+		field.setAccessible(true);
+		return ((ModuleRegistry) field.get(manager)).get(type).getState();
+	}
+	
+	private void addAndStart(Module... modules){
+		for (Module module : modules) manager.addModule(module);
+		manager.startAll();
+		events.clear();
+	}
+	
+	@Test
+	public void restartReinjectsStartedDependents(){
+		Service service = new Service();
+		Consumer consumer = new Consumer();
+		Client client = new Client();
+		Unrelated unrelated = new Unrelated();
+		addAndStart(client, consumer, service, unrelated);
+		
+		Service replacement = new Service();
+		assertTrue(manager.restartModule(replacement));
+		
+		//dependents are stopped first and started last, unrelated modules are not touched
+		assertEquals(Arrays.asList(
+				"Client.stop", "Consumer.stop", "Service.stop", 
+				"Service.init", "Service.start", 
+				"Consumer.start", "Client.start"
+			), events);
+		
+		assertSame(replacement, consumer.service);
+		assertSame(consumer, client.consumer);
+		assertSame(replacement, manager.getModule(Service.class).get());
+		assertFalse(service.isRunning());
+		assertTrue(replacement.isRunning() && consumer.isRunning() && client.isRunning() && unrelated.isRunning());
+	}
+	
+	@Test
+	public void failedRestartStopsTheSubgraph(){
+		Consumer consumer = new Consumer();
+		Client client = new Client();
+		Unrelated unrelated = new Unrelated();
+		addAndStart(client, consumer, new Service(), unrelated);
+		
+		Service replacement = new Service();
+		replacement.failInit = true;
+		assertFalse(manager.restartModule(replacement));
+		
+		//nothing of the subgraph is started again
+		assertEquals(Arrays.asList("Client.stop", "Consumer.stop", "Service.stop", "Service.init"), events);
+		assertFalse(consumer.isRunning() || client.isRunning());
+		
+		assertFalse(manager.getModule(Service.class).isPresent());
+		assertFalse(manager.getModule(Consumer.class).isPresent());
+		assertFalse(manager.getModule(Client.class).isPresent());
+		assertTrue(unrelated.isRunning());
+		assertSame(unrelated, manager.getModule(Unrelated.class).get());
+	}
+	
+	@Test
+	public void restartingALazyModuleKeepsItsProxy(){
+		CounterUser user = new CounterUser();
+		addAndStart(user, new LazyCounter());
+		
+		//the proxy is injected, the module is activated by the first call
+		Counter proxy = user.counter;
+		assertFalse(proxy instanceof LazyCounter);
+		assertEquals(Collections.emptyList(), events);
+		assertEquals(1, proxy.increment());
+		assertEquals(Arrays.asList("LazyCounter.init", "LazyCounter.start"), events);
+		
+		events.clear();
+		LazyCounter replacement = new LazyCounter();
+		assertTrue(manager.restartModule(replacement));
+		assertEquals(Arrays.asList("CounterUser.stop", "LazyCounter.stop", "LazyCounter.init", "LazyCounter.start", "CounterUser.start"), events);
+		
+		//the dependent still uses the proxy, which calls the new instance
+		assertSame(proxy, user.counter);
+		assertEquals(1, proxy.increment());
+		assertEquals(1, replacement.count);
+	}
+	
+	@Test
+	public void restartingAnInactiveLazyModuleKeepsItInactive(){
+		CounterUser user = new CounterUser();
+		addAndStart(user, new LazyCounter());
+		
+		LazyCounter replacement = new LazyCounter();
+		assertTrue(manager.restartModule(replacement));
+		assertEquals(Arrays.asList("CounterUser.stop", "CounterUser.start"), events);
+		
+		assertEquals(1, user.counter.increment());
+		assertEquals(1, replacement.count);
+	}
+	
+	@Test
+	public void removingAModuleRemovesItsDependentsFirst(){
+		Consumer consumer = new Consumer();
+		Client client = new Client();
+		Unrelated unrelated = new Unrelated();
+		addAndStart(client, consumer, new Service(), unrelated);
+		
+		manager.removeModule(Service.class);
+		assertEquals(Arrays.asList("Client.stop", "Consumer.stop", "Service.stop"), events);
+		
+		assertFalse(manager.getModule(Consumer.class).isPresent());
+		assertFalse(manager.getModule(Client.class).isPresent());
+		assertTrue(unrelated.isRunning());
+	}
+	
+	@Test
+	public void blockedModuleIsMarkedStoppedAndItsDependenciesAreStillStopped() throws ReflectiveOperationException {
+		CountDownLatch release = new CountDownLatch(1);
+		Client client = new Client();
+		client.blockStop = release;
+		addAndStart(client, new Consumer(), new Service());
+		
+		manager.setStopTimeouts(100, 10000, TimeUnit.MILLISECONDS);
+		try {
+			long start = System.nanoTime();
+			manager.stopAll();
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+			
+			//the dependencies are stopped after the blocked module timed out, most dependent first
+			assertEquals(Arrays.asList("Client.stop", "Consumer.stop", "Service.stop"), events);
+			assertEquals(ModuleState.STOPPED, stateOf(Client.class));
+			assertEquals(ModuleState.STOPPED, stateOf(Consumer.class));
+			assertEquals(ModuleState.STOPPED, stateOf(Service.class));
+		} finally {
+			release.countDown();
+		}
+	}
+	
+	@Test
+	public void stopAllReturnsWithinTheTotalTimeout() throws ReflectiveOperationException {
+		CountDownLatch release = new CountDownLatch(1);
+		Service service = new Service();
+		Unrelated unrelated = new Unrelated();
+		service.blockStop = release;
+		unrelated.blockStop = release;
+		addAndStart(new Client(), new Consumer(), service, unrelated);
+		
+		manager.setStopTimeouts(10000, 300, TimeUnit.MILLISECONDS);
+		try {
+			long start = System.nanoTime();
+			manager.stopAll();
+			assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+			
+			//the modules that are still blocked are marked as stopped
+			assertEquals(ModuleState.STOPPED, stateOf(Service.class));
+			assertEquals(ModuleState.STOPPED, stateOf(Unrelated.class));
+			assertEquals(ModuleState.STOPPED, stateOf(Consumer.class));
+			assertTrue(events.indexOf("Consumer.stop") < events.indexOf("Service.stop"));
+			assertTrue(events.indexOf("Client.stop") < events.indexOf("Consumer.stop"));
+		} finally {
+			release.countDown();
+		}
+	}
+	
+	@Test(timeout = 10000)
+	public void parallelInitWaitsForDependencies(){
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			manager.setStartupExecutor(pool);
+			
+			Service service = new Service();
+			service.initDelay = 100;
+			Consumer consumer = new Consumer();
+			Client client = new Client();
+			Unrelated unrelated = new Unrelated();
+			addAndStart(client, consumer, service, unrelated);
+			
+			assertTrue(consumer.serviceInitialized);
+			assertTrue(service.isRunning() && consumer.isRunning() && client.isRunning() && unrelated.isRunning());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test(timeout = 10000)
+	public void failedParallelInitRemovesDependents(){
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			manager.setStartupExecutor(pool);
+			
+			Service service = new Service();
+			service.failInit = true;
+			Unrelated unrelated = new Unrelated();
+			for (Module module : new Module[]{ new Client(), new Consumer(), service, unrelated }) manager.addModule(module);
+			manager.startAll();
+			
+			//the dependents are processed without beeing initialized, so startAll() does not wait for them forever
+			assertFalse(events.contains("Consumer.init"));
+			assertFalse(events.contains("Client.init"));
+			assertFalse(manager.getModule(Consumer.class).isPresent());
+			assertFalse(manager.getModule(Client.class).isPresent());
+			assertTrue(unrelated.isRunning());
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void stopAllShutsDownOnlyItsOwnExecutors() throws ReflectiveOperationException {
+		ExecutorService saveExecutor = Executors.newSingleThreadExecutor();
+		try {
+			ExecutorService ownSaveExecutor = (ExecutorService) manager.getSaveExecutor();
+			manager.setSaveExecutor(saveExecutor);
+			addAndStart(new Service());
+			
+			manager.stopAll();
+			
+			Field field = ModuleManager.class.getDeclaredField("asyncExecutor");
+			field.setAccessible(true);
+			assertTrue(((ExecutorService) field.get(manager)).isShutdown());
+			assertTrue(ownSaveExecutor.isShutdown());
+			assertFalse(saveExecutor.isShutdown());
+		} finally {
+			saveExecutor.shutdown();
+		}
+	}
+	
+}
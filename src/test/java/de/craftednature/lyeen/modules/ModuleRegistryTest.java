@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ModuleRegistryTest {
+	
+	public interface Service extends Module {}
+	
+	public static class ServiceA implements Service {}
+	public static class ServiceB implements Service {}
+	public static class ServiceC implements Service {}
+	public static class ServiceD implements Service {}
+	public static class ServiceE implements Service {}
+	public static class SpecialServiceA extends ServiceA {}
+	
+	public static class Consumer implements Module {
+		@Depends Service service;
+	}
+	
+	public static class ConsumerA implements Module {
+		@Depends ServiceA service;
+	}
+	
+	private static List<ModuleContainer> containers(Module... modules){
+		List<ModuleContainer> containers = new ArrayList<>();
+		for (Module module : modules) containers.add(new ModuleContainer(module));
+		return containers;
+	}
+	
+	@Test
+	public void providersAreInRegistrationOrder(){
+		List<ModuleContainer> services = containers(new ServiceE(), new ServiceC(), new ServiceA(), new ServiceD(), new ServiceB());
+		
+		ModuleRegistry registry = new ModuleRegistry();
+		for (ModuleContainer mc : services) registry.put(mc);
+		
+		assertEquals(services, registry.getProviders(Service.class));
+		assertEquals(services, new ArrayList<>(registry.values()));
+		assertEquals(services, registry.getProviders(Module.class));
+		
+		//the exact type is always first
+		assertEquals(Arrays.asList(services.get(2)), registry.getProviders(ServiceA.class));
+	}
+	
+	@Test
+	public void replacedContainersKeepTheirPosition(){
+		List<ModuleContainer> services = containers(new ServiceA(), new ServiceB(), new ServiceC());
+		
+		ModuleRegistry registry = new ModuleRegistry();
+		for (ModuleContainer mc : services) registry.put(mc);
+		
+		ModuleContainer replacement = new ModuleContainer(new ServiceB());
+		registry.replace(services.get(1), replacement);
+		assertEquals(Arrays.asList(services.get(0), replacement, services.get(2)), registry.getProviders(Service.class));
+		
+		ModuleContainer put = new ModuleContainer(new ServiceA());
+		registry.put(put);
+		assertEquals(Arrays.asList(put, replacement, services.get(2)), registry.getProviders(Service.class));
+		
+		registry.remove(put);
+		assertEquals(Arrays.asList(replacement, services.get(2)), registry.getProviders(Service.class));
+		assertEquals(2, registry.size());
+	}
+	
+	@Test
+	public void registryAndPlanSelectTheSameProvider(){
+		List<ModuleContainer> containers = containers(new ServiceD(), new ServiceB(), new ServiceE(), new ServiceA(), new ServiceC(), new Consumer());
+		
+		ModuleRegistry registry = new ModuleRegistry();
+		for (ModuleContainer mc : containers) registry.put(mc);
+		
+		ModuleContainer consumer = containers.get(containers.size() - 1);
+		StartupPlan plan = StartupPlan.resolve(registry.values());
+		
+		assertSame(containers.get(0), plan.getProviders(consumer)[0]);
+		assertSame(containers.get(0), registry.getProviders(Service.class).get(0));
+		assertSame(containers.get(0), DependencyGraph.analyze(registry.values()).getDependencies(consumer).get(0));
+	}
+	
+	@Test
+	public void exactTypeIsSelectedEverywhere(){
+		List<ModuleContainer> containers = containers(new SpecialServiceA(), new ConsumerA(), new ServiceA());
+		
+		ModuleRegistry registry = new ModuleRegistry();
+		for (ModuleContainer mc : containers) registry.put(mc);
+		
+		ModuleContainer consumer = containers.get(1);
+		ModuleContainer exact = containers.get(2);
+		
+		assertEquals(Arrays.asList(exact, containers.get(0)), registry.getProviders(ServiceA.class));
+		assertSame(exact, StartupPlan.resolve(registry.values()).getProviders(consumer)[0]);
+		assertSame(exact, DependencyGraph.analyze(registry.values()).getDependencies(consumer).get(0));
+	}
+	
+}
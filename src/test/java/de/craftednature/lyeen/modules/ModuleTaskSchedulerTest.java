@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.craftednature.lyeen.TestPlugin;
+
+public class ModuleTaskSchedulerTest {
+	
+	public static class Owner implements Module {}
+	
+	private ModuleManager manager;
+	private ModuleTaskScheduler scheduler;
+	private Owner owner;
+	private List<String> slices;
+	
+	@Before
+	public void setUp(){
+		manager = TestPlugin.install();
+		owner = new Owner();
+		manager.addModule(owner);
+		manager.startAll();
+		
+		scheduler = manager.getTaskScheduler();
+		slices = new ArrayList<>();
+	}
+	
+	@After
+	public void tearDown(){
+		manager.stopAll();
+		TestPlugin.uninstall();
+	}
+	
+	/**
+	 * A task that records each of its slices and needs this number of slices to finish.
+	 */
+	private TickTask task(String name, int count){
+		AtomicInteger run = new AtomicInteger();
+		return () -> {
+			slices.add(name + run.incrementAndGet());
+			return run.get() < count;
+		};
+	}
+	
+	@Test
+	public void tasksThatDontFitTheBudgetAreCarriedOver(){
+		//a budget of 1ns allows exactly one slice per tick
+		scheduler.setTickBudget(1, TimeUnit.NANOSECONDS);
+		ScheduledTask a = scheduler.submit(owner, TaskPriority.NORMAL, task("a", 2));
+		ScheduledTask b = scheduler.submit(owner, TaskPriority.NORMAL, task("b", 2));
+		
+		scheduler.tick();
+		assertEquals(Arrays.asList("a1"), slices);
+		assertEquals(2, scheduler.getCarriedOver());
+		
+		//a task that has more work is queued behind the other tasks, so they share the budget
+		scheduler.tick();
+		scheduler.tick();
+		scheduler.tick();
+		assertEquals(Arrays.asList("a1", "b1", "a2", "b2"), slices);
+		assertEquals(0, scheduler.getCarriedOver());
+		assertTrue(a.isDone() && b.isDone());
+		assertEquals(4, scheduler.getStats(Owner.class).get().getSlices());
+	}
+	
+	@Test
+	public void starvingTasksArePromoted(){
+		scheduler.setTickBudget(1, TimeUnit.NANOSECONDS);
+		ScheduledTask busy = scheduler.submit(owner, TaskPriority.HIGH, () -> true);
+		ScheduledTask starving = scheduler.submit(owner, TaskPriority.LOW, task("low", 1));
+		
+		//the low task is moved up one priority every 100 ticks, until it shares the high priority with the busy task
+		for (int i = 0; i < 150; i++) scheduler.tick();
+		assertFalse(starving.isDone());
+		
+		for (int i = 0; i < 100; i++) scheduler.tick();
+		assertTrue(starving.isDone());
+		assertEquals(Arrays.asList("low1"), slices);
+		
+		busy.cancel();
+	}
+	
+	@Test
+	public void tasksOfRemovedModulesAreCancelled(){
+		ScheduledTask task = scheduler.submit(owner, TaskPriority.NORMAL, task("removed", 1));
+		manager.removeModule(Owner.class);
+		
+		scheduler.tick();
+		assertTrue(task.isDone());
+		assertEquals(Collections.emptyList(), slices);
+	}
+	
+	@Test
+	public void tasksOfReplacedModulesAreCancelled(){
+		ScheduledTask task = scheduler.submitRepeating(owner, TaskPriority.NORMAL, 1, task("old", 1));
+		scheduler.tick();
+		assertEquals(Arrays.asList("old1"), slices);
+		
+		//the task belongs to the old instance, which is stopped by the restart
+		Owner replacement = new Owner();
+		manager.restartModule(replacement);
+		scheduler.tick();
+		assertTrue(task.isDone());
+		assertEquals(Arrays.asList("old1"), slices);
+		
+		scheduler.submit(replacement, TaskPriority.NORMAL, task("new", 1));
+		scheduler.tick();
+		assertEquals(Arrays.asList("old1", "new1"), slices);
+	}
+	
+}
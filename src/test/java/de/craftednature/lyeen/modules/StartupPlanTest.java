@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.modules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StartupPlanTest {
+	
+	public interface Missing extends Module {}
+	public interface Service extends Module {}
+	
+	public static class A implements Module {}
+	public static class B implements Module { @Depends A a; }
+	public static class C implements Module { @Depends B b; @Depends A a; }
+	
+	public static class D implements Module { @Depends E e; }
+	public static class E implements Module { @Depends D d; }
+	public static class F implements Module { @Depends D d; }
+	
+	public static class G implements Module { @Depends Missing missing; }
+	public static class H implements Module { @Depends G g; }
+	
+	public static class Self implements Service { @Depends Service service; }
+	
+	private Map<Class<?>, ModuleContainer> containers;
+	private StartupPlan plan;
+	
+	@Before
+	public void setUp(){
+		containers = new LinkedHashMap<>();
+		
+		//added in reverse, so the order of the plan can't just be the order they have been added in
+		for (Module module : new Module[]{ new Self(), new H(), new G(), new F(), new E(), new D(), new C(), new B(), new A() }){
+			containers.put(module.getClass(), new ModuleContainer(module));
+		}
+		
+		plan = StartupPlan.resolve(containers.values());
+	}
+	
+	private ModuleContainer mc(Class<?> type){
+		return containers.get(type);
+	}
+	
+	@Test
+	public void dependenciesAreStartedFirst(){
+		assertEquals(Arrays.asList(mc(A.class), mc(B.class), mc(C.class)), plan.getOrder());
+		
+		List<ModuleContainer> reverse = new ArrayList<>(plan.getOrder());
+		Collections.reverse(reverse);
+		assertEquals(reverse, plan.getReverseOrder());
+		
+		assertEquals(new HashSet<>(Arrays.asList(mc(B.class), mc(C.class))), new HashSet<>(plan.getDependents(mc(A.class))));
+		
+		ModuleContainer[] providers = plan.getProviders(mc(C.class));
+		assertSame(mc(B.class), providers[0]);
+		assertSame(mc(A.class), providers[1]);
+	}
+	
+	@Test
+	public void cyclesAreUnsatisfied(){
+		Map<ModuleContainer, Collection<Class<? extends Module>>> unsatisfied = plan.getUnsatisfied();
+		
+		assertEquals(Collections.singleton(E.class), unsatisfied.get(mc(D.class)));
+		assertEquals(Collections.singleton(D.class), unsatisfied.get(mc(E.class)));
+		
+		//depending on a cycle can't be satisfied either
+		assertEquals(Collections.singleton(D.class), unsatisfied.get(mc(F.class)));
+		
+		assertFalse(plan.getOrder().contains(mc(D.class)));
+		assertFalse(plan.getOrder().contains(mc(F.class)));
+	}
+	
+	@Test
+	public void missingProvidersAreUnsatisfied(){
+		Map<ModuleContainer, Collection<Class<? extends Module>>> unsatisfied = plan.getUnsatisfied();
+		
+		assertEquals(Collections.singleton(Missing.class), unsatisfied.get(mc(G.class)));
+		assertNull(plan.getProviders(mc(G.class))[0]);
+		
+		//missing transitively
+		assertEquals(Collections.singleton(G.class), unsatisfied.get(mc(H.class)));
+		assertSame(mc(G.class), plan.getProviders(mc(H.class))[0]);
+	}
+	
+	@Test
+	public void moduleDoesNotProvideItself(){
+		assertEquals(Collections.singleton(Service.class), plan.getUnsatisfied().get(mc(Self.class)));
+		assertNull(plan.getProviders(mc(Self.class))[0]);
+	}
+	
+	@Test
+	public void planContainsAllResolvedModules(){
+		assertTrue(plan.containsAll(containers.values()));
+		assertFalse(plan.contains(new ModuleContainer(new A())));
+		assertEquals(containers.size(), plan.getOrder().size() + plan.getUnsatisfied().size());
+	}
+	
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.playerdata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.craftednature.lyeen.TestPlugin;
+import de.craftednature.lyeen.modules.ModuleExecutor;
+import de.craftednature.lyeen.modules.ModuleManager;
+
+public class PlayerDataCacheTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private final UUID first = UUID.randomUUID(), second = UUID.randomUUID(), third = UUID.randomUUID();
+	
+	private Path directory;
+	private ModuleManager manager;
+	private PlayerDataCache cache;
+	
+	@Before
+	public void setUp(){
+		directory = folder.getRoot().toPath().resolve("players");
+		
+		manager = TestPlugin.install();
+		cache = new PlayerDataCache(directory);
+		cache.setMaximumSize(2);
+		manager.addModule(cache);
+		manager.startAll();
+	}
+	
+	@After
+	public void tearDown(){
+		manager.stopAll();
+		TestPlugin.uninstall();
+	}
+	
+	private Properties readFile(UUID uuid) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(directory.resolve(uuid + ".properties"), StandardCharsets.UTF_8)){
+			properties.load(reader);
+		}
+		return properties;
+	}
+	
+	@Test
+	public void leastRecentlyUsedRecordIsEvicted() throws IOException {
+		cache.get(first);
+		cache.get(second);
+		cache.get(first);
+		cache.get(third);
+		
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertTrue(cache.getIfLoaded(first).isPresent());
+		assertTrue(cache.getIfLoaded(third).isPresent());
+		assertFalse(cache.getIfLoaded(second).isPresent());
+	}
+	
+	@Test
+	public void evictedDirtyRecordIsKeptUntilItIsWritten() throws IOException {
+		PlayerRecord record = cache.get(first);
+		record.set("test.value", 42);
+		
+		cache.get(second);
+		cache.get(third);
+		assertEquals(1, cache.getEvictions());
+		assertFalse(Files.exists(directory.resolve(first + ".properties")));
+		
+		//the unsaved record is returned again instead of reading the outdated file
+		long misses = cache.getMisses();
+		assertSame(record, cache.get(first));
+		assertEquals(misses, cache.getMisses());
+		assertEquals(42, record.getInt("test.value", 0));
+	}
+	
+	@Test
+	public void evictedDirtyRecordIsWrittenBySave() throws IOException {
+		PlayerRecord record = cache.get(first);
+		record.set("test.value", 42);
+		
+		cache.get(second);
+		cache.get(third);
+		
+		cache.save();
+		assertEquals("42", readFile(first).getProperty("test.value"));
+		assertFalse(record.isDirty());
+		assertEquals(1, cache.getWrites());
+		
+		//the record is clean now, so it is not written again
+		cache.save();
+		assertEquals(1, cache.getWrites());
+	}
+	
+	@Test
+	public void evictedCleanRecordIsDropped() throws IOException {
+		PlayerRecord record = cache.get(first);
+		
+		cache.get(second);
+		cache.get(third);
+		
+		long misses = cache.getMisses();
+		assertNotSame(record, cache.get(first));
+		assertEquals(misses + 1, cache.getMisses());
+	}
+	
+	@Test
+	public void changesToAnEvictedRecordAreWritten() throws IOException {
+		PlayerRecord record = cache.get(first);
+		
+		cache.get(second);
+		cache.get(third);
+		
+		//the record has been evicted while it was clean, the change has to bring it back to be saved
+		record.set("test.value", "changed");
+		assertTrue(record.isDirty());
+		
+		cache.save();
+		assertEquals("changed", readFile(first).getProperty("test.value"));
+		assertFalse(record.isDirty());
+	}
+	
+	@Test
+	public void loadingFailsIfTheExecutorIsShutDown() throws Exception {
+		//the executor of a stopping module is shut down before PlayerDataCache#stop() is called
+		ModuleExecutor executor = manager.getExecutor(cache);
+		Method shutdown = ModuleExecutor.class.getDeclaredMethod("shutdown");
+		shutdown.setAccessible(true);
+		shutdown.invoke(executor);
+		
+		CompletableFuture<PlayerRecord> future = cache.getAsync(first);
+		assertTrue(future.isCompletedExceptionally());
+		
+		//the failed load is not pending anymore, so the next request fails as well instead of waiting forever
+		CompletableFuture<PlayerRecord> next = cache.getAsync(first);
+		assertNotSame(future, next);
+		assertTrue(next.isCompletedExceptionally());
+		
+		try {
+			cache.get(first);
+			fail("Loading should fail while the executor is shut down!");
+		} catch (CompletionException ex){
+			assertTrue(ex.getCause() instanceof RejectedExecutionException);
+		}
+	}
+	
+	@Test
+	public void shrinkingTheCacheKeepsDirtyRecords() throws IOException {
+		cache.get(first).set("test.value", 1);
+		cache.get(second).set("test.value", 2);
+		
+		cache.setMaximumSize(1);
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getEvictions());
+		
+		cache.save();
+		assertEquals("1", readFile(first).getProperty("test.value"));
+		assertEquals("2", readFile(second).getProperty("test.value"));
+	}
+	
+}
@@ -0,0 +1,221 @@
+/*
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) Blue <https://www.bluecolored.de>
+ * Copyright (c) CraftedNature <https://www.craftednature.de>
+ * Copyright (c) contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.craftednature.lyeen.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.craftednature.lyeen.TestPlugin;
+import de.craftednature.lyeen.modules.ModuleManager;
+
+public class SqlStorageTest {
+	
+	private static final String INSERT = "INSERT INTO players (id, name) VALUES (?, ?)";
+	private static final long TIMEOUT = 10;
+	
+	private String url;
+	private Connection keepAlive;
+	private ModuleManager manager;
+	
+	@Before
+	public void setUp() throws SQLException {
+		url = "jdbc:h2:mem:" + UUID.randomUUID();
+		keepAlive = DriverManager.getConnection(url);
+		try (Statement statement = keepAlive.createStatement()){
+			statement.execute("CREATE TABLE players (id INT PRIMARY KEY, name VARCHAR(16))");
+		}
+		
+		manager = TestPlugin.install();
+	}
+	
+	@After
+	public void tearDown() throws SQLException {
+		manager.stopAll();
+		TestPlugin.uninstall();
+		keepAlive.close();
+	}
+	
+	private SqlStorage start(int poolSize){
+		SqlStorage storage = new SqlStorage(url, new Properties(), poolSize);
+		manager.addModule(storage);
+		manager.startAll();
+		return storage;
+	}
+	
+	private int countPlayers() throws SQLException {
+		try (Statement statement = keepAlive.createStatement()){
+			ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM players");
+			result.next();
+			return result.getInt(1);
+		}
+	}
+	
+	@Test
+	public void queuedWritesAreExecutedInOneBatch() throws Exception {
+		SqlStorage storage = new SqlStorage(url, new Properties(), 2);
+		
+		//writes that are queued before the module is started, are executed together when it starts
+		List<CompletableFuture<Integer>> writes = new ArrayList<>();
+		for (int i = 0; i < 100; i++) writes.add(storage.update(INSERT, i, "player" + i));
+		CompletableFuture<Void> flush = storage.flush();
+		
+		manager.addModule(storage);
+		manager.startAll();
+		flush.get(TIMEOUT, TimeUnit.SECONDS);
+		
+		for (CompletableFuture<Integer> write : writes) assertEquals(1, (int) write.get());
+		assertEquals(1, storage.getBatches());
+		assertEquals(100, storage.getExecutedWrites());
+		assertEquals(0, storage.getFailedWrites());
+		assertEquals(100, countPlayers());
+	}
+	
+	@Test
+	public void failingBatchFallsBackToSingleWrites() throws Exception {
+		SqlStorage storage = new SqlStorage(url, new Properties(), 2);
+		
+		CompletableFuture<Integer> first = storage.update(INSERT, 1, "first");
+		CompletableFuture<Integer> duplicate = storage.update(INSERT, 1, "duplicate");
+		CompletableFuture<Integer> second = storage.update(INSERT, 2, "second");
+		CompletableFuture<Void> flush = storage.flush();
+		
+		manager.addModule(storage);
+		manager.startAll();
+		flush.get(TIMEOUT, TimeUnit.SECONDS);
+		
+		assertEquals(1, (int) first.get());
+		assertTrue(duplicate.isCompletedExceptionally());
+		assertEquals(1, (int) second.get());
+		
+		assertEquals(0, storage.getBatches());
+		assertEquals(2, storage.getExecutedWrites());
+		assertEquals(1, storage.getFailedWrites());
+		assertEquals(2, countPlayers());
+	}
+	
+	@Test
+	public void flushWaitsForAllPreviousWritesInOrder() throws Exception {
+		SqlStorage storage = start(2);
+		
+		List<CompletableFuture<Integer>> writes = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) writes.add(storage.update(INSERT, i, "player" + i));
+		writes.add(storage.update("UPDATE players SET name = ? WHERE id = ?", "renamed", 0));
+		writes.add(storage.update("DELETE FROM players WHERE id = ?", 1));
+		
+		storage.flush().get(TIMEOUT, TimeUnit.SECONDS);
+		
+		for (CompletableFuture<Integer> write : writes) assertTrue(write.isDone());
+		assertEquals(999, countPlayers());
+		
+		String name = storage.query("SELECT name FROM players WHERE id = ?", result -> result.next() ? result.getString(1) : null, 0)
+				.get(TIMEOUT, TimeUnit.SECONDS);
+		assertEquals("renamed", name);
+	}
+	
+	@Test
+	public void queriesWaitForAConnectionIfThePoolIsExhausted() throws Exception {
+		SqlStorage storage = start(1);
+		
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<Void> blocking = storage.withConnection(connection -> {
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ex){
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		});
+		
+		assertTrue(blocked.await(TIMEOUT, TimeUnit.SECONDS));
+		CompletableFuture<Integer> waiting = storage.query("SELECT COUNT(*) FROM players", result -> result.next() ? result.getInt(1) : -1);
+		
+		Thread.sleep(100);
+		assertFalse(waiting.isDone());
+		assertEquals(1, storage.getActiveConnections());
+		
+		release.countDown();
+		blocking.get(TIMEOUT, TimeUnit.SECONDS);
+		assertEquals(0, (int) waiting.get(TIMEOUT, TimeUnit.SECONDS));
+	}
+	
+	@Test
+	public void borrowTimesOutIfThePoolIsExhausted() throws Exception {
+		ConnectionPool pool = new ConnectionPool(url, new Properties(), 1, 8);
+		try {
+			PooledConnection connection = pool.borrow(1, TimeUnit.SECONDS);
+			assertEquals(1, pool.getActive());
+			
+			try {
+				pool.borrow(50, TimeUnit.MILLISECONDS);
+				fail("The pool is exhausted, borrowing should time out!");
+			} catch (SQLTimeoutException expected){}
+			
+			pool.release(connection);
+			assertEquals(0, pool.getActive());
+			assertEquals(1, pool.getIdle());
+			
+			//the idle connection is reused
+			pool.release(pool.borrow(50, TimeUnit.MILLISECONDS));
+			assertEquals(1, pool.getIdle());
+		} finally {
+			pool.close();
+		}
+	}
+	
+	@Test
+	public void writesFailAfterTheStorageIsStopped() throws Exception {
+		SqlStorage storage = start(1);
+		manager.stopAll();
+		
+		CompletableFuture<Integer> write = storage.update(INSERT, 1, "late");
+		assertTrue(write.isCompletedExceptionally());
+		assertTrue(storage.flush().isCompletedExceptionally());
+	}
+	
+}